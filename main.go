@@ -12,6 +12,7 @@ package main
 import (
 	"flag"
 	"fmt"
+	"os"
 	"path/filepath"
 
 	"github.com/richardwilkes/gcs/v5/early"
@@ -60,10 +61,16 @@ func main() {
 
 	textTmplPath := flag.String("text", "", i18n.Text("Export sheets using the specified text template `file`"))
 
+	textOutputDir := flag.String("text-output", "", i18n.Text("The `dir` to write the files exported with --text into. If not set, each is written next to the sheet it was exported from"))
+
 	convertFiles := flag.Bool("convert", false, i18n.Text("Convert all files specified on the command line to the current data format. If a directory is specified, it will be traversed recursively and all files found will be converted. After all files have been processed, GCS will exit"))
 
 	syncSheetsAndTemplates := flag.Bool("sync", false, fmt.Sprintf(i18n.Text("Syncs all character sheet (%s) and template (%s) files specified on the command line with their library sources. If a directory is specified, it will be traversed recursively and all files found will be converted. After all files have been processed, GCS will exit"), gurps.SheetExt, gurps.TemplatesExt))
 
+	jobs := flag.Int("jobs", 0, i18n.Text("The maximum `number` of files to process at once when using --convert, --sync or --text. 0 means one per CPU"))
+
+	scriptStats := flag.Bool("script-stats", false, i18n.Text("Collect script execution statistics and write them to the console once --convert, --sync or --text has finished"))
+
 	var logCfg xslog.Config
 	logCfg.AddFlags()
 
@@ -76,6 +83,7 @@ func main() {
 
 	ux.RegisterKnownFileTypes()
 	gurps.GlobalSettings() // Here to force early initialization
+	gurps.EnableScriptStats(*scriptStats)
 
 	if *convertFiles && *syncSheetsAndTemplates {
 		xos.ExitWithMsg(i18n.Text("Cannot specify both --convert and --sync"))
@@ -83,22 +91,27 @@ func main() {
 
 	switch {
 	case *convertFiles:
-		if err := gurps.Convert(fileList...); err != nil {
+		if err := gurps.Convert(*jobs, fileList...); err != nil {
 			xos.ExitWithMsg(err.Error())
 		}
 	case *syncSheetsAndTemplates:
-		if err := gurps.SyncSheetsAndTemplates(fileList...); err != nil {
+		if err := gurps.SyncSheetsAndTemplates(*jobs, fileList...); err != nil {
 			xos.ExitWithMsg(err.Error())
 		}
 	case *textTmplPath != "":
 		if len(fileList) == 0 {
 			xos.ExitWithMsg(i18n.Text("No files to process."))
 		}
-		if err := gurps.ExportSheets(*textTmplPath, fileList); err != nil {
+		if err := gurps.ExportSheets(*textTmplPath, fileList, *textOutputDir, *jobs); err != nil {
 			xos.ExitWithMsg(err.Error())
 		}
 	default:
 		ux.Start(fileList) // Never returns
 	}
+	if *scriptStats {
+		if err := gurps.WriteScriptStats(os.Stdout); err != nil {
+			xos.ExitWithMsg(err.Error())
+		}
+	}
 	xos.Exit(0)
 }
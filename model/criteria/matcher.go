@@ -0,0 +1,142 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package criteria
+
+import (
+	"strings"
+	"unicode/utf8"
+)
+
+// Matcher is a Text criteria that has been compiled for a specific set of nameable replacements. Use it in place of
+// Text.Matches() when the same criteria will be compared against many values.
+type Matcher struct {
+	compare   StringComparison
+	qualifier string
+	folded    string
+	ascii     bool
+}
+
+func newMatcher(compare StringComparison, qualifier string) Matcher {
+	m := Matcher{
+		compare:   compare,
+		qualifier: qualifier,
+	}
+	switch compare {
+	case ContainsText, DoesNotContainText, StartsWithText, DoesNotStartWithText, EndsWithText, DoesNotEndWithText:
+		m.folded = strings.ToLower(qualifier)
+		m.ascii = isASCII(qualifier)
+	default:
+	}
+	return m
+}
+
+// Compare returns the comparison this Matcher performs.
+func (m *Matcher) Compare() StringComparison {
+	return m.compare
+}
+
+// Qualifier returns the qualifier, with replacements applied, that this Matcher compares against.
+func (m *Matcher) Qualifier() string {
+	return m.qualifier
+}
+
+// Matches performs a comparison and returns true if the data matches.
+func (m *Matcher) Matches(value string) bool {
+	switch m.compare {
+	case IsText:
+		return strings.EqualFold(value, m.qualifier)
+	case IsNotText:
+		return !strings.EqualFold(value, m.qualifier)
+	case ContainsText:
+		return m.contains(value)
+	case DoesNotContainText:
+		return !m.contains(value)
+	case StartsWithText:
+		return m.hasPrefix(value)
+	case DoesNotStartWithText:
+		return !m.hasPrefix(value)
+	case EndsWithText:
+		return m.hasSuffix(value)
+	case DoesNotEndWithText:
+		return !m.hasSuffix(value)
+	default:
+		return true
+	}
+}
+
+// MatchesList performs a comparison and returns true if the data matches.
+func (m *Matcher) MatchesList(value ...string) bool {
+	if len(value) == 0 {
+		return m.Matches("")
+	}
+	matches := 0
+	for _, one := range value {
+		if m.Matches(one) {
+			matches++
+		}
+	}
+	if m.compare.IsNotType() {
+		return matches == len(value)
+	}
+	return matches > 0
+}
+
+func (m *Matcher) contains(value string) bool {
+	if m.ascii && isASCII(value) {
+		if len(m.folded) == 0 {
+			return true
+		}
+		for i := 0; i+len(m.folded) <= len(value); i++ {
+			if equalFoldedASCII(value[i:i+len(m.folded)], m.folded) {
+				return true
+			}
+		}
+		return false
+	}
+	return strings.Contains(strings.ToLower(value), m.folded)
+}
+
+func (m *Matcher) hasPrefix(value string) bool {
+	if m.ascii && isASCII(value) {
+		return len(value) >= len(m.folded) && equalFoldedASCII(value[:len(m.folded)], m.folded)
+	}
+	return strings.HasPrefix(strings.ToLower(value), m.folded)
+}
+
+func (m *Matcher) hasSuffix(value string) bool {
+	if m.ascii && isASCII(value) {
+		return len(value) >= len(m.folded) && equalFoldedASCII(value[len(value)-len(m.folded):], m.folded)
+	}
+	return strings.HasSuffix(strings.ToLower(value), m.folded)
+}
+
+// equalFoldedASCII returns true if 's' matches 'folded' when lowercased. Both must contain only ASCII and 'folded' must
+// already be lowercase.
+func equalFoldedASCII(s, folded string) bool {
+	for i := 0; i < len(s); i++ {
+		c := s[i]
+		if 'A' <= c && c <= 'Z' {
+			c += 'a' - 'A'
+		}
+		if c != folded[i] {
+			return false
+		}
+	}
+	return true
+}
+
+func isASCII(s string) bool {
+	for i := 0; i < len(s); i++ {
+		if s[i] >= utf8.RuneSelf {
+			return false
+		}
+	}
+	return true
+}
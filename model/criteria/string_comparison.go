@@ -122,28 +122,8 @@ func (s StringComparison) DescribeWithPrefix(prefix, notPrefix, qualifier string
 
 // Matches performs a comparison and returns true if the data matches.
 func (s StringComparison) Matches(qualifier, data string) bool {
-	switch s {
-	case AnyText:
-		return true
-	case IsText:
-		return strings.EqualFold(data, qualifier)
-	case IsNotText:
-		return !strings.EqualFold(data, qualifier)
-	case ContainsText:
-		return strings.Contains(strings.ToLower(data), strings.ToLower(qualifier))
-	case DoesNotContainText:
-		return !strings.Contains(strings.ToLower(data), strings.ToLower(qualifier))
-	case StartsWithText:
-		return strings.HasPrefix(strings.ToLower(data), strings.ToLower(qualifier))
-	case DoesNotStartWithText:
-		return !strings.HasPrefix(strings.ToLower(data), strings.ToLower(qualifier))
-	case EndsWithText:
-		return strings.HasSuffix(strings.ToLower(data), strings.ToLower(qualifier))
-	case DoesNotEndWithText:
-		return !strings.HasSuffix(strings.ToLower(data), strings.ToLower(qualifier))
-	default:
-		return AnyText.Matches(qualifier, data)
-	}
+	m := newMatcher(s, qualifier)
+	return m.Matches(data)
 }
 
 // IsNotType returns true if this is a "not" type.
@@ -40,31 +40,21 @@ func (t *Text) UnmarshalJSON(data []byte) error {
 	return err
 }
 
+// Compile returns a Matcher for this criteria with the replacements applied.
+func (t Text) Compile(replacements map[string]string) Matcher {
+	return newMatcher(t.Compare, nameable.Apply(t.Qualifier, replacements))
+}
+
 // Matches performs a comparison and returns true if the data matches.
 func (t Text) Matches(replacements map[string]string, value string) bool {
-	return t.Compare.Matches(nameable.Apply(t.Qualifier, replacements), value)
+	m := t.Compile(replacements)
+	return m.Matches(value)
 }
 
 // MatchesList performs a comparison and returns true if the data matches.
 func (t Text) MatchesList(replacements map[string]string, value ...string) bool {
-	qualifier := nameable.Apply(t.Qualifier, replacements)
-	if len(value) == 0 {
-		return t.Compare.Matches(qualifier, "")
-	}
-	matches := 0
-	for _, one := range value {
-		if t.Compare.Matches(qualifier, one) {
-			matches++
-		}
-	}
-	switch t.Compare {
-	case AnyText, IsText, ContainsText, StartsWithText, EndsWithText:
-		return matches > 0
-	case IsNotText, DoesNotContainText, DoesNotStartWithText, DoesNotEndWithText:
-		return matches == len(value)
-	default:
-		return matches > 0
-	}
+	m := t.Compile(replacements)
+	return m.MatchesList(value...)
 }
 
 func (t Text) String(replacements map[string]string) string {
@@ -40,12 +40,12 @@ func AvailableAncestries(libraries Libraries) []*NamedFileSet {
 	return ScanForNamedFileSets(embeddedFS, "embedded_data", true, libraries, AncestryExt)
 }
 
-// LookupAncestry an Ancestry by name.
+// LookupAncestry an Ancestry by name. The returned Ancestry is shared and must not be modified.
 func LookupAncestry(name string, libraries Libraries) *Ancestry {
 	for _, lib := range AvailableAncestries(libraries) {
 		for _, one := range lib.List {
 			if one.Name == name {
-				if a, err := NewAncestryFromFile(one.FileSystem, one.FilePath); err != nil {
+				if a, err := cachedNamedFile(one, NewAncestryFromFile); err != nil {
 					errs.Log(err, "path", one.FilePath)
 				} else {
 					return a
@@ -23,9 +23,14 @@ import (
 
 var _ Hashable = &Attributes{}
 
-// Attributes holds a set of Attribute objects.
+// Attributes holds a set of Attribute objects. Changes to the set should be made with Add() and Remove() so that the
+// ordered list and name index are kept up to date. If the Set is modified directly, call Invalidate() afterward.
 type Attributes struct {
-	Set map[string]*Attribute
+	Set            map[string]*Attribute
+	list           []*Attribute
+	byName         map[string]*Attribute
+	valid          bool
+	byNameComplete bool // true if every name could be placed in byName
 }
 
 // NewAttributes creates a new Attributes.
@@ -57,6 +62,7 @@ func (a *Attributes) UnmarshalJSON(data []byte) error {
 		one.Order = i
 		a.Set[one.ID()] = one
 	}
+	a.Invalidate()
 	return nil
 }
 
@@ -69,14 +75,56 @@ func (a *Attributes) Clone(entity *Entity) *Attributes {
 	return clone
 }
 
-// List returns the map of Attribute objects as an ordered list.
+// List returns the map of Attribute objects as an ordered list. The returned slice is shared and must not be modified.
 func (a *Attributes) List() []*Attribute {
+	if !a.valid || len(a.list) != len(a.Set) {
+		a.rebuild()
+	}
+	return a.list
+}
+
+// Add the Attribute to the set, replacing any existing Attribute with the same ID.
+func (a *Attributes) Add(attr *Attribute) {
+	if a.Set == nil {
+		a.Set = make(map[string]*Attribute)
+	}
+	a.Set[attr.AttrID] = attr
+	a.Invalidate()
+}
+
+// Remove the Attribute with the given ID from the set.
+func (a *Attributes) Remove(attrID string) {
+	if _, exists := a.Set[attrID]; exists {
+		delete(a.Set, attrID)
+		a.Invalidate()
+	}
+}
+
+// SetOrder sets the order of the Attribute with the given ID.
+func (a *Attributes) SetOrder(attrID string, order int) {
+	if attr, exists := a.Set[attrID]; exists && attr.Order != order {
+		attr.Order = order
+		a.Invalidate()
+	}
+}
+
+// Invalidate the ordered list and name index, so that they are rebuilt the next time they are needed. This is done
+// automatically by Add(), Remove() and SetOrder(), but must be called if the Set or the attribute definitions it relies
+// upon are modified by other means.
+func (a *Attributes) Invalidate() {
+	a.valid = false
+}
+
+func (a *Attributes) rebuild() {
+	// A new slice is used rather than re-using the old one, since callers may still be holding the old one.
 	list := make([]*Attribute, 0, len(a.Set))
 	for _, v := range a.Set {
 		list = append(list, v)
 	}
 	slices.SortFunc(list, func(a, b *Attribute) int { return cmp.Compare(a.Order, b.Order) })
-	return list
+	a.list = list
+	a.byName = nil
+	a.valid = true
 }
 
 // Hash writes this object's contents into the hasher.
@@ -87,12 +135,45 @@ func (a *Attributes) Hash(h hash.Hash) {
 	}
 }
 
+// hashContents writes the persisted portion of the attributes into the hasher. Unlike Hash(), this excludes values
+// derived during recalculation as well as the attribute definitions.
+func (a *Attributes) hashContents(h hash.Hash) {
+	list := a.List()
+	xhash.Num64(h, len(list))
+	for _, one := range list {
+		xhash.StringWithLen(h, one.AttrID)
+		xhash.Num64(h, one.Adjustment)
+		xhash.Num64(h, one.Damage)
+	}
+}
+
 // Find resolves the given ID or name to an Attribute, or nil if not found.
 func (a *Attributes) Find(idOrName string) *Attribute {
 	if attr, ok := a.Set[idOrName]; ok {
 		return attr
 	}
 	list := a.List()
+	if a.byName == nil {
+		a.byName = make(map[string]*Attribute, 2*len(list))
+		a.byNameComplete = true
+		for _, one := range list {
+			if def := one.AttributeDef(); def != nil && !def.IsSeparator() {
+				for _, name := range []string{def.Name, def.FullName} {
+					key, ok := asciiFoldKey(name)
+					if !ok {
+						a.byNameComplete = false
+						continue
+					}
+					if _, exists := a.byName[key]; !exists {
+						a.byName[key] = one
+					}
+				}
+			}
+		}
+	}
+	if key, ok := asciiFoldKey(idOrName); ok && a.byNameComplete {
+		return a.byName[key]
+	}
 	for _, one := range list {
 		if one.NameMatches(idOrName) {
 			return one
@@ -0,0 +1,46 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"testing"
+
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestAttributesListAndFind(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	list := e.Attributes.List()
+	c.Equal(len(e.Attributes.Set), len(list))
+	for i := 1; i < len(list); i++ {
+		c.True(list[i-1].Order <= list[i].Order, "list is ordered")
+	}
+	c.Equal(0.0, testing.AllocsPerRun(10, func() { e.Attributes.List() }), "List() doesn't allocate")
+
+	st := e.Attributes.Set[StrengthID]
+	c.True(e.Attributes.Find(StrengthID) == st, "find by ID")
+	c.True(e.Attributes.Find("st") == st, "find by name")
+	c.True(e.Attributes.Find("strength") == st, "find by full name")
+	c.True(e.Attributes.Find("no such attribute") == nil, "missing name")
+
+	e.Attributes.Remove(StrengthID)
+	c.True(e.Attributes.Find("strength") == nil, "removed")
+	c.Equal(len(list)-1, len(e.Attributes.List()))
+	e.Attributes.Add(st)
+	e.Attributes.SetOrder(StrengthID, -1)
+	c.True(e.Attributes.List()[0] == st, "re-ordered")
+	c.True(e.Attributes.Find("Strength") == st, "re-added")
+
+	e.SheetSettings.Attributes.Set[StrengthID].Name = "\u03a3\u0391\u03a3"
+	e.Attributes.Invalidate()
+	c.True(e.Attributes.Find("\u03c3\u03b1\u03c2") == st, "non-ASCII names match as strings.EqualFold() does")
+	c.True(e.Attributes.Find("strength") == st, "ASCII names still match")
+}
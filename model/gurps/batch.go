@@ -0,0 +1,95 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"fmt"
+	"io"
+	"runtime"
+	"sync"
+
+	"github.com/richardwilkes/toolbox/v2/errs"
+	"github.com/richardwilkes/toolbox/v2/i18n"
+)
+
+// BatchJobs returns the number of files to process at once for a requested job count. A value of 0 or less means one
+// per CPU.
+func BatchJobs(jobs int) int {
+	if jobs < 1 {
+		return runtime.NumCPU()
+	}
+	return jobs
+}
+
+// processBatch calls 'process' for each of the paths, with up to 'jobs' of them in progress at once. Progress is
+// written to 'w' in the order of the paths, regardless of the order in which they complete. A failure doesn't stop the
+// remaining paths from being processed; once all of them have been, a summary is written and, if any failed, an error
+// is returned.
+func processBatch(w io.Writer, jobs int, paths []string, process func(p string) error) error {
+	results := make([]error, len(paths))
+	finished := make([]bool, len(paths))
+	completed := make(chan int, len(paths))
+	work := make(chan int)
+	var wg sync.WaitGroup
+	for range min(BatchJobs(jobs), max(len(paths), 1)) {
+		wg.Go(func() {
+			for i := range work {
+				results[i] = processBatchItem(paths[i], process)
+				completed <- i
+			}
+		})
+	}
+	go func() {
+		for i := range paths {
+			work <- i
+		}
+		close(work)
+		wg.Wait()
+		close(completed)
+	}()
+	var failed []int
+	next := 0
+	for i := range completed {
+		finished[i] = true
+		for ; next < len(paths) && finished[next]; next++ {
+			fmt.Fprintf(w, i18n.Text("Processing %s\n"), paths[next])
+			if results[next] != nil {
+				fmt.Fprintf(w, i18n.Text("  Failed: %v\n"), results[next])
+				failed = append(failed, next)
+			}
+		}
+	}
+	if len(paths) == 1 {
+		fmt.Fprintln(w, i18n.Text("Processed 1 file"))
+	} else {
+		fmt.Fprintf(w, i18n.Text("Processed %d files\n"), len(paths))
+	}
+	if len(failed) == 0 {
+		return nil
+	}
+	for _, i := range failed {
+		fmt.Fprintf(w, i18n.Text("Failed: %s: %v\n"), paths[i], results[i])
+	}
+	if len(failed) == 1 {
+		return errs.New(i18n.Text("1 file could not be processed"))
+	}
+	return errs.New(fmt.Sprintf(i18n.Text("%d files could not be processed"), len(failed)))
+}
+
+// processBatchItem calls 'process' for the path, turning a panic into an error so that it doesn't take down the rest
+// of the batch.
+func processBatchItem(p string, process func(p string) error) (err error) {
+	defer func() {
+		if r := recover(); r != nil {
+			err = errs.New(fmt.Sprintf("panic: %v", r))
+		}
+	}()
+	return process(p)
+}
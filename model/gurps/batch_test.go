@@ -0,0 +1,52 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"errors"
+	"strconv"
+	"strings"
+	"testing"
+	"time"
+
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestProcessBatch(t *testing.T) {
+	c := check.New(t)
+	paths := make([]string, 20)
+	for i := range paths {
+		paths[i] = "file" + strconv.Itoa(i)
+	}
+	var buffer strings.Builder
+	err := processBatch(&buffer, 4, paths, func(p string) error {
+		i, _ := strconv.Atoi(strings.TrimPrefix(p, "file")) //nolint:errcheck // Always valid here
+		time.Sleep(time.Duration(len(paths)-i) * time.Millisecond)
+		switch i {
+		case 3:
+			return errors.New("failure")
+		case 7:
+			panic("boom")
+		default:
+			return nil
+		}
+	})
+	c.True(err != nil, "failures are reported")
+	out := buffer.String()
+	last := -1
+	for _, p := range paths {
+		pos := strings.Index(out, "Processing "+p+"\n")
+		c.True(pos > last, "progress is in order: "+p)
+		last = pos
+	}
+	c.True(strings.Contains(out, "Processed 20 files"), "summary")
+	c.True(strings.Contains(out, "Failed: file3: failure"), "error collected")
+	c.True(strings.Contains(out, "Failed: file7: panic: boom"), "panic collected")
+}
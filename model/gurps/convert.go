@@ -10,7 +10,6 @@
 package gurps
 
 import (
-	"fmt"
 	iofs "io/fs"
 	"maps"
 	"os"
@@ -20,15 +19,16 @@ import (
 
 	"github.com/richardwilkes/gcs/v5/model/colors"
 	"github.com/richardwilkes/gcs/v5/model/fonts"
-	"github.com/richardwilkes/toolbox/v2/i18n"
 	"github.com/richardwilkes/toolbox/v2/xfilepath"
 	"github.com/richardwilkes/toolbox/v2/xslices"
 	"github.com/richardwilkes/toolbox/v2/xstrings"
 	"github.com/yookoala/realpath"
 )
 
-// Convert the GCS files found in the given paths to the current file format.
-func Convert(paths ...string) error {
+// Convert the GCS files found in the given paths to the current file format, with up to 'jobs' files being converted at
+// once. A value of 0 or less for 'jobs' means one per CPU. A failure to convert one file doesn't stop the others from
+// being converted.
+func Convert(jobs int, paths ...string) error {
 	var err error
 	paths, err = xfilepath.UniquePaths(paths...)
 	if err != nil {
@@ -42,180 +42,178 @@ func Convert(paths ...string) error {
 		_ = filepath.WalkDir(p, f) //nolint:errcheck // We want to continue on even if there was an error
 	}
 	list := slices.SortedFunc(maps.Keys(pathSet), func(a, b string) int { return xstrings.NaturalCmp(a, b, true) })
-	for _, p := range list {
-		fmt.Printf(i18n.Text("Processing %s\n"), p)
-		switch strings.ToLower(filepath.Ext(p)) {
-		case TraitsExt:
-			var data []*Trait
-			if data, err = NewTraitsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveTraits(data, p); err != nil {
-				return err
-			}
-		case TraitModifiersExt:
-			var data []*TraitModifier
-			if data, err = NewTraitModifiersFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveTraitModifiers(data, p); err != nil {
-				return err
-			}
-		case EquipmentExt:
-			var data []*Equipment
-			if data, err = NewEquipmentFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveEquipment(data, p); err != nil {
-				return err
-			}
-		case EquipmentModifiersExt:
-			var data []*EquipmentModifier
-			if data, err = NewEquipmentModifiersFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveEquipmentModifiers(data, p); err != nil {
-				return err
-			}
-		case LootExt:
-			var loot *Loot
-			if loot, err = NewLootFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = loot.Save(p); err != nil {
-				return err
-			}
-		case SkillsExt:
-			var data []*Skill
-			if data, err = NewSkillsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveSkills(data, p); err != nil {
-				return err
-			}
-		case SpellsExt:
-			var data []*Spell
-			if data, err = NewSpellsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveSpells(data, p); err != nil {
-				return err
-			}
-		case NotesExt:
-			var data []*Note
-			if data, err = NewNotesFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = SaveNotes(data, p); err != nil {
-				return err
-			}
-		case TemplatesExt:
-			var tmpl *Template
-			if tmpl, err = NewTemplateFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = tmpl.Save(p); err != nil {
-				return err
-			}
-		// TODO: Re-enable Campaign files
-		// case CampaignExt:
-		// 	var campaign *Campaign
-		// 	if campaign, err = NewCampaignFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-		// 		return err
-		// 	}
-		// 	if err = campaign.Save(p); err != nil {
-		// 		return err
-		// 	}
-		case SheetExt:
-			var entity *Entity
-			if entity, err = NewEntityFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = entity.Save(p); err != nil {
-				return err
-			}
-		case AncestryExt:
-			var data *Ancestry
-			if data, err = NewAncestryFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case AttributesExt, AttributesExtAlt1, AttributesExtAlt2:
-			var data *AttributeDefs
-			if data, err = NewAttributeDefsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case BodyExt, BodyExtAlt:
-			var data *Body
-			if data, err = NewBodyFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case CalendarExt:
-			// Currently have no version info, so nothing to update
-		case ColorSettingsExt:
-			var data *colors.Colors
-			if data, err = colors.NewFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case FontSettingsExt:
-			var data *fonts.Fonts
-			if data, err = fonts.NewFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case GeneralSettingsExt:
-			var data *GeneralSettings
-			if data, err = NewGeneralSettingsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case KeySettingsExt:
-			var data *KeyBindings
-			if data, err = NewKeyBindingsFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case NamesExt:
-			// Currently have no version info, so nothing to update
-		case PageRefSettingsExt:
-			var data *PageRefs
-			if data, err = NewPageRefsFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
-		case SheetSettingsExt:
-			var data *SheetSettings
-			if data, err = NewSheetSettingsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			if err = data.Save(p); err != nil {
-				return err
-			}
+	return processBatch(os.Stdout, jobs, list, convertFile)
+}
+
+// convertFile converts a single GCS file to the current file format.
+func convertFile(p string) error {
+	var err error
+	switch strings.ToLower(filepath.Ext(p)) {
+	case TraitsExt:
+		var data []*Trait
+		if data, err = NewTraitsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveTraits(data, p); err != nil {
+			return err
+		}
+	case TraitModifiersExt:
+		var data []*TraitModifier
+		if data, err = NewTraitModifiersFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveTraitModifiers(data, p); err != nil {
+			return err
+		}
+	case EquipmentExt:
+		var data []*Equipment
+		if data, err = NewEquipmentFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveEquipment(data, p); err != nil {
+			return err
+		}
+	case EquipmentModifiersExt:
+		var data []*EquipmentModifier
+		if data, err = NewEquipmentModifiersFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveEquipmentModifiers(data, p); err != nil {
+			return err
+		}
+	case LootExt:
+		var loot *Loot
+		if loot, err = NewLootFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = loot.Save(p); err != nil {
+			return err
+		}
+	case SkillsExt:
+		var data []*Skill
+		if data, err = NewSkillsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveSkills(data, p); err != nil {
+			return err
+		}
+	case SpellsExt:
+		var data []*Spell
+		if data, err = NewSpellsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveSpells(data, p); err != nil {
+			return err
+		}
+	case NotesExt:
+		var data []*Note
+		if data, err = NewNotesFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = SaveNotes(data, p); err != nil {
+			return err
+		}
+	case TemplatesExt:
+		var tmpl *Template
+		if tmpl, err = NewTemplateFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = tmpl.Save(p); err != nil {
+			return err
+		}
+	// TODO: Re-enable Campaign files
+	// case CampaignExt:
+	// 	var campaign *Campaign
+	// 	if campaign, err = NewCampaignFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+	// 		return err
+	// 	}
+	// 	if err = campaign.Save(p); err != nil {
+	// 		return err
+	// 	}
+	case SheetExt:
+		var entity *Entity
+		if entity, err = NewEntityFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = entity.Save(p); err != nil {
+			return err
+		}
+	case AncestryExt:
+		var data *Ancestry
+		if data, err = NewAncestryFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case AttributesExt, AttributesExtAlt1, AttributesExtAlt2:
+		var data *AttributeDefs
+		if data, err = NewAttributeDefsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case BodyExt, BodyExtAlt:
+		var data *Body
+		if data, err = NewBodyFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case CalendarExt:
+		// Currently have no version info, so nothing to update
+	case ColorSettingsExt:
+		var data *colors.Colors
+		if data, err = colors.NewFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case FontSettingsExt:
+		var data *fonts.Fonts
+		if data, err = fonts.NewFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case GeneralSettingsExt:
+		var data *GeneralSettings
+		if data, err = NewGeneralSettingsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case KeySettingsExt:
+		var data *KeyBindings
+		if data, err = NewKeyBindingsFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case NamesExt:
+		// Currently have no version info, so nothing to update
+	case PageRefSettingsExt:
+		var data *PageRefs
+		if data, err = NewPageRefsFromFS(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
+		}
+	case SheetSettingsExt:
+		var data *SheetSettings
+		if data, err = NewSheetSettingsFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
+			return err
+		}
+		if err = data.Save(p); err != nil {
+			return err
 		}
-	}
-	if len(list) == 1 {
-		fmt.Println(i18n.Text("Processed 1 file"))
-	} else {
-		fmt.Printf(i18n.Text("Processed %d files\n"), len(list))
 	}
 	return nil
 }
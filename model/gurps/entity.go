@@ -10,7 +10,6 @@
 package gurps
 
 import (
-	"bytes"
 	"encoding/json"
 	"fmt"
 	"hash"
@@ -21,6 +20,7 @@ import (
 	"slices"
 	"strconv"
 	"strings"
+	"sync/atomic"
 
 	"github.com/richardwilkes/gcs/v5/model/criteria"
 	"github.com/richardwilkes/gcs/v5/model/fxp"
@@ -31,6 +31,7 @@ import (
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/progression"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/selfctrl"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/skillsel"
+	"github.com/richardwilkes/gcs/v5/model/gurps/enums/spellmatch"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/stlimit"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/threshold"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/wsel"
@@ -42,6 +43,7 @@ import (
 	"github.com/richardwilkes/toolbox/v2/i18n"
 	"github.com/richardwilkes/toolbox/v2/tid"
 	"github.com/richardwilkes/toolbox/v2/xbytes"
+	"github.com/richardwilkes/toolbox/v2/xhash"
 	"github.com/richardwilkes/toolbox/v2/xos"
 )
 
@@ -52,6 +54,8 @@ var (
 	_ PageInfoProvider = &Entity{}
 )
 
+var lastCacheGeneration atomic.Uint64
+
 // PointsBreakdown holds the points spent on a character.
 type PointsBreakdown struct {
 	Ancestry      fxp.Int
@@ -89,14 +93,16 @@ type EntityData struct {
 }
 
 type features struct {
-	attributeBonuses  []*AttributeBonus
-	costReductions    []*CostReduction
-	drBonuses         []*DRBonus
-	skillBonuses      []*SkillBonus
-	skillPointBonuses []*SkillPointBonus
-	spellBonuses      []*SpellBonus
-	spellPointBonuses []*SpellPointBonus
-	weaponBonuses     []*WeaponBonus
+	attributeBonuses   map[attributeBonusKey][]*AttributeBonus
+	costReductions     map[string][]*CostReduction
+	drBonuses          []*DRBonus
+	skillBonuses       bonusBuckets[*SkillBonus]
+	weaponSkillBonuses bonusBuckets[*SkillBonus]
+	skillPointBonuses  bonusBuckets[*SkillPointBonus]
+	spellBonuses       bonusBuckets[*SpellBonus]
+	spellPointBonuses  bonusBuckets[*SpellPointBonus]
+	weaponBonuses      bonusBuckets[*WeaponBonus]
+	namedWeaponBonuses bonusBuckets[*WeaponBonus]
 }
 
 // Entity holds the base information for various types of entities: PC, NPC, Creature, etc.
@@ -112,13 +118,21 @@ type Entity struct {
 	BlockBonusTooltip              string
 	srcMatcher                     *SrcMatcher
 	features                       features
+	skillIndex                     *skillIndex
+	prereqIndex                    *prereqIndex
 	variableResolverExclusions     map[string]bool
 	skillResolverExclusions        map[string]bool
-	scriptCache                    map[scriptResolveKey]string
+	scriptCache                    scriptResultCache
+	scriptInputs                   *scriptInputs
+	scriptIDsResolving             map[tid.TID]struct{}
+	scripts                        *scriptSession
+	scriptData                     scriptEntityData
 	variableCache                  map[string]string
 	basicLiftCache                 fxp.Weight
 	encumbranceLevelCache          encumbrance.Level
 	encumbranceLevelForSkillsCache encumbrance.Level
+	cacheGeneration                uint64
+	scriptsReadSkillsOrSpells      bool
 }
 
 // NewEntityFromFile loads an Entity from a file.
@@ -272,15 +286,25 @@ func (e *Entity) UnmarshalJSON(data []byte) error {
 	return nil
 }
 
+// nextCacheGeneration returns a new generation value for Entity.DiscardCaches(). Values are unique across all entities,
+// so data moved between entities can't mistake its cached values for current ones.
+func nextCacheGeneration() uint64 {
+	return lastCacheGeneration.Add(1)
+}
+
 // DiscardCaches discards the internal caches.
 func (e *Entity) DiscardCaches() {
 	e.variableResolverExclusions = make(map[string]bool)
 	e.skillResolverExclusions = make(map[string]bool)
-	e.scriptCache = make(map[scriptResolveKey]string)
+	e.scriptCache.discard()
+	if e.Attributes != nil {
+		e.Attributes.Invalidate()
+	}
 	e.variableCache = make(map[string]string)
 	e.basicLiftCache = -1
 	e.encumbranceLevelCache = encumbrance.LastLevel + 1
 	e.encumbranceLevelForSkillsCache = encumbrance.LastLevel + 1
+	e.cacheGeneration = nextCacheGeneration()
 }
 
 // Recalculate the statistics.
@@ -291,21 +315,34 @@ func (e *Entity) Recalculate() {
 	e.ensureAttachments()
 	e.DiscardCaches()
 	e.SourceMatcher().PrepareHashes(e)
-	e.UpdateSkills()
-	e.UpdateSpells()
+	graph := newRecalcGraph(e)
+	e.skillIndex = graph.index
+	defer func() { e.skillIndex = nil }()
+	graph.updateAll()
+	var changedSkills []*Skill
+	fullPass := true
 	for range 5 {
 		// Some skill & spell levels won't be correct until the features & prerequisites have been processed, and those
 		// can't be processed in some cases until the skills & spells have known levels. Due to this circular
 		// referencing, we need to update the skills & spells at least twice. Once they no longer change, we can stop
-		// processing. To avoid an infinite loop, we limit the number of iterations to 5.
-		e.processFeatures()
-		e.processPrereqs()
-		e.DiscardCaches()
-		skillsChanged := e.UpdateSkills()
-		spellsChanged := e.UpdateSpells()
-		if !skillsChanged && !spellsChanged {
+		// processing. To avoid an infinite loop, we limit the number of iterations to 5. After the first pass, if none
+		// of the changes could have altered the features or prerequisites, only the dependents of the changed skills
+		// are re-evaluated.
+		var spellsChanged bool
+		e.scriptsReadSkillsOrSpells = false
+		if fullPass {
+			e.processFeatures()
+			e.processPrereqs()
+			e.DiscardCaches()
+			changedSkills, spellsChanged = graph.updateAll()
+		} else {
+			e.DiscardCaches()
+			changedSkills, spellsChanged = graph.updateDependents(changedSkills)
+		}
+		if len(changedSkills) == 0 && !spellsChanged {
 			break
 		}
+		fullPass = graph.requiresFullPass(e, changedSkills, spellsChanged)
 	}
 }
 
@@ -335,8 +372,14 @@ func (e *Entity) ensureAttachments() {
 }
 
 func (e *Entity) processFeatures() {
-	e.features = features{}
-	Traverse(func(a *Trait) bool {
+	e.features = features{
+		attributeBonuses: make(map[attributeBonusKey][]*AttributeBonus),
+		costReductions:   make(map[string][]*CostReduction),
+	}
+	if e.skillIndex != nil {
+		e.skillIndex.invalidatePoints()
+	}
+	for a := range TraverseSeq(true, false, e.Traits...) {
 		var levels fxp.Int
 		if a.IsLeveled() {
 			levels = a.Levels.Max(0)
@@ -349,35 +392,30 @@ func (e *Entity) processFeatures() {
 		for _, f := range FeaturesForSelfControlRoll(a.CR, a.CRAdj) {
 			e.processFeature(a, nil, f, levels)
 		}
-		Traverse(func(mod *TraitModifier) bool {
+		for mod := range TraverseSeq(true, true, a.Modifiers...) {
 			for _, f := range mod.Features {
 				e.processFeature(a, nil, f, mod.CurrentLevel())
 			}
-			return false
-		}, true, true, a.Modifiers...)
-		return false
-	}, true, false, e.Traits...)
-	Traverse(func(s *Skill) bool {
+		}
+	}
+	for s := range TraverseSeq(false, true, e.Skills...) {
 		for _, f := range s.Features {
 			e.processFeature(s, nil, f, s.LevelData.Level)
 		}
-		return false
-	}, false, true, e.Skills...)
-	Traverse(func(eqp *Equipment) bool {
+	}
+	for eqp := range TraverseSeq(false, false, e.CarriedEquipment...) {
 		if !eqp.Equipped || eqp.Quantity <= 0 {
-			return false
+			continue
 		}
 		for _, f := range eqp.Features {
 			e.processFeature(eqp, nil, f, eqp.Level.Max(0))
 		}
-		Traverse(func(mod *EquipmentModifier) bool {
+		for mod := range TraverseSeq(true, true, eqp.Modifiers...) {
 			for _, f := range mod.Features {
 				e.processFeature(eqp, mod, f, eqp.Level.Max(0))
 			}
-			return false
-		}, true, true, eqp.Modifiers...)
-		return false
-	}, false, false, e.CarriedEquipment...)
+		}
+	}
 	e.LiftingStrengthBonus = e.AttributeBonusFor(StrengthID, stlimit.LiftingOnly, nil).Floor()
 	e.StrikingStrengthBonus = e.AttributeBonusFor(StrengthID, stlimit.StrikingOnly, nil).Floor()
 	e.ThrowingStrengthBonus = e.AttributeBonusFor(StrengthID, stlimit.ThrowingOnly, nil).Floor()
@@ -415,9 +453,10 @@ func (e *Entity) processFeature(owner, subOwner fmt.Stringer, f Feature, levels
 	}
 	switch actual := f.(type) {
 	case *AttributeBonus:
-		e.features.attributeBonuses = append(e.features.attributeBonuses, actual)
+		key := attributeBonusKey{attribute: actual.Attribute, limitation: actual.ActualLimitation()}
+		e.features.attributeBonuses[key] = append(e.features.attributeBonuses[key], actual)
 	case *CostReduction:
-		e.features.costReductions = append(e.features.costReductions, actual)
+		e.features.costReductions[actual.Attribute] = append(e.features.costReductions[actual.Attribute], actual)
 	case *DRBonus:
 		if len(actual.Locations) == 0 { // "this armor"
 			if eqp, ok := owner.(*Equipment); ok {
@@ -469,15 +508,36 @@ func (e *Entity) processFeature(owner, subOwner fmt.Stringer, f Feature, levels
 			e.features.drBonuses = append(e.features.drBonuses, actual)
 		}
 	case *SkillBonus:
-		e.features.skillBonuses = append(e.features.skillBonuses, actual)
+		e.features.addSkillBonus(actual)
 	case *SkillPointBonus:
-		e.features.skillPointBonuses = append(e.features.skillPointBonuses, actual)
+		e.features.skillPointBonuses.add(actual, actual.Owner(), true, bonusCriteria{
+			name:           actual.NameCriteria,
+			specialization: actual.SpecializationCriteria,
+			tags:           actual.TagsCriteria,
+		})
 	case *SpellBonus:
-		e.features.spellBonuses = append(e.features.spellBonuses, actual)
+		e.features.addSpellBonus(actual)
 	case *SpellPointBonus:
-		e.features.spellPointBonuses = append(e.features.spellPointBonuses, actual)
+		e.features.spellPointBonuses.add(actual, actual.Owner(), actual.SpellMatchType == spellmatch.Name,
+			bonusCriteria{
+				name: actual.NameCriteria,
+				tags: actual.TagsCriteria,
+			})
 	case *WeaponBonus:
-		e.features.weaponBonuses = append(e.features.weaponBonuses, actual)
+		crit := bonusCriteria{
+			name:           actual.NameCriteria,
+			specialization: actual.SpecializationCriteria,
+			usage:          actual.UsageCriteria,
+			tags:           actual.TagsCriteria,
+		}
+		switch actual.SelectionType {
+		case wsel.WithRequiredSkill:
+			e.features.weaponBonuses.add(actual, actual.Owner(), true, crit)
+		case wsel.WithName:
+			e.features.namedWeaponBonuses.add(actual, actual.Owner(), true, crit)
+		default:
+			// Only applies to the owning weapon, so not collected here
+		}
 	case *ConditionalModifierBonus, *ContainedWeightReduction, *ReactionBonus:
 		// Not collected at this stage
 	default:
@@ -485,10 +545,35 @@ func (e *Entity) processFeature(owner, subOwner fmt.Stringer, f Feature, levels
 	}
 }
 
+func (f *features) addSkillBonus(bonus *SkillBonus) {
+	crit := bonusCriteria{
+		name:           bonus.NameCriteria,
+		specialization: bonus.SpecializationCriteria,
+		tags:           bonus.TagsCriteria,
+	}
+	switch bonus.SelectionType {
+	case skillsel.Name:
+		f.skillBonuses.add(bonus, bonus.Owner(), true, crit)
+	case skillsel.WeaponsWithName:
+		f.weaponSkillBonuses.add(bonus, bonus.Owner(), true, crit)
+	default:
+		// Only applies to the owning weapon, so not collected here
+	}
+}
+
+func (f *features) addSpellBonus(bonus *SpellBonus) {
+	f.spellBonuses.add(bonus, bonus.Owner(), bonus.SpellMatchType == spellmatch.Name, bonusCriteria{
+		name: bonus.NameCriteria,
+		tags: bonus.TagsCriteria,
+	})
+}
+
 func (e *Entity) processPrereqs() {
+	e.prereqIndex = newPrereqIndex(e)
+	defer func() { e.prereqIndex = nil }()
 	const prefix = "\n- "
 	notMetPrefix := i18n.Text("Prerequisites have not been met:")
-	Traverse(func(a *Trait) bool {
+	for a := range TraverseSeq(true, false, e.Traits...) {
 		a.UnsatisfiedReason = ""
 		if a.Prereq != nil {
 			var tooltip xbytes.InsertBuffer
@@ -497,9 +582,8 @@ func (e *Entity) processPrereqs() {
 				a.UnsatisfiedReason = notMetPrefix + tooltip.String()
 			}
 		}
-		return false
-	}, true, false, e.Traits...)
-	Traverse(func(s *Skill) bool {
+	}
+	for s := range TraverseSeq(false, false, e.Skills...) {
 		s.UnsatisfiedReason = ""
 		if !s.Container() {
 			var tooltip xbytes.InsertBuffer
@@ -518,7 +602,7 @@ func (e *Entity) processPrereqs() {
 						penalty.Amount = -fxp.Five
 					}
 					penalty.SetOwner(s)
-					e.features.skillBonuses = append(e.features.skillBonuses, penalty)
+					e.features.addSkillBonus(penalty)
 				}
 			}
 			if satisfied && s.IsTechnique() {
@@ -528,9 +612,8 @@ func (e *Entity) processPrereqs() {
 				s.UnsatisfiedReason = notMetPrefix + tooltip.String()
 			}
 		}
-		return false
-	}, false, false, e.Skills...)
-	Traverse(func(s *Spell) bool {
+	}
+	for s := range TraverseSeq(false, false, e.Spells...) {
 		s.UnsatisfiedReason = ""
 		if !s.Container() {
 			var tooltip xbytes.InsertBuffer
@@ -547,7 +630,7 @@ func (e *Entity) processPrereqs() {
 						penalty.Amount = -fxp.Five
 					}
 					penalty.SetOwner(s)
-					e.features.spellBonuses = append(e.features.spellBonuses, penalty)
+					e.features.addSpellBonus(penalty)
 				}
 			}
 			if satisfied && s.IsRitualMagic() {
@@ -557,44 +640,40 @@ func (e *Entity) processPrereqs() {
 				s.UnsatisfiedReason = notMetPrefix + tooltip.String()
 			}
 		}
-		return false
-	}, false, false, e.Spells...)
-	equipmentFunc := func(eqp *Equipment) bool {
-		eqp.UnsatisfiedReason = ""
-		if eqp.Prereq != nil {
-			var tooltip xbytes.InsertBuffer
-			var eqpPenalty bool
-			if !eqp.Prereq.Satisfied(e, eqp, &tooltip, prefix, &eqpPenalty) {
-				eqp.UnsatisfiedReason = notMetPrefix + tooltip.String()
+	}
+	for _, list := range [][]*Equipment{e.CarriedEquipment, e.OtherEquipment} {
+		for eqp := range TraverseSeq(false, false, list...) {
+			eqp.UnsatisfiedReason = ""
+			if eqp.Prereq != nil {
+				var tooltip xbytes.InsertBuffer
+				var eqpPenalty bool
+				if !eqp.Prereq.Satisfied(e, eqp, &tooltip, prefix, &eqpPenalty) {
+					eqp.UnsatisfiedReason = notMetPrefix + tooltip.String()
+				}
 			}
 		}
-		return false
 	}
-	Traverse(equipmentFunc, false, false, e.CarriedEquipment...)
-	Traverse(equipmentFunc, false, false, e.OtherEquipment...)
 }
 
 // UpdateSkills updates the levels of all skills.
 func (e *Entity) UpdateSkills() bool {
 	changed := false
-	Traverse(func(s *Skill) bool {
+	for s := range TraverseSeq(false, true, e.Skills...) {
 		if s.UpdateLevel() {
 			changed = true
 		}
-		return false
-	}, false, true, e.Skills...)
+	}
 	return changed
 }
 
 // UpdateSpells updates the levels of all spells.
 func (e *Entity) UpdateSpells() bool {
 	changed := false
-	Traverse(func(s *Spell) bool {
+	for s := range TraverseSeq(false, true, e.Spells...) {
 		if s.UpdateLevel() {
 			changed = true
 		}
-		return false
-	}, false, true, e.Spells...)
+	}
 	return changed
 }
 
@@ -619,14 +698,12 @@ func (e *Entity) PointsBreakdown() *PointsBreakdown {
 	for _, one := range e.Traits {
 		calculateSingleTraitPoints(one, &pb)
 	}
-	Traverse(func(s *Skill) bool {
+	for s := range TraverseSeq(false, true, e.Skills...) {
 		pb.Skills += s.Points
-		return false
-	}, false, true, e.Skills...)
-	Traverse(func(s *Spell) bool {
+	}
+	for s := range TraverseSeq(false, true, e.Spells...) {
 		pb.Spells += s.Points
-		return false
-	}, false, true, e.Spells...)
+	}
 	return &pb
 }
 
@@ -782,11 +859,9 @@ func (e *Entity) SwingFor(st int) *dice.Dice {
 // AttributeBonusFor returns the bonus for the given attribute.
 func (e *Entity) AttributeBonusFor(attributeID string, limitation stlimit.Option, tooltip *xbytes.InsertBuffer) fxp.Int {
 	var total fxp.Int
-	for _, one := range e.features.attributeBonuses {
-		if one.ActualLimitation() == limitation && one.Attribute == attributeID {
-			total += one.AdjustedAmount()
-			one.AddToTooltip(tooltip)
-		}
+	for _, one := range e.features.attributeBonuses[attributeBonusKey{attribute: attributeID, limitation: limitation}] {
+		total += one.AdjustedAmount()
+		one.AddToTooltip(tooltip)
 	}
 	return total
 }
@@ -794,10 +869,8 @@ func (e *Entity) AttributeBonusFor(attributeID string, limitation stlimit.Option
 // CostReductionFor returns the total cost reduction for the given ID.
 func (e *Entity) CostReductionFor(attributeID string) fxp.Int {
 	var total fxp.Int
-	for _, one := range e.features.costReductions {
-		if one.Attribute == attributeID {
-			total += one.Percentage
-		}
+	for _, one := range e.features.costReductions[attributeID] {
+		total += one.Percentage
 	}
 	if total > fxp.Eighty {
 		total = fxp.Eighty
@@ -833,72 +906,62 @@ func (e *Entity) AddDRBonusesFor(locationID string, tooltip *xbytes.InsertBuffer
 // SkillBonusFor returns the total bonus for the matching skill bonuses.
 func (e *Entity) SkillBonusFor(name, specialization string, tags []string, tooltip *xbytes.InsertBuffer) fxp.Int {
 	var total fxp.Int
-	for _, bonus := range e.features.skillBonuses {
-		if bonus.SelectionType == skillsel.Name {
-			var replacements map[string]string
-			if na, ok := bonus.Owner().(nameable.Accesser); ok {
-				replacements = na.NameableReplacements()
-			}
-			if bonus.NameCriteria.Matches(replacements, name) &&
-				bonus.SpecializationCriteria.Matches(replacements, specialization) &&
-				bonus.TagsCriteria.MatchesList(replacements, tags...) {
-				total += bonus.AdjustedAmount()
-				bonus.AddToTooltip(tooltip)
-			}
-		}
-	}
+	e.eachSkillBonusFor(name, specialization, tags, func(bonus *SkillBonus) {
+		total += bonus.AdjustedAmount()
+		bonus.AddToTooltip(tooltip)
+	})
 	return total
 }
 
+func (e *Entity) eachSkillBonusFor(name, specialization string, tags []string, f func(bonus *SkillBonus)) {
+	e.features.skillBonuses.candidates(name, func(entry *indexedBonus[*SkillBonus]) {
+		if entry.name.Matches(name) && entry.specialization.Matches(specialization) && entry.tags.MatchesList(tags...) {
+			f(entry.bonus)
+		}
+	})
+}
+
 // SkillPointBonusFor returns the total point bonus for the matching skill point bonuses.
 func (e *Entity) SkillPointBonusFor(name, specialization string, tags []string, tooltip *xbytes.InsertBuffer) fxp.Int {
 	var total fxp.Int
-	for _, bonus := range e.features.skillPointBonuses {
-		var replacements map[string]string
-		if na, ok := bonus.Owner().(nameable.Accesser); ok {
-			replacements = na.NameableReplacements()
+	e.features.skillPointBonuses.candidates(name, func(entry *indexedBonus[*SkillPointBonus]) {
+		if entry.name.Matches(name) && entry.specialization.Matches(specialization) && entry.tags.MatchesList(tags...) {
+			total += entry.bonus.AdjustedAmount()
+			entry.bonus.AddToTooltip(tooltip)
 		}
-		if bonus.NameCriteria.Matches(replacements, name) &&
-			bonus.SpecializationCriteria.Matches(replacements, specialization) &&
-			bonus.TagsCriteria.MatchesList(replacements, tags...) {
-			total += bonus.AdjustedAmount()
-			bonus.AddToTooltip(tooltip)
-		}
-	}
+	})
 	return total
 }
 
 // SpellBonusFor returns the total bonus for the matching spell bonuses.
 func (e *Entity) SpellBonusFor(name, powerSource string, colleges, tags []string, tooltip *xbytes.InsertBuffer) fxp.Int {
 	var total fxp.Int
-	for _, bonus := range e.features.spellBonuses {
-		var replacements map[string]string
-		if na, ok := bonus.Owner().(nameable.Accesser); ok {
-			replacements = na.NameableReplacements()
-		}
-		if bonus.TagsCriteria.MatchesList(replacements, tags...) &&
-			bonus.MatchForType(replacements, name, powerSource, colleges) {
-			total += bonus.AdjustedAmount()
-			bonus.AddToTooltip(tooltip)
-		}
-	}
+	e.eachSpellBonusFor(name, powerSource, colleges, tags, func(bonus *SpellBonus) {
+		total += bonus.AdjustedAmount()
+		bonus.AddToTooltip(tooltip)
+	})
 	return total
 }
 
+func (e *Entity) eachSpellBonusFor(name, powerSource string, colleges, tags []string, f func(bonus *SpellBonus)) {
+	e.features.spellBonuses.candidates(name, func(entry *indexedBonus[*SpellBonus]) {
+		if entry.tags.MatchesList(tags...) &&
+			entry.bonus.SpellMatchType.MatchForCompiled(&entry.name, name, powerSource, colleges) {
+			f(entry.bonus)
+		}
+	})
+}
+
 // SpellPointBonusFor returns the total point bonus for the matching spell point bonuses.
 func (e *Entity) SpellPointBonusFor(name, powerSource string, colleges, tags []string, tooltip *xbytes.InsertBuffer) fxp.Int {
 	var total fxp.Int
-	for _, bonus := range e.features.spellPointBonuses {
-		var replacements map[string]string
-		if na, ok := bonus.Owner().(nameable.Accesser); ok {
-			replacements = na.NameableReplacements()
+	e.features.spellPointBonuses.candidates(name, func(entry *indexedBonus[*SpellPointBonus]) {
+		if entry.tags.MatchesList(tags...) &&
+			entry.bonus.SpellMatchType.MatchForCompiled(&entry.name, name, powerSource, colleges) {
+			total += entry.bonus.AdjustedAmount()
+			entry.bonus.AddToTooltip(tooltip)
 		}
-		if bonus.TagsCriteria.MatchesList(replacements, tags...) &&
-			bonus.MatchForType(replacements, name, powerSource, colleges) {
-			total += bonus.AdjustedAmount()
-			bonus.AddToTooltip(tooltip)
-		}
-	}
+	})
 	return total
 }
 
@@ -914,22 +977,16 @@ func (e *Entity) AddWeaponWithSkillBonusesFor(name, specialization, usage string
 			rsl = sk.LevelData.RelativeLevel
 		}
 	}
-	for _, bonus := range e.features.weaponBonuses {
-		if allowedFeatureTypes[bonus.Type] &&
-			bonus.SelectionType == wsel.WithRequiredSkill &&
-			bonus.RelativeLevelCriteria.Matches(rsl) {
-			var replacements map[string]string
-			if na, ok := bonus.Owner().(nameable.Accesser); ok {
-				replacements = na.NameableReplacements()
-			}
-			if bonus.NameCriteria.Matches(replacements, name) &&
-				bonus.SpecializationCriteria.Matches(replacements, specialization) &&
-				bonus.UsageCriteria.Matches(replacements, usage) &&
-				bonus.TagsCriteria.MatchesList(replacements, tags...) {
-				addWeaponBonusToMap(bonus, dieCount, tooltip, m)
-			}
+	e.features.weaponBonuses.candidates(name, func(entry *indexedBonus[*WeaponBonus]) {
+		if allowedFeatureTypes[entry.bonus.Type] &&
+			entry.bonus.RelativeLevelCriteria.Matches(rsl) &&
+			entry.name.Matches(name) &&
+			entry.specialization.Matches(specialization) &&
+			entry.usage.Matches(usage) &&
+			entry.tags.MatchesList(tags...) {
+			addWeaponBonusToMap(entry.bonus, dieCount, tooltip, m)
 		}
-	}
+	})
 	return m
 }
 
@@ -939,20 +996,14 @@ func (e *Entity) AddNamedWeaponBonusesFor(nameQualifier, usageQualifier string,
 	if m == nil {
 		m = make(map[*WeaponBonus]bool)
 	}
-	for _, bonus := range e.features.weaponBonuses {
-		if allowedFeatureTypes[bonus.Type] &&
-			bonus.SelectionType == wsel.WithName {
-			var replacements map[string]string
-			if na, ok := bonus.Owner().(nameable.Accesser); ok {
-				replacements = na.NameableReplacements()
-			}
-			if bonus.NameCriteria.Matches(replacements, nameQualifier) &&
-				bonus.SpecializationCriteria.Matches(replacements, usageQualifier) &&
-				bonus.TagsCriteria.MatchesList(replacements, tagsQualifier...) {
-				addWeaponBonusToMap(bonus, dieCount, tooltip, m)
-			}
+	e.features.namedWeaponBonuses.candidates(nameQualifier, func(entry *indexedBonus[*WeaponBonus]) {
+		if allowedFeatureTypes[entry.bonus.Type] &&
+			entry.name.Matches(nameQualifier) &&
+			entry.specialization.Matches(usageQualifier) &&
+			entry.tags.MatchesList(tagsQualifier...) {
+			addWeaponBonusToMap(entry.bonus, dieCount, tooltip, m)
 		}
-	}
+	})
 	return m
 }
 
@@ -970,20 +1021,12 @@ func addWeaponBonusToMap(bonus *WeaponBonus, dieCount int, tooltip *xbytes.Inser
 // NamedWeaponSkillBonusesFor returns the bonuses for matching weapons.
 func (e *Entity) NamedWeaponSkillBonusesFor(name, usage string, tags []string, tooltip *xbytes.InsertBuffer) []*SkillBonus {
 	var bonuses []*SkillBonus
-	for _, bonus := range e.features.skillBonuses {
-		if bonus.SelectionType == skillsel.WeaponsWithName {
-			var replacements map[string]string
-			if na, ok := bonus.Owner().(nameable.Accesser); ok {
-				replacements = na.NameableReplacements()
-			}
-			if bonus.NameCriteria.Matches(replacements, name) &&
-				bonus.SpecializationCriteria.Matches(replacements, usage) &&
-				bonus.TagsCriteria.MatchesList(replacements, tags...) {
-				bonuses = append(bonuses, bonus)
-				bonus.AddToTooltip(tooltip)
-			}
+	e.features.weaponSkillBonuses.candidates(name, func(entry *indexedBonus[*SkillBonus]) {
+		if entry.name.Matches(name) && entry.specialization.Matches(usage) && entry.tags.MatchesList(tags...) {
+			bonuses = append(bonuses, entry.bonus)
+			entry.bonus.AddToTooltip(tooltip)
 		}
-	}
+	})
 	return bonuses
 }
 
@@ -1022,10 +1065,13 @@ func (e *Entity) BestSkillNamed(name, specialization string, requirePoints bool,
 	return best
 }
 
-// SkillNamed returns a list of skills that match.
+// SkillNamed returns a list of skills that match. The returned slice must not be modified, as it may be shared.
 func (e *Entity) SkillNamed(name, specialization string, requirePoints bool, excludes map[string]bool) []*Skill {
+	if e.skillIndex != nil {
+		return e.skillIndex.lookup(name, specialization, requirePoints, excludes)
+	}
 	var list []*Skill
-	Traverse(func(sk *Skill) bool {
+	for sk := range TraverseSeq(false, true, e.Skills...) {
 		if !excludes[sk.String()] {
 			if !requirePoints || sk.IsTechnique() || sk.AdjustedPoints(nil) > 0 {
 				if strings.EqualFold(sk.NameWithReplacements(), name) {
@@ -1035,8 +1081,7 @@ func (e *Entity) SkillNamed(name, specialization string, requirePoints bool, exc
 				}
 			}
 		}
-		return false
-	}, false, true, e.Skills...)
+	}
 	return list
 }
 
@@ -1563,17 +1608,30 @@ func (e *Entity) SetNoteList(list []*Note) {
 	e.Notes = list
 }
 
-// Hash writes this object's contents into the hasher.
+// Hash writes this object's contents into the hasher. The modification date is excluded.
 func (e *Entity) Hash(h hash.Hash) {
-	var buffer bytes.Buffer
-	saved := e.ModifiedOn
-	e.ModifiedOn = jio.Time{}
-	defer func() { e.ModifiedOn = saved }()
-	if err := jio.Save(&buffer, e); err != nil {
-		errs.Log(err)
-		return
+	xhash.StringWithLen(h, string(e.ID))
+	xhash.Num64(h, e.TotalPoints)
+	hashContentsOf(h, e.PointsRecord)
+	e.Profile.hashContents(h)
+	if e.SheetSettings != nil {
+		e.SheetSettings.hashContents(h)
+	} else {
+		xhash.Num8(h, uint8(255))
 	}
-	_, _ = h.Write(buffer.Bytes())
+	if e.Attributes != nil {
+		e.Attributes.hashContents(h)
+	} else {
+		xhash.Num8(h, uint8(255))
+	}
+	hashContentsOf(h, e.Traits)
+	hashContentsOf(h, e.Skills)
+	hashContentsOf(h, e.Spells)
+	hashContentsOf(h, e.CarriedEquipment)
+	hashContentsOf(h, e.OtherEquipment)
+	hashContentsOf(h, e.Notes)
+	hashTime(h, e.CreatedOn)
+	hashThirdParty(h, e.ThirdParty)
 }
 
 // SetPointsRecord sets a new points record list, adjusting the total points.
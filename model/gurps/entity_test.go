@@ -10,6 +10,8 @@
 package gurps
 
 import (
+	"strconv"
+	"strings"
 	"testing"
 
 	"github.com/richardwilkes/gcs/v5/model/fxp"
@@ -56,3 +58,146 @@ func TestEntityAttributeBonus(t *testing.T) {
 	c.Equal(fxp.Ten, e.Attributes.Current("st"), "ST; leveled +1 bonus, with 3 levels, for throwing only")
 	c.Equal(fxp.Three, e.ThrowingStrengthBonus, "Throwing ST Bonus; leveled +1 bonus, with 3 levels, for throwing only")
 }
+
+func TestSkillIndexMatchesScan(t *testing.T) {
+	c := check.New(t)
+	e := newEntityWithSkills(20)
+	index := newRecalcGraph(e).index
+	for _, name := range []string{"Skill 7", "sKiLL 7", "Technique 3", "Skill 99"} {
+		for _, specialization := range []string{"", "Spec 7", "SPEC 7", "Spec 1"} {
+			for _, requirePoints := range []bool{false, true} {
+				for _, excludes := range []map[string]bool{nil, {"Skill 7 (Spec 7)": true}} {
+					e.skillIndex = nil
+					expected := e.SkillNamed(name, specialization, requirePoints, excludes)
+					e.skillIndex = index
+					c.Equal(expected, e.SkillNamed(name, specialization, requirePoints, excludes), name+"/"+specialization)
+				}
+			}
+		}
+	}
+	e.skillIndex = nil
+}
+
+func TestSkillIndexMatchesScanForNonASCIINames(t *testing.T) {
+	c := check.New(t)
+	e := newEntityWithSkills(3)
+	for _, name := range []string{"\u0130aido", "\u212Aendo", "\u03a3\u0391\u03a3"} {
+		sk := NewSkill(e, nil, false)
+		sk.Name = name
+		e.Skills = append(e.Skills, sk)
+	}
+	e.Recalculate()
+	index := newRecalcGraph(e).index
+	for _, name := range []string{"i\u0307aido", "\u0130AIDO", "kendo", "KENDO", "\u03c3\u03b1\u03c2", "Skill 1"} {
+		e.skillIndex = nil
+		expected := e.SkillNamed(name, "", false, nil)
+		e.skillIndex = index
+		c.Equal(expected, e.SkillNamed(name, "", false, nil), name)
+	}
+	e.skillIndex = nil
+}
+
+func TestSkillLevelMemoMatchesCalculation(t *testing.T) {
+	c := check.New(t)
+	e := newEntityWithSkills(20)
+	for s := range TraverseSeq(false, true, e.Skills...) {
+		s.Points = fxp.Four
+	}
+	e.Recalculate()
+	for s := range TraverseSeq(false, true, e.Skills...) {
+		expected := s.CalculateLevel(nil)
+		c.Equal(expected.Level, s.LevelData.Level, s.String())
+		c.Equal(expected.RelativeLevel, s.LevelData.RelativeLevel, s.String())
+	}
+}
+
+func TestEquipmentPenaltySettles(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	sk := NewSkill(e, nil, false)
+	sk.Name = "Fencing"
+	sk.Points = fxp.Four
+	eqp := NewEquippedEquipmentPrereq()
+	eqp.NameCriteria.Qualifier = "Sword"
+	sk.Prereq = NewPrereqList()
+	eqp.Parent = sk.Prereq
+	sk.Prereq.Prereqs = append(sk.Prereq.Prereqs, eqp)
+	e.Skills = append(e.Skills, sk)
+	e.Recalculate()
+	c.True(strings.Contains(sk.LevelData.Tooltip(), "Fencing"), "equipment penalty applied")
+	e.processFeatures()
+	e.processPrereqs()
+	e.DiscardCaches()
+	c.True(!sk.UpdateLevel(), "level unchanged by a second pass")
+}
+
+func BenchmarkRecalculateManySkills(b *testing.B) {
+	e := newEntityWithSkills(300)
+	for b.Loop() {
+		e.Recalculate()
+	}
+}
+
+func BenchmarkSkillNamed(b *testing.B) {
+	e := newEntityWithSkills(300)
+	index := newRecalcGraph(e).index
+	b.Run("scan", func(b *testing.B) {
+		e.skillIndex = nil
+		for b.Loop() {
+			e.SkillNamed("Skill 150", "Spec 0", true, nil)
+		}
+	})
+	b.Run("indexed", func(b *testing.B) {
+		e.skillIndex = index
+		for b.Loop() {
+			e.SkillNamed("Skill 150", "Spec 0", true, nil)
+		}
+		e.skillIndex = nil
+	})
+}
+
+// newEntityWithSkills creates an entity with 'count' skills, each with a technique based upon it. All skills other than
+// the first also default to the first.
+func newEntityWithSkills(count int) *Entity {
+	e := NewEntity()
+	for i := range count {
+		sk := NewSkill(e, nil, false)
+		sk.Name = "Skill " + strconv.Itoa(i)
+		sk.Specialization = "Spec " + strconv.Itoa(i%10)
+		if i != 0 {
+			sk.Defaults = []*SkillDefault{{DefaultType: SkillID, Name: "Skill 0", Modifier: -fxp.Two}}
+		}
+		tech := NewTechnique(e, nil, sk.Name)
+		tech.Name = "Technique " + strconv.Itoa(i)
+		e.Skills = append(e.Skills, sk, tech)
+	}
+	e.Recalculate()
+	return e
+}
+
+func TestEntityHash(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	trait := NewTrait(e, nil, false)
+	mod := NewTraitModifier(trait, nil, false)
+	trait.Modifiers = []*TraitModifier{mod}
+	e.Traits = []*Trait{trait}
+	sk := NewSkill(e, nil, false)
+	e.Skills = []*Skill{sk}
+	e.Recalculate()
+	hash := Hash64(e)
+	e.Recalculate()
+	c.Equal(hash, Hash64(e), "recalculation must not alter the hash")
+	for _, change := range []func(){
+		func() { e.Profile.PortraitData = []byte{1, 2, 3} },
+		func() { sk.Points += fxp.One },
+		func() { mod.Disabled = true },
+		func() { trait.ThirdParty = map[string]any{"key": []any{"value", 1.5}} },
+		func() { e.Attributes.Set[StrengthID].Adjustment += fxp.One },
+	} {
+		change()
+		next := Hash64(e)
+		c.True(next != hash, "hash must change when persisted data changes")
+		hash = next
+	}
+}
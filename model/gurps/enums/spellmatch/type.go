@@ -17,6 +17,12 @@ type Matcher interface {
 	MatchesList(map[string]string, ...string) bool
 }
 
+// CompiledMatcher defines the methods that a pre-compiled spell matcher must implement.
+type CompiledMatcher interface {
+	Matches(string) bool
+	MatchesList(...string) bool
+}
+
 // MatchForType applies the matcher and returns the result.
 func (enum Type) MatchForType(matcher Matcher, replacements map[string]string, name, powerSource string, colleges []string) bool {
 	switch enum {
@@ -33,3 +39,20 @@ func (enum Type) MatchForType(matcher Matcher, replacements map[string]string, n
 		return false
 	}
 }
+
+// MatchForCompiled applies the pre-compiled matcher and returns the result.
+func (enum Type) MatchForCompiled(matcher CompiledMatcher, name, powerSource string, colleges []string) bool {
+	switch enum {
+	case AllColleges:
+		return true
+	case CollegeName:
+		return matcher.MatchesList(colleges...)
+	case PowerSource:
+		return matcher.Matches(powerSource)
+	case Name:
+		return matcher.Matches(name)
+	default:
+		errs.Log(errs.New("unhandled spell match type"), "type", int(enum))
+		return false
+	}
+}
@@ -62,8 +62,13 @@ const (
 // Equipment holds a piece of equipment.
 type Equipment struct {
 	EquipmentData
-	owner             DataOwner
-	UnsatisfiedReason string
+	owner              DataOwner
+	UnsatisfiedReason  string
+	nameTemplate       nameable.Template
+	localNotesTemplate nameable.Template
+	baseValueTemplate  nameable.Template
+	baseWeightTemplate nameable.Template
+	rollup             equipmentRollup
 }
 
 // EquipmentData holds the Equipment data that is written to disk.
@@ -590,7 +595,7 @@ func (e *Equipment) RatedStrength() fxp.Int {
 
 // BaseValueWithReplacements returns the base value with any replacements applied.
 func (e *Equipment) BaseValueWithReplacements() string {
-	return nameable.Apply(e.BaseValue, e.Replacements)
+	return e.baseValueTemplate.Apply(e.BaseValue, e.Replacements)
 }
 
 // ResolvedBaseValue resolves the base value, running any embedded scripts to get the final result.
@@ -601,21 +606,21 @@ func (e *Equipment) ResolvedBaseValue() fxp.Int {
 
 // AdjustedValue returns the value after adjustments for any modifiers. Does not include the value of children.
 func (e *Equipment) AdjustedValue() fxp.Int {
-	return ValueAdjustedForModifiers(e, e.ResolvedBaseValue(), e.Modifiers)
+	cache := e.rollupCache()
+	if cache != nil && cache.valid&adjustedValueValid != 0 {
+		return cache.adjustedValue
+	}
+	value := ValueAdjustedForModifiers(e, e.ResolvedBaseValue(), e.Modifiers)
+	if cache != nil {
+		cache.adjustedValue = value
+		cache.valid |= adjustedValueValid
+	}
+	return value
 }
 
 // ExtendedValue returns the extended value.
 func (e *Equipment) ExtendedValue() fxp.Int {
-	if e.Quantity <= 0 {
-		return 0
-	}
-	value := e.AdjustedValue()
-	if e.Container() {
-		for _, one := range e.Children {
-			value += one.ExtendedValue()
-		}
-	}
-	return value.Mul(e.Quantity)
+	return e.ExtendedValueOfJustOne().Mul(e.Quantity)
 }
 
 // ExtendedValueOfJustOne returns the extended value of just one piece of this equipment, including the value of
@@ -624,18 +629,26 @@ func (e *Equipment) ExtendedValueOfJustOne() fxp.Int {
 	if e.Quantity <= 0 {
 		return 0
 	}
+	cache := e.rollupCache()
+	if cache != nil && cache.valid&extendedValueValid != 0 {
+		return cache.valueOfJustOne
+	}
 	value := e.AdjustedValue()
 	if e.Container() {
 		for _, one := range e.Children {
 			value += one.ExtendedValue()
 		}
 	}
+	if cache != nil {
+		cache.valueOfJustOne = value
+		cache.valid |= extendedValueValid
+	}
 	return value
 }
 
 // BaseWeightWithReplacements returns the base weight with any replacements applied.
 func (e *Equipment) BaseWeightWithReplacements() string {
-	return nameable.Apply(e.BaseWeight, e.Replacements)
+	return e.baseWeightTemplate.Apply(e.BaseWeight, e.Replacements)
 }
 
 // ResolvedBaseWeight resolves the base weight, running any embedded scripts to get the final result.
@@ -650,12 +663,39 @@ func (e *Equipment) AdjustedWeight(forSkills bool, defUnits fxp.WeightUnit) fxp.
 	if forSkills && e.WeightIgnoredForSkills && e.Equipped {
 		return 0
 	}
-	return WeightAdjustedForModifiers(e, e.ResolvedBaseWeight(), e.Modifiers, defUnits)
+	cache := e.rollupWeightCache(defUnits)
+	if cache != nil && cache.valid&adjustedWeightValid != 0 {
+		return cache.adjustedWeight
+	}
+	weight := WeightAdjustedForModifiers(e, e.ResolvedBaseWeight(), e.Modifiers, defUnits)
+	if cache != nil {
+		cache.adjustedWeight = weight
+		cache.valid |= adjustedWeightValid
+	}
+	return weight
 }
 
 // ExtendedWeight returns the extended weight.
 func (e *Equipment) ExtendedWeight(forSkills bool, defUnits fxp.WeightUnit) fxp.Weight {
-	return ExtendedWeightAdjustedForModifiers(e, defUnits, e.Quantity, e.ResolvedBaseWeight(), e.Modifiers, e.Features, e.Children, forSkills, e.WeightIgnoredForSkills && e.Equipped)
+	if e.Quantity <= 0 {
+		return 0
+	}
+	var which int
+	if forSkills {
+		which = 1
+	}
+	flag := extendedWeightValid << which
+	cache := e.rollupWeightCache(defUnits)
+	if cache != nil && cache.valid&flag != 0 {
+		return cache.extendedWeight[which]
+	}
+	weight := ExtendedWeightAdjustedForModifiers(e, defUnits, e.Quantity, e.ResolvedBaseWeight(), e.Modifiers,
+		e.Features, e.Children, forSkills, e.WeightIgnoredForSkills && e.Equipped)
+	if cache != nil {
+		cache.extendedWeight[which] = weight
+		cache.valid |= flag
+	}
+	return weight
 }
 
 // ExtendedWeightAdjustedForModifiers calculates the extended weight.
@@ -715,12 +755,12 @@ func (e *Equipment) NameableReplacements() map[string]string {
 
 // NameWithReplacements returns the name with any replacements applied.
 func (e *Equipment) NameWithReplacements() string {
-	return nameable.Apply(e.Name, e.Replacements)
+	return e.nameTemplate.Apply(e.Name, e.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
 func (e *Equipment) LocalNotesWithReplacements() string {
-	return nameable.Apply(e.LocalNotes, e.Replacements)
+	return e.localNotesTemplate.Apply(e.LocalNotes, e.Replacements)
 }
 
 // FillWithNameableKeys adds any nameable keys found to the provided map.
@@ -880,6 +920,24 @@ func (e *Equipment) Hash(h hash.Hash) {
 	e.hash(h)
 }
 
+func (e *Equipment) hashContents(h hash.Hash) {
+	e.SourcedID.hashID(h)
+	e.Hash(h)
+	hashWeaponExtras(h, e.Weapons)
+	xhash.StringWithLen(h, e.VTTNotes)
+	hashStringMap(h, e.Replacements)
+	hashContentsOf(h, e.Modifiers)
+	xhash.Num64(h, e.RatedST)
+	xhash.Num64(h, e.Quantity)
+	xhash.Num64(h, e.Level)
+	xhash.Num64(h, e.Uses)
+	xhash.Bool(h, e.Equipped)
+	if e.Container() {
+		hashContentsOf(h, e.Children)
+	}
+	hashThirdParty(h, e.ThirdParty)
+}
+
 func (e *EquipmentSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, e.Name)
 	xhash.StringWithLen(h, e.PageRef)
@@ -54,8 +54,10 @@ const (
 // EquipmentModifier holds a modifier to a piece of Equipment.
 type EquipmentModifier struct {
 	EquipmentModifierData
-	owner     DataOwner
-	equipment *Equipment
+	owner              DataOwner
+	equipment          *Equipment
+	nameTemplate       nameable.Template
+	localNotesTemplate nameable.Template
 }
 
 // EquipmentModifierData holds the EquipmentModifier data that is written to disk.
@@ -499,7 +501,7 @@ func (e *EquipmentModifier) NameWithReplacements() string {
 	if e.equipment == nil {
 		return e.Name
 	}
-	return nameable.Apply(e.Name, e.equipment.Replacements)
+	return e.nameTemplate.Apply(e.Name, e.equipment.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
@@ -507,7 +509,7 @@ func (e *EquipmentModifier) LocalNotesWithReplacements() string {
 	if e.equipment == nil {
 		return e.LocalNotes
 	}
-	return nameable.Apply(e.LocalNotes, e.equipment.Replacements)
+	return e.localNotesTemplate.Apply(e.LocalNotes, e.equipment.Replacements)
 }
 
 // FillWithNameableKeys adds any nameable keys found in this EquipmentModifier to the provided map.
@@ -736,6 +738,21 @@ func (e *EquipmentModifier) Hash(h hash.Hash) {
 	}
 }
 
+func (e *EquipmentModifier) hashContents(h hash.Hash) {
+	e.SourcedID.hashID(h)
+	e.Hash(h)
+	xhash.StringWithLen(h, e.VTTNotes)
+	hashStringMap(h, e.Replacements)
+	if e.Container() {
+		hashContentsOf(h, e.Children)
+	} else {
+		xhash.Bool(h, e.CostIsPerLevel)
+		xhash.Bool(h, e.WeightIsPerLevel)
+		xhash.Bool(h, e.Disabled)
+	}
+	hashThirdParty(h, e.ThirdParty)
+}
+
 func (e *EquipmentModifierSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, e.Name)
 	xhash.StringWithLen(h, e.PageRef)
@@ -0,0 +1,59 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import "github.com/richardwilkes/gcs/v5/model/fxp"
+
+const (
+	adjustedValueValid rollupFlags = 1 << iota
+	extendedValueValid
+	adjustedWeightValid
+	extendedWeightValid // Shifted left by one for the "for skills" variant
+	extendedWeightForSkillsValid
+)
+
+type rollupFlags uint8
+
+// equipmentRollup caches the value & weight calculations of a piece of equipment and its children. Since the base value
+// & weight may be scripted, and scripts can reference anything in the entity, the cached values are only valid for the
+// generation of the owning entity they were calculated in. Edits are followed by a recalculation, which starts a new
+// generation, so no other invalidation is needed.
+type equipmentRollup struct {
+	generation     uint64
+	units          fxp.WeightUnit
+	valid          rollupFlags
+	adjustedValue  fxp.Int
+	valueOfJustOne fxp.Int
+	adjustedWeight fxp.Weight
+	extendedWeight [2]fxp.Weight
+}
+
+// rollupCache returns the cache for this equipment, resetting it first if it is from a prior generation. Returns nil if
+// the equipment isn't owned by an entity, in which case nothing is cached.
+func (e *Equipment) rollupCache() *equipmentRollup {
+	entity := EntityFromNode(e)
+	if entity == nil || entity.cacheGeneration == 0 {
+		return nil
+	}
+	if e.rollup.generation != entity.cacheGeneration {
+		e.rollup = equipmentRollup{generation: entity.cacheGeneration}
+	}
+	return &e.rollup
+}
+
+// rollupWeightCache is the same as rollupCache, but also discards any weights calculated with different default units.
+func (e *Equipment) rollupWeightCache(defUnits fxp.WeightUnit) *equipmentRollup {
+	cache := e.rollupCache()
+	if cache != nil && cache.units != defUnits {
+		cache.units = defUnits
+		cache.valid &^= adjustedWeightValid | extendedWeightValid | extendedWeightForSkillsValid
+	}
+	return cache
+}
@@ -0,0 +1,42 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"testing"
+
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestEquipmentRollupGeneration(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	bag := NewEquipment(e, nil, true)
+	rock := NewEquipment(e, bag, false)
+	rock.BaseWeight = "2"
+	rock.BaseValue = "10"
+	bag.Children = []*Equipment{rock}
+	e.CarriedEquipment = []*Equipment{bag}
+	e.DiscardCaches()
+	c.Equal(fxp.Weight(fxp.FromInteger(2)), bag.ExtendedWeight(false, fxp.Pound))
+	c.Equal(fxp.FromInteger(10), bag.ExtendedValue())
+
+	// Changes aren't seen until a new generation is started.
+	rock.Quantity = fxp.FromInteger(3)
+	c.Equal(fxp.FromInteger(10), bag.ExtendedValue())
+	e.DiscardCaches()
+	c.Equal(fxp.Weight(fxp.FromInteger(6)), bag.ExtendedWeight(false, fxp.Pound))
+	c.Equal(fxp.FromInteger(30), bag.ExtendedValue())
+	rock.Quantity = fxp.One
+	e.Recalculate()
+	c.Equal(fxp.Weight(fxp.FromInteger(2)), e.WeightCarried(false))
+	c.Equal(fxp.FromInteger(10), bag.ExtendedValue())
+}
@@ -70,12 +70,16 @@ func (p *EquippedEquipmentPrereq) Satisfied(entity *Entity, exclude any, tooltip
 		replacements = na.NameableReplacements()
 	}
 	satisfied := false
-	Traverse(func(eqp *Equipment) bool {
+	nameMatcher := p.NameCriteria.Compile(replacements)
+	tagsMatcher := p.TagsCriteria.Compile(replacements)
+	for eqp := range entity.prereqEquipment(&nameMatcher) {
 		satisfied = exclude != eqp && eqp.Equipped && eqp.Quantity > 0 &&
-			p.NameCriteria.Matches(replacements, eqp.NameWithReplacements()) &&
-			p.TagsCriteria.MatchesList(replacements, eqp.Tags...)
-		return satisfied
-	}, false, false, entity.CarriedEquipment...)
+			nameMatcher.Matches(eqp.NameWithReplacements()) &&
+			tagsMatcher.MatchesList(eqp.Tags...)
+		if satisfied {
+			break
+		}
+	}
 	if !satisfied {
 		*hasEquipmentPenalty = true
 		if tooltip != nil {
@@ -13,6 +13,7 @@ import (
 	"bufio"
 	"cmp"
 	"encoding/base64"
+	"fmt"
 	htmltmpl "html/template"
 	"io"
 	"net/http"
@@ -25,6 +26,7 @@ import (
 	"github.com/richardwilkes/gcs/v5/model/fxp"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/encumbrance"
 	"github.com/richardwilkes/toolbox/v2/errs"
+	"github.com/richardwilkes/toolbox/v2/i18n"
 	"github.com/richardwilkes/toolbox/v2/tid"
 	"github.com/richardwilkes/toolbox/v2/xbytes"
 	"github.com/richardwilkes/toolbox/v2/xfilepath"
@@ -298,54 +300,117 @@ type exportedEntity struct {
 	Page                    exportedPage
 }
 
-// ExportSheets exports the files to a text representation.
-func ExportSheets(templatePath string, fileList []string) error {
-	for _, one := range fileList {
-		if FileInfoFor(one).IsExportable {
-			// Currently, only one file type supports exporting. Should this change, this will need to be adjusted to
-			// call the correct loader.
-			entity, err := NewEntityFromFile(os.DirFS(filepath.Dir(one)), filepath.Base(one))
-			if err != nil {
-				return err
-			}
-			if err = Export(entity, templatePath, xfilepath.TrimExtension(one)+filepath.Ext(templatePath)); err != nil {
-				return err
-			}
-		} else {
-			errs.Log(errs.New("not exportable, skipping"), "file", one)
-		}
-	}
-	return nil
+// ExportTemplate is an export template that has been loaded and parsed, ready to be used for any number of exports.
+// It is safe to use for more than one export at a time.
+type ExportTemplate struct {
+	exporter exporter
+	legacy   *legacyTemplate
+	ext      string
 }
 
-// Export an Entity to exportPath using the template found at templatePath.
-func Export(entity *Entity, templatePath, exportPath string) error {
+// NewExportTemplate loads and parses the export template found at templatePath.
+func NewExportTemplate(templatePath string) (*ExportTemplate, error) {
 	tmpl, err := os.ReadFile(templatePath)
 	if err != nil {
-		return errs.Wrap(err)
+		return nil, errs.Wrap(err)
 	}
 	var advance int
 	var line []byte
 	if advance, line, err = bufio.ScanLines(tmpl, true); err != nil {
-		return errs.Wrap(err)
+		return nil, errs.Wrap(err)
 	}
-	entity.Recalculate()
+	et := &ExportTemplate{ext: filepath.Ext(templatePath)}
 	switch string(line) {
 	case "GCS HTML Template v1":
-		var t *htmltmpl.Template
-		if t, err = htmltmpl.New("").Funcs(createTemplateFuncs()).Parse(string(tmpl[advance:])); err != nil {
-			return errs.Wrap(err)
+		if et.exporter, err = htmltmpl.New("").Funcs(createTemplateFuncs()).Parse(string(tmpl[advance:])); err != nil {
+			return nil, errs.Wrap(err)
 		}
-		return export(entity, t, exportPath)
 	case "GCS Text Template v1":
-		var t *texttmpl.Template
-		if t, err = texttmpl.New("").Funcs(createTemplateFuncs()).Parse(string(tmpl[advance:])); err != nil {
-			return errs.Wrap(err)
+		if et.exporter, err = texttmpl.New("").Funcs(createTemplateFuncs()).Parse(string(tmpl[advance:])); err != nil {
+			return nil, errs.Wrap(err)
 		}
-		return export(entity, t, exportPath)
 	default: // Legacy text export
-		return legacyTextExport(entity, tmpl, exportPath)
+		et.legacy = compileLegacyTemplate(tmpl)
+	}
+	return et, nil
+}
+
+// Ext returns the file extension of the template, which is also used for the files it exports.
+func (et *ExportTemplate) Ext() string {
+	return et.ext
+}
+
+// Export an Entity to exportPath.
+func (et *ExportTemplate) Export(entity *Entity, exportPath string) error {
+	entity.Recalculate()
+	if et.exporter != nil {
+		return export(entity, et.exporter, exportPath)
+	}
+	return legacyTextExport(entity, et.legacy, exportPath)
+}
+
+// ExportSheets exports the files to a text representation, with up to 'jobs' files being exported at once. A value of
+// 0 or less for 'jobs' means one per CPU. The template is only loaded once for all of the files. Each export is written
+// next to the file it came from, unless outputDir is not empty, in which case they are all written there instead.
+func ExportSheets(templatePath string, fileList []string, outputDir string, jobs int) error {
+	et, err := NewExportTemplate(templatePath)
+	if err != nil {
+		return err
+	}
+	if outputDir != "" {
+		if err = os.MkdirAll(outputDir, 0o750); err != nil {
+			return errs.Wrap(err)
+		}
+	}
+	if fileList, err = xfilepath.UniquePaths(fileList...); err != nil {
+		return err
+	}
+	// Exports from files with the same name in different directories would collide when written to a single output
+	// directory, so only the first of them is exported. Files that can't be exported don't claim an export path.
+	exportPaths := make([]string, len(fileList))
+	indexes := make(map[string]int, len(fileList))
+	claimed := make(map[string]int, len(fileList))
+	for i, one := range fileList {
+		indexes[one] = i
+		if !FileInfoFor(one).IsExportable {
+			continue
+		}
+		exportPath := xfilepath.TrimExtension(one) + et.ext
+		if outputDir != "" {
+			exportPath = filepath.Join(outputDir, filepath.Base(exportPath))
+		}
+		if _, exists := claimed[exportPath]; !exists {
+			claimed[exportPath] = i
+		}
+		exportPaths[i] = exportPath
+	}
+	return processBatch(os.Stdout, jobs, fileList, func(one string) error {
+		i := indexes[one]
+		exportPath := exportPaths[i]
+		if exportPath == "" {
+			errs.Log(errs.New("not exportable, skipping"), "file", one)
+			return nil
+		}
+		if other := claimed[exportPath]; other != i {
+			return errs.New(fmt.Sprintf(i18n.Text("export would overwrite the one from %s"), fileList[other]))
+		}
+		// Currently, only one file type supports exporting. Should this change, this will need to be adjusted to call
+		// the correct loader.
+		entity, loadErr := NewEntityFromFile(os.DirFS(filepath.Dir(one)), filepath.Base(one))
+		if loadErr != nil {
+			return loadErr
+		}
+		return et.Export(entity, exportPath)
+	})
+}
+
+// Export an Entity to exportPath using the template found at templatePath.
+func Export(entity *Entity, templatePath, exportPath string) error {
+	et, err := NewExportTemplate(templatePath)
+	if err != nil {
+		return err
 	}
+	return et.Export(entity, exportPath)
 }
 
 func createTemplateFuncs() texttmpl.FuncMap {
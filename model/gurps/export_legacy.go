@@ -11,7 +11,6 @@ package gurps
 
 import (
 	"bufio"
-	"bytes"
 	"encoding/base64"
 	"fmt"
 	"net/http"
@@ -21,6 +20,7 @@ import (
 	"slices"
 	"strconv"
 	"strings"
+	"sync"
 
 	"github.com/richardwilkes/gcs/v5/model/colors"
 	"github.com/richardwilkes/gcs/v5/model/fxp"
@@ -48,25 +48,27 @@ const (
 	fpAttrID                    = "fp"
 )
 
+// legacyWriterPool holds the buffered writers used for legacy text exports, so that exporting many sheets doesn't need
+// a fresh buffer for each one.
+var legacyWriterPool = sync.Pool{New: func() any { return bufio.NewWriterSize(nil, legacyWriterSize) }}
+
+const legacyWriterSize = 64 * 1024
+
 type legacyExporter struct {
-	entity             *Entity
-	points             *PointsBreakdown
-	template           []byte
-	pos                int
-	exportPath         string
-	onlyTags           map[string]bool
-	excludedTags       map[string]bool
-	out                *bufio.Writer
-	encodeText         bool
-	enhancedKeyParsing bool
+	entity       *Entity
+	points       *PointsBreakdown
+	exportPath   string
+	onlyTags     map[string]bool
+	excludedTags map[string]bool
+	out          *bufio.Writer
+	encodeText   bool
 }
 
 // legacyTextExport performs the text template export function that matches the old Java code base.
-func legacyTextExport(entity *Entity, tmpl []byte, exportPath string) (err error) {
+func legacyTextExport(entity *Entity, tmpl *legacyTemplate, exportPath string) (err error) {
 	ex := &legacyExporter{
 		entity:       entity,
 		points:       entity.PointsBreakdown(),
-		template:     tmpl,
 		exportPath:   exportPath,
 		onlyTags:     make(map[string]bool),
 		excludedTags: make(map[string]bool),
@@ -76,60 +78,41 @@ func legacyTextExport(entity *Entity, tmpl []byte, exportPath string) (err error
 	if out, err = os.Create(exportPath); err != nil {
 		return errs.Wrap(err)
 	}
-	ex.out = bufio.NewWriter(out)
+	var ok bool
+	if ex.out, ok = legacyWriterPool.Get().(*bufio.Writer); !ok {
+		ex.out = bufio.NewWriterSize(nil, legacyWriterSize)
+	}
+	ex.out.Reset(out)
 	defer func() { //nolint:gosec // Yes, this is safe
 		if flushErr := ex.out.Flush(); flushErr != nil && err == nil {
 			err = errs.Wrap(flushErr)
 		}
+		ex.out.Reset(nil)
+		legacyWriterPool.Put(ex.out)
 		if closeErr := out.Close(); closeErr != nil && err == nil {
 			err = errs.Wrap(closeErr)
 		}
 	}()
-	lookForKeyMarker := true
-	var keyBuffer bytes.Buffer
-	for ex.pos < len(ex.template) {
-		ch := ex.template[ex.pos]
-		ex.pos++
-		switch {
-		case lookForKeyMarker:
-			var next byte
-			if ex.pos < len(ex.template) {
-				next = ex.template[ex.pos]
-			}
-			if ch == '@' && (next < '0' || next > '9') {
-				lookForKeyMarker = false
-			} else {
-				ex.out.WriteByte(ch)
-			}
-		case ch == '_' || (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z'):
-			keyBuffer.WriteByte(ch)
-		default:
-			if !ex.enhancedKeyParsing || ch != '@' {
-				ex.pos--
-			}
-			if err = ex.emitKey(keyBuffer.String()); err != nil {
+	for i := range tmpl.ops {
+		if op := &tmpl.ops[i]; op.isKey {
+			if err = ex.emitKey(op); err != nil {
 				return err
 			}
-			keyBuffer.Reset()
-			lookForKeyMarker = true
-		}
-	}
-	if keyBuffer.Len() != 0 {
-		if err = ex.emitKey(keyBuffer.String()); err != nil {
-			return err
+		} else {
+			ex.out.WriteString(op.text)
 		}
 	}
 	return nil
 }
 
-func (ex *legacyExporter) emitKey(key string) error {
-	switch key {
+func (ex *legacyExporter) emitKey(op *legacyOp) error {
+	switch key := op.key; key {
 	case "GRID_TEMPLATE":
 		ex.out.WriteString(ex.entity.SheetSettings.BlockLayout.HTMLGridTemplate())
 	case "ENCODING_OFF":
 		ex.encodeText = false
 	case "ENHANCED_KEY_PARSING":
-		ex.enhancedKeyParsing = true
+		// Only affects how the template is parsed, which has already been done
 	case "PORTRAIT":
 		if ex.entity.Profile.CanExportPortrait() {
 			if ext := ex.entity.Profile.PortraitExtension(); ext != "" {
@@ -351,47 +334,47 @@ func (ex *legacyExporter) emitKey(key string) error {
 	case "ENCUMBRANCE_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(encumbrance.Levels)))
 	case "ENCUMBRANCE_LOOP_START":
-		ex.processEncumbranceLoop(ex.extractUpToMarker("ENCUMBRANCE_LOOP_END"))
+		ex.processEncumbranceLoop(op.body)
 	case "HIT_LOCATION_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(ex.entity.SheetSettings.BodyType.Locations)))
 	case "HIT_LOCATION_LOOP_START":
-		ex.processHitLocationLoop(ex.extractUpToMarker("HIT_LOCATION_LOOP_END"))
+		ex.processHitLocationLoop(op.body)
 	case "ADVANTAGES_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeByTraitTags)
 	case "ADVANTAGES_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("ADVANTAGES_LOOP_END"), ex.includeByTraitTags)
+		ex.processTraitLoop(op.body, ex.includeByTraitTags)
 	case "ADVANTAGES_ALL_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeAdvantagesAndPerks)
 	case "ADVANTAGES_ALL_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("ADVANTAGES_ALL_LOOP_END"), ex.includeAdvantagesAndPerks)
+		ex.processTraitLoop(op.body, ex.includeAdvantagesAndPerks)
 	case "ADVANTAGES_ONLY_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeAdvantages)
 	case "ADVANTAGES_ONLY_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("ADVANTAGES_ONLY_LOOP_END"), ex.includeAdvantages)
+		ex.processTraitLoop(op.body, ex.includeAdvantages)
 	case "DISADVANTAGES_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeDisadvantages)
 	case "DISADVANTAGES_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("DISADVANTAGES_LOOP_END"), ex.includeDisadvantages)
+		ex.processTraitLoop(op.body, ex.includeDisadvantages)
 	case "DISADVANTAGES_ALL_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeDisadvantagesAndQuirks)
 	case "DISADVANTAGES_ALL_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("DISADVANTAGES_ALL_LOOP_END"), ex.includeDisadvantagesAndQuirks)
+		ex.processTraitLoop(op.body, ex.includeDisadvantagesAndQuirks)
 	case "QUIRKS_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeQuirks)
 	case "QUIRKS_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("QUIRKS_LOOP_END"), ex.includeQuirks)
+		ex.processTraitLoop(op.body, ex.includeQuirks)
 	case "PERKS_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includePerks)
 	case "PERKS_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("PERKS_LOOP_END"), ex.includePerks)
+		ex.processTraitLoop(op.body, ex.includePerks)
 	case "LANGUAGES_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeLanguages)
 	case "LANGUAGES_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("LANGUAGES_LOOP_END"), ex.includeLanguages)
+		ex.processTraitLoop(op.body, ex.includeLanguages)
 	case "CULTURAL_FAMILIARITIES_LOOP_COUNT":
 		ex.writeTraitLoopCount(ex.includeCulturalFamiliarities)
 	case "CULTURAL_FAMILIARITIES_LOOP_START":
-		ex.processTraitLoop(ex.extractUpToMarker("CULTURAL_FAMILIARITIES_LOOP_END"), ex.includeCulturalFamiliarities)
+		ex.processTraitLoop(op.body, ex.includeCulturalFamiliarities)
 	case "SKILLS_LOOP_COUNT":
 		count := 0
 		Traverse(func(_ *Skill) bool {
@@ -400,7 +383,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}, false, true, ex.entity.Skills...)
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "SKILLS_LOOP_START":
-		ex.processSkillsLoop(ex.extractUpToMarker("SKILLS_LOOP_END"))
+		ex.processSkillsLoop(op.body)
 	case "SPELLS_LOOP_COUNT":
 		count := 0
 		Traverse(func(_ *Spell) bool {
@@ -409,19 +392,19 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}, false, false, ex.entity.Spells...)
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "SPELLS_LOOP_START":
-		ex.processSpellsLoop(ex.extractUpToMarker("SPELLS_LOOP_END"))
+		ex.processSpellsLoop(op.body)
 	case "MELEE_LOOP_COUNT", "HIERARCHICAL_MELEE_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(ex.entity.EquippedWeapons(true, true))))
 	case "MELEE_LOOP_START":
-		ex.processMeleeLoop(ex.extractUpToMarker("MELEE_LOOP_END"))
+		ex.processMeleeLoop(op.body)
 	case "HIERARCHICAL_MELEE_LOOP_START":
-		ex.processHierarchicalMeleeLoop(ex.extractUpToMarker("HIERARCHICAL_MELEE_LOOP_END"))
+		ex.processHierarchicalMeleeLoop(op.body)
 	case "RANGED_LOOP_COUNT", "HIERARCHICAL_RANGED_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(ex.entity.EquippedWeapons(false, true))))
 	case "RANGED_LOOP_START":
-		ex.processRangedLoop(ex.extractUpToMarker("RANGED_LOOP_END"))
+		ex.processRangedLoop(op.body)
 	case "HIERARCHICAL_RANGED_LOOP_START":
-		ex.processHierarchicalRangedLoop(ex.extractUpToMarker("HIERARCHICAL_RANGED_LOOP_END"))
+		ex.processHierarchicalRangedLoop(op.body)
 	case "EQUIPMENT_LOOP_COUNT":
 		count := 0
 		Traverse(func(eqp *Equipment) bool {
@@ -432,7 +415,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}, false, false, ex.entity.CarriedEquipment...)
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "EQUIPMENT_LOOP_START":
-		ex.processEquipmentLoop(ex.extractUpToMarker("EQUIPMENT_LOOP_END"), true)
+		ex.processEquipmentLoop(op.body, true)
 	case "OTHER_EQUIPMENT_LOOP_COUNT":
 		count := 0
 		Traverse(func(eqp *Equipment) bool {
@@ -443,7 +426,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}, false, false, ex.entity.OtherEquipment...)
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "OTHER_EQUIPMENT_LOOP_START":
-		ex.processEquipmentLoop(ex.extractUpToMarker("EQUIPMENT_LOOP_END"), false)
+		ex.processEquipmentLoop(op.body, false)
 	case "NOTES_LOOP_COUNT":
 		count := 0
 		Traverse(func(_ *Note) bool {
@@ -452,15 +435,15 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}, false, false, ex.entity.Notes...)
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "NOTES_LOOP_START":
-		ex.processNotesLoop(ex.extractUpToMarker("NOTES_LOOP_END"))
+		ex.processNotesLoop(op.body)
 	case "REACTION_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(ex.entity.Reactions())))
 	case "REACTION_LOOP_START":
-		ex.processConditionalModifiersLoop(ex.entity.Reactions(), ex.extractUpToMarker("REACTION_LOOP_END"))
+		ex.processConditionalModifiersLoop(ex.entity.Reactions(), op.body)
 	case "CONDITIONAL_MODIFIERS_LOOP_COUNT":
 		ex.writeEncodedText(strconv.Itoa(len(ex.entity.ConditionalModifiers())))
 	case "CONDITIONAL_MODIFIERS_LOOP_START":
-		ex.processConditionalModifiersLoop(ex.entity.ConditionalModifiers(), ex.extractUpToMarker("CONDITIONAL_MODIFIERS_LOOP_END"))
+		ex.processConditionalModifiersLoop(ex.entity.ConditionalModifiers(), op.body)
 	case "PRIMARY_ATTRIBUTE_LOOP_COUNT":
 		count := 0
 		for _, def := range ex.entity.SheetSettings.Attributes.List(true) {
@@ -472,7 +455,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "PRIMARY_ATTRIBUTE_LOOP_START":
-		ex.processAttributesLoop(ex.extractUpToMarker("PRIMARY_ATTRIBUTE_LOOP_END"), true)
+		ex.processAttributesLoop(op.body, true)
 	case "SECONDARY_ATTRIBUTE_LOOP_COUNT":
 		count := 0
 		for _, def := range ex.entity.SheetSettings.Attributes.List(true) {
@@ -484,7 +467,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "SECONDARY_ATTRIBUTE_LOOP_START":
-		ex.processAttributesLoop(ex.extractUpToMarker("SECONDARY_ATTRIBUTE_LOOP_END"), false)
+		ex.processAttributesLoop(op.body, false)
 	case "POINT_POOL_LOOP_COUNT":
 		count := 0
 		for _, def := range ex.entity.SheetSettings.Attributes.List(true) {
@@ -496,7 +479,7 @@ func (ex *legacyExporter) emitKey(key string) error {
 		}
 		ex.writeEncodedText(strconv.Itoa(count))
 	case "POINT_POOL_LOOP_START":
-		ex.processPointPoolLoop(ex.extractUpToMarker("POINT_POOL_LOOP_END"))
+		ex.processPointPoolLoop(op.body)
 	case "CONTINUE_ID", "CAMPAIGN", "OPTIONS_CODE":
 		// No-op
 	default:
@@ -574,21 +557,6 @@ func splitIntoMap(in, prefix string, m map[string]bool) {
 	}
 }
 
-func (ex *legacyExporter) extractUpToMarker(marker string) []byte {
-	remaining := ex.template[ex.pos:]
-	i := bytes.Index(remaining, []byte(marker))
-	if i == -1 {
-		ex.pos = len(ex.template)
-		return remaining
-	}
-	buffer := ex.template[ex.pos : ex.pos+i]
-	ex.pos += i + len(marker)
-	if ex.enhancedKeyParsing && ex.pos < len(ex.template) && ex.template[ex.pos] == '@' {
-		ex.pos++
-	}
-	return buffer
-}
-
 func (ex *legacyExporter) writeEncodedText(text string) {
 	if ex.encodeText {
 		for _, ch := range text {
@@ -685,9 +653,9 @@ func (ex *legacyExporter) includeCulturalFamiliarities(t *Trait) bool {
 		ex.includeByTraitTags(t)
 }
 
-func (ex *legacyExporter) processEncumbranceLoop(buffer []byte) {
+func (ex *legacyExporter) processEncumbranceLoop(body []legacyOp) {
 	for _, enc := range encumbrance.Levels {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case "CURRENT_MARKER":
 				if enc == ex.entity.EncumbranceLevel(false) {
@@ -719,14 +687,13 @@ func (ex *legacyExporter) processEncumbranceLoop(buffer []byte) {
 			default:
 				ex.unidentifiedKey(key)
 			}
-			return index
 		})
 	}
 }
 
-func (ex *legacyExporter) processHitLocationLoop(buffer []byte) {
+func (ex *legacyExporter) processHitLocationLoop(body []legacyOp) {
 	for i, location := range ex.entity.SheetSettings.BodyType.Locations {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case idExportKey:
 				ex.writeEncodedText(strconv.Itoa(i))
@@ -753,7 +720,6 @@ func (ex *legacyExporter) processHitLocationLoop(buffer []byte) {
 			default:
 				ex.unidentifiedKey(key)
 			}
-			return index
 		})
 	}
 }
@@ -778,10 +744,10 @@ func (ex *legacyExporter) hitLocationEquipment(location *HitLocation) []string {
 	return list
 }
 
-func (ex *legacyExporter) processTraitLoop(buffer []byte, f func(*Trait) bool) {
+func (ex *legacyExporter) processTraitLoop(body []legacyOp, f func(*Trait) bool) {
 	Traverse(func(t *Trait) bool {
 		if f(t) {
-			ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+			ex.processBuffer(body, func(key string, _ *legacyOp) {
 				switch key {
 				case idExportKey:
 					ex.writeEncodedText(string(t.TID))
@@ -837,7 +803,6 @@ func (ex *legacyExporter) processTraitLoop(buffer []byte, f func(*Trait) bool) {
 						ex.unidentifiedKey(key)
 					}
 				}
-				return index
 			})
 		}
 		return false
@@ -846,9 +811,9 @@ func (ex *legacyExporter) processTraitLoop(buffer []byte, f func(*Trait) bool) {
 	ex.excludedTags = make(map[string]bool)
 }
 
-func (ex *legacyExporter) processSkillsLoop(buffer []byte) {
+func (ex *legacyExporter) processSkillsLoop(body []legacyOp) {
 	Traverse(func(s *Skill) bool {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case idExportKey:
 				ex.writeEncodedText(string(s.TID))
@@ -897,15 +862,14 @@ func (ex *legacyExporter) processSkillsLoop(buffer []byte) {
 					ex.unidentifiedKey(key)
 				}
 			}
-			return index
 		})
 		return false
 	}, false, false, ex.entity.Skills...)
 }
 
-func (ex *legacyExporter) processSpellsLoop(buffer []byte) {
+func (ex *legacyExporter) processSpellsLoop(body []legacyOp) {
 	Traverse(func(s *Spell) bool {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case idExportKey:
 				ex.writeEncodedText(string(s.TID))
@@ -976,13 +940,12 @@ func (ex *legacyExporter) processSpellsLoop(buffer []byte) {
 					ex.unidentifiedKey(key)
 				}
 			}
-			return index
 		})
 		return false
 	}, false, false, ex.entity.Spells...)
 }
 
-func (ex *legacyExporter) processEquipmentLoop(buffer []byte, carried bool) {
+func (ex *legacyExporter) processEquipmentLoop(body []legacyOp, carried bool) {
 	var eqpList []*Equipment
 	if carried {
 		eqpList = ex.entity.CarriedEquipment
@@ -991,7 +954,7 @@ func (ex *legacyExporter) processEquipmentLoop(buffer []byte, carried bool) {
 	}
 	Traverse(func(eqp *Equipment) bool {
 		if ex.includeByTags(eqp.Tags) {
-			ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+			ex.processBuffer(body, func(key string, _ *legacyOp) {
 				switch key {
 				case idExportKey:
 					ex.writeEncodedText(string(eqp.TID))
@@ -1093,7 +1056,6 @@ func (ex *legacyExporter) processEquipmentLoop(buffer []byte, carried bool) {
 						ex.unidentifiedKey(key)
 					}
 				}
-				return index
 			})
 		}
 		return false
@@ -1102,9 +1064,9 @@ func (ex *legacyExporter) processEquipmentLoop(buffer []byte, carried bool) {
 	ex.excludedTags = make(map[string]bool)
 }
 
-func (ex *legacyExporter) processNotesLoop(buffer []byte) {
+func (ex *legacyExporter) processNotesLoop(body []legacyOp) {
 	Traverse(func(n *Note) bool {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case idExportKey:
 				ex.writeEncodedText(string(n.TID))
@@ -1142,15 +1104,14 @@ func (ex *legacyExporter) processNotesLoop(buffer []byte) {
 					ex.unidentifiedKey(key)
 				}
 			}
-			return index
 		})
 		return false
 	}, false, false, ex.entity.Notes...)
 }
 
-func (ex *legacyExporter) processConditionalModifiersLoop(list []*ConditionalModifier, buffer []byte) {
+func (ex *legacyExporter) processConditionalModifiersLoop(list []*ConditionalModifier, body []legacyOp) {
 	for i, one := range list {
-		ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+		ex.processBuffer(body, func(key string, _ *legacyOp) {
 			switch key {
 			case idExportKey:
 				ex.writeEncodedText(strconv.Itoa(i))
@@ -1161,16 +1122,15 @@ func (ex *legacyExporter) processConditionalModifiersLoop(list []*ConditionalMod
 			default:
 				ex.unidentifiedKey(key)
 			}
-			return index
 		})
 	}
 }
 
-func (ex *legacyExporter) processAttributesLoop(buffer []byte, primary bool) {
+func (ex *legacyExporter) processAttributesLoop(body []legacyOp, primary bool) {
 	for _, def := range ex.entity.SheetSettings.Attributes.List(true) {
 		if (def.Type != attribute.Pool && def.Type != attribute.PoolRef) && def.Primary() == primary {
 			if attr, ok := ex.entity.Attributes.Set[def.DefID]; ok {
-				ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+				ex.processBuffer(body, func(key string, _ *legacyOp) {
 					switch key {
 					case idExportKey:
 						ex.writeEncodedText(def.DefID)
@@ -1187,18 +1147,17 @@ func (ex *legacyExporter) processAttributesLoop(buffer []byte, primary bool) {
 					default:
 						ex.unidentifiedKey(key)
 					}
-					return index
 				})
 			}
 		}
 	}
 }
 
-func (ex *legacyExporter) processPointPoolLoop(buffer []byte) {
+func (ex *legacyExporter) processPointPoolLoop(body []legacyOp) {
 	for _, def := range ex.entity.SheetSettings.Attributes.List(true) {
 		if def.Type == attribute.Pool || def.Type == attribute.PoolRef {
 			if attr, ok := ex.entity.Attributes.Set[def.DefID]; ok {
-				ex.processBuffer(buffer, func(key string, _ []byte, index int) int {
+				ex.processBuffer(body, func(key string, _ *legacyOp) {
 					switch key {
 					case idExportKey:
 						ex.writeEncodedText(def.DefID)
@@ -1217,22 +1176,21 @@ func (ex *legacyExporter) processPointPoolLoop(buffer []byte) {
 					default:
 						ex.unidentifiedKey(key)
 					}
-					return index
 				})
 			}
 		}
 	}
 }
 
-func (ex *legacyExporter) processMeleeLoop(buffer []byte) {
+func (ex *legacyExporter) processMeleeLoop(body []legacyOp) {
 	for i, w := range ex.entity.EquippedWeapons(true, true) {
-		ex.processBuffer(buffer, func(key string, buf []byte, index int) int {
-			return ex.processMeleeKeys(key, i, w, nil, buf, index)
+		ex.processBuffer(body, func(key string, op *legacyOp) {
+			ex.processMeleeKeys(key, i, w, nil, op)
 		})
 	}
 }
 
-func (ex *legacyExporter) processHierarchicalMeleeLoop(buffer []byte) {
+func (ex *legacyExporter) processHierarchicalMeleeLoop(body []legacyOp) {
 	m := make(map[string][]*Weapon)
 	for _, w := range ex.entity.EquippedWeapons(true, true) {
 		key := w.String()
@@ -1244,21 +1202,21 @@ func (ex *legacyExporter) processHierarchicalMeleeLoop(buffer []byte) {
 	}
 	slices.SortFunc(list, func(a, b *Weapon) int { return a.Compare(b) })
 	for i, w := range list {
-		ex.processBuffer(buffer, func(key string, buf []byte, index int) int {
-			return ex.processMeleeKeys(key, i, w, m[w.String()], buf, index)
+		ex.processBuffer(body, func(key string, op *legacyOp) {
+			ex.processMeleeKeys(key, i, w, m[w.String()], op)
 		})
 	}
 }
 
-func (ex *legacyExporter) processRangedLoop(buffer []byte) {
+func (ex *legacyExporter) processRangedLoop(body []legacyOp) {
 	for i, w := range ex.entity.EquippedWeapons(false, true) {
-		ex.processBuffer(buffer, func(key string, buf []byte, index int) int {
-			return ex.processRangedKeys(key, i, w, nil, buf, index)
+		ex.processBuffer(body, func(key string, op *legacyOp) {
+			ex.processRangedKeys(key, i, w, nil, op)
 		})
 	}
 }
 
-func (ex *legacyExporter) processHierarchicalRangedLoop(buffer []byte) {
+func (ex *legacyExporter) processHierarchicalRangedLoop(body []legacyOp) {
 	m := make(map[string][]*Weapon)
 	for _, w := range ex.entity.EquippedWeapons(false, true) {
 		key := w.String()
@@ -1270,13 +1228,13 @@ func (ex *legacyExporter) processHierarchicalRangedLoop(buffer []byte) {
 	}
 	slices.SortFunc(list, func(a, b *Weapon) int { return a.Compare(b) })
 	for i, w := range list {
-		ex.processBuffer(buffer, func(key string, buf []byte, index int) int {
-			return ex.processRangedKeys(key, i, w, m[w.String()], buf, index)
+		ex.processBuffer(body, func(key string, op *legacyOp) {
+			ex.processRangedKeys(key, i, w, m[w.String()], op)
 		})
 	}
 }
 
-func (ex *legacyExporter) processMeleeKeys(key string, currentID int, w *Weapon, attackModes []*Weapon, buf []byte, index int) int {
+func (ex *legacyExporter) processMeleeKeys(key string, currentID int, w *Weapon, attackModes []*Weapon, op *legacyOp) {
 	switch key {
 	case "PARRY":
 		ex.writeEncodedText(w.Parry.Resolve(w, nil).String())
@@ -1288,10 +1246,9 @@ func (ex *legacyExporter) processMeleeKeys(key string, currentID int, w *Weapon,
 		ex.writeEncodedText(strconv.Itoa(len(attackModes)))
 	case "ATTACK_MODES_LOOP_START":
 		if len(attackModes) != 0 {
-			buf, index = ex.subBufferExtractUpToMarker("ATTACK_MODES_LOOP_END", buf, index)
 			for i, mode := range attackModes {
-				ex.processBuffer(buf, func(key string, innerBuf []byte, innerIndex int) int {
-					return ex.processMeleeKeys(key, i, mode, nil, innerBuf, innerIndex)
+				ex.processBuffer(op.body, func(key string, innerOp *legacyOp) {
+					ex.processMeleeKeys(key, i, mode, nil, innerOp)
 				})
 			}
 		} else {
@@ -1300,10 +1257,9 @@ func (ex *legacyExporter) processMeleeKeys(key string, currentID int, w *Weapon,
 	default:
 		ex.processWeaponKeys(key, currentID, w)
 	}
-	return index
 }
 
-func (ex *legacyExporter) processRangedKeys(key string, currentID int, w *Weapon, attackModes []*Weapon, buf []byte, index int) int {
+func (ex *legacyExporter) processRangedKeys(key string, currentID int, w *Weapon, attackModes []*Weapon, op *legacyOp) {
 	switch key {
 	case "BULK":
 		ex.writeEncodedText(w.Bulk.Resolve(w, nil).String())
@@ -1321,10 +1277,9 @@ func (ex *legacyExporter) processRangedKeys(key string, currentID int, w *Weapon
 		ex.writeEncodedText(strconv.Itoa(len(attackModes)))
 	case "ATTACK_MODES_LOOP_START":
 		if len(attackModes) != 0 {
-			buf, index = ex.subBufferExtractUpToMarker("ATTACK_MODES_LOOP_END", buf, index)
 			for i, mode := range attackModes {
-				ex.processBuffer(buf, func(key string, innerBuf []byte, innerIndex int) int {
-					return ex.processRangedKeys(key, i, mode, nil, innerBuf, innerIndex)
+				ex.processBuffer(op.body, func(key string, innerOp *legacyOp) {
+					ex.processRangedKeys(key, i, mode, nil, innerOp)
 				})
 			}
 		} else {
@@ -1333,7 +1288,6 @@ func (ex *legacyExporter) processRangedKeys(key string, currentID int, w *Weapon
 	default:
 		ex.processWeaponKeys(key, currentID, w)
 	}
-	return index
 }
 
 func (ex *legacyExporter) processWeaponKeys(key string, currentID int, w *Weapon) {
@@ -1477,51 +1431,16 @@ func (ex *legacyExporter) writeWithOptionalParens(key, text string) {
 	}
 }
 
-func (ex *legacyExporter) processBuffer(buffer []byte, f func(key string, buf []byte, index int) int) {
-	var keyBuffer bytes.Buffer
-	lookForKeyMarker := true
-	i := 0
-	for i < len(buffer) {
-		ch := buffer[i]
-		i++
-		switch {
-		case lookForKeyMarker:
-			var next byte
-			if ex.pos < len(ex.template) {
-				next = ex.template[ex.pos]
-			}
-			if ch == '@' && (next < '0' || next > '9') {
-				lookForKeyMarker = false
-			} else {
-				ex.out.WriteByte(ch)
-			}
-		case ch == '_' || (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z'):
-			keyBuffer.WriteByte(ch)
-		default:
-			if !ex.enhancedKeyParsing || ch != '@' {
-				i--
-			}
-			i = f(keyBuffer.String(), buffer, i)
-			keyBuffer.Reset()
-			lookForKeyMarker = true
+func (ex *legacyExporter) processBuffer(body []legacyOp, f func(key string, op *legacyOp)) {
+	for i := range body {
+		if op := &body[i]; op.isKey {
+			f(op.key, op)
+		} else {
+			ex.out.WriteString(op.text)
 		}
 	}
 }
 
-func (ex *legacyExporter) subBufferExtractUpToMarker(marker string, buf []byte, start int) (buffer []byte, newStart int) {
-	remaining := buf[start:]
-	i := bytes.Index(remaining, []byte(marker))
-	if i == -1 {
-		return remaining, len(buf)
-	}
-	buffer = buf[start : start+i]
-	start += i + len(marker)
-	if ex.enhancedKeyParsing && start < len(buf) && buf[start] == '@' {
-		start++
-	}
-	return buffer, start
-}
-
 func (ex *legacyExporter) handleColor(key string) {
 	id := strings.ToLower(key[len("COLOR_"):])
 	for _, c := range colors.Current() {
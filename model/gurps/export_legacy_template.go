@@ -0,0 +1,199 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import "bytes"
+
+// legacyLoopEndMarkers maps the keys that start a loop to the marker that ends it.
+var legacyLoopEndMarkers = map[string]string{
+	"ENCUMBRANCE_LOOP_START":            "ENCUMBRANCE_LOOP_END",
+	"HIT_LOCATION_LOOP_START":           "HIT_LOCATION_LOOP_END",
+	"ADVANTAGES_LOOP_START":             "ADVANTAGES_LOOP_END",
+	"ADVANTAGES_ALL_LOOP_START":         "ADVANTAGES_ALL_LOOP_END",
+	"ADVANTAGES_ONLY_LOOP_START":        "ADVANTAGES_ONLY_LOOP_END",
+	"DISADVANTAGES_LOOP_START":          "DISADVANTAGES_LOOP_END",
+	"DISADVANTAGES_ALL_LOOP_START":      "DISADVANTAGES_ALL_LOOP_END",
+	"QUIRKS_LOOP_START":                 "QUIRKS_LOOP_END",
+	"PERKS_LOOP_START":                  "PERKS_LOOP_END",
+	"LANGUAGES_LOOP_START":              "LANGUAGES_LOOP_END",
+	"CULTURAL_FAMILIARITIES_LOOP_START": "CULTURAL_FAMILIARITIES_LOOP_END",
+	"SKILLS_LOOP_START":                 "SKILLS_LOOP_END",
+	"SPELLS_LOOP_START":                 "SPELLS_LOOP_END",
+	"MELEE_LOOP_START":                  "MELEE_LOOP_END",
+	"HIERARCHICAL_MELEE_LOOP_START":     "HIERARCHICAL_MELEE_LOOP_END",
+	"RANGED_LOOP_START":                 "RANGED_LOOP_END",
+	"HIERARCHICAL_RANGED_LOOP_START":    "HIERARCHICAL_RANGED_LOOP_END",
+	"EQUIPMENT_LOOP_START":              "EQUIPMENT_LOOP_END",
+	"OTHER_EQUIPMENT_LOOP_START":        "EQUIPMENT_LOOP_END", // Shares the end marker of EQUIPMENT_LOOP_START
+	"NOTES_LOOP_START":                  "NOTES_LOOP_END",
+	"REACTION_LOOP_START":               "REACTION_LOOP_END",
+	"CONDITIONAL_MODIFIERS_LOOP_START":  "CONDITIONAL_MODIFIERS_LOOP_END",
+	"PRIMARY_ATTRIBUTE_LOOP_START":      "PRIMARY_ATTRIBUTE_LOOP_END",
+	"SECONDARY_ATTRIBUTE_LOOP_START":    "SECONDARY_ATTRIBUTE_LOOP_END",
+	"POINT_POOL_LOOP_START":             "POINT_POOL_LOOP_END",
+}
+
+const (
+	attackModesLoopStartKey = "ATTACK_MODES_LOOP_START"
+	attackModesLoopEndKey   = "ATTACK_MODES_LOOP_END"
+)
+
+// legacyTemplate is a legacy text export template that has been parsed into a list of operations, so that it can be
+// used for any number of exports without re-scanning the template text.
+type legacyTemplate struct {
+	ops []legacyOp
+}
+
+// legacyOp is a single operation within a legacyTemplate. It either writes literal text or emits a key. Keys that start
+// a loop carry the operations for the loop's body.
+type legacyOp struct {
+	text  string
+	key   string
+	body  []legacyOp
+	isKey bool
+}
+
+type legacyCompiler struct {
+	template           []byte
+	pos                int
+	ops                []legacyOp
+	text               []byte
+	enhancedKeyParsing bool
+}
+
+// compileLegacyTemplate parses the template. The parsing matches that done by the old Java code base, including its
+// quirks, as templates in the wild depend upon them.
+func compileLegacyTemplate(tmpl []byte) *legacyTemplate {
+	c := &legacyCompiler{template: tmpl}
+	lookForKeyMarker := true
+	var keyBuffer bytes.Buffer
+	for c.pos < len(c.template) {
+		ch := c.template[c.pos]
+		c.pos++
+		switch {
+		case lookForKeyMarker:
+			var next byte
+			if c.pos < len(c.template) {
+				next = c.template[c.pos]
+			}
+			if ch == '@' && (next < '0' || next > '9') {
+				lookForKeyMarker = false
+			} else {
+				c.text = append(c.text, ch)
+			}
+		case isLegacyKeyChar(ch):
+			keyBuffer.WriteByte(ch)
+		default:
+			if !c.enhancedKeyParsing || ch != '@' {
+				c.pos--
+			}
+			c.addKey(keyBuffer.String())
+			keyBuffer.Reset()
+			lookForKeyMarker = true
+		}
+	}
+	if keyBuffer.Len() != 0 {
+		c.addKey(keyBuffer.String())
+	}
+	c.flushText()
+	return &legacyTemplate{ops: c.ops}
+}
+
+func (c *legacyCompiler) flushText() {
+	if len(c.text) != 0 {
+		c.ops = append(c.ops, legacyOp{text: string(c.text)})
+		c.text = nil
+	}
+}
+
+func (c *legacyCompiler) addKey(key string) {
+	c.flushText()
+	op := legacyOp{key: key, isKey: true}
+	if key == "ENHANCED_KEY_PARSING" {
+		c.enhancedKeyParsing = true
+	}
+	if marker, ok := legacyLoopEndMarkers[key]; ok {
+		var body []byte
+		body, c.pos = extractLegacyLoopBody(c.template, c.pos, marker, c.enhancedKeyParsing)
+		// When scanning a loop body for keys, the old code base checked the character following the end of the loop,
+		// rather than the one following the '@', to see if it was a digit. This means a digit there disables all keys
+		// within the loop body.
+		keysEnabled := c.pos >= len(c.template) || c.template[c.pos] < '0' || c.template[c.pos] > '9'
+		hierarchical := key == "HIERARCHICAL_MELEE_LOOP_START" || key == "HIERARCHICAL_RANGED_LOOP_START"
+		op.body = compileLegacyLoopBody(body, keysEnabled, c.enhancedKeyParsing, hierarchical)
+	}
+	c.ops = append(c.ops, op)
+}
+
+// compileLegacyLoopBody parses the body of a loop. Unlike the top level of a template, a key that is still being
+// collected when the end of the body is reached is dropped. The hierarchical weapon loops always have attack modes to
+// iterate over, so within their bodies an attack modes loop gets its own body; elsewhere, it is just another key.
+func compileLegacyLoopBody(buffer []byte, keysEnabled, enhancedKeyParsing, hierarchical bool) []legacyOp {
+	var ops []legacyOp
+	var text []byte
+	var keyBuffer bytes.Buffer
+	lookForKeyMarker := true
+	i := 0
+	for i < len(buffer) {
+		ch := buffer[i]
+		i++
+		switch {
+		case lookForKeyMarker:
+			if ch == '@' && keysEnabled {
+				lookForKeyMarker = false
+			} else {
+				text = append(text, ch)
+			}
+		case isLegacyKeyChar(ch):
+			keyBuffer.WriteByte(ch)
+		default:
+			if !enhancedKeyParsing || ch != '@' {
+				i--
+			}
+			if len(text) != 0 {
+				ops = append(ops, legacyOp{text: string(text)})
+				text = nil
+			}
+			op := legacyOp{key: keyBuffer.String(), isKey: true}
+			if hierarchical && op.key == attackModesLoopStartKey {
+				var sub []byte
+				sub, i = extractLegacyLoopBody(buffer, i, attackModesLoopEndKey, enhancedKeyParsing)
+				op.body = compileLegacyLoopBody(sub, keysEnabled, enhancedKeyParsing, false)
+			}
+			ops = append(ops, op)
+			keyBuffer.Reset()
+			lookForKeyMarker = true
+		}
+	}
+	if len(text) != 0 {
+		ops = append(ops, legacyOp{text: string(text)})
+	}
+	return ops
+}
+
+// extractLegacyLoopBody returns the portion of the buffer from start up to the marker, along with the position just
+// past the marker.
+func extractLegacyLoopBody(buffer []byte, start int, marker string, enhancedKeyParsing bool) (body []byte, next int) {
+	remaining := buffer[start:]
+	i := bytes.Index(remaining, []byte(marker))
+	if i == -1 {
+		return remaining, len(buffer)
+	}
+	body = buffer[start : start+i]
+	start += i + len(marker)
+	if enhancedKeyParsing && start < len(buffer) && buffer[start] == '@' {
+		start++
+	}
+	return body, start
+}
+
+func isLegacyKeyChar(ch byte) bool {
+	return ch == '_' || (ch >= '0' && ch <= '9') || (ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')
+}
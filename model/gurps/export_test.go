@@ -10,6 +10,9 @@
 package gurps
 
 import (
+	"os"
+	"path/filepath"
+	"strconv"
 	"strings"
 	"testing"
 	"text/template"
@@ -50,3 +53,81 @@ func TestTemplateFuncs(t *testing.T) {
 		c.Equal(data.out, buffer.String(), "Test %d", i)
 	}
 }
+
+func TestExportSheetsToOutputDir(t *testing.T) {
+	c := check.New(t)
+	dir := t.TempDir()
+	tmplPath := filepath.Join(dir, "template.txt")
+	c.NoError(os.WriteFile(tmplPath, []byte("GCS Text Template v1\n{{.Name}}"), 0o600))
+	names := []string{"Alpha", "Beta", "Gamma"}
+	fileList := make([]string, 0, len(names))
+	for _, name := range names {
+		e := NewEntity()
+		e.Profile.Name = name
+		p := filepath.Join(dir, name+SheetExt)
+		c.NoError(e.Save(p))
+		fileList = append(fileList, p)
+	}
+	outDir := filepath.Join(dir, "out")
+	c.NoError(ExportSheets(tmplPath, fileList, outDir, 2))
+	for _, name := range names {
+		data, err := os.ReadFile(filepath.Join(outDir, name+".txt"))
+		c.NoError(err)
+		c.Equal(name, string(data))
+	}
+}
+
+func TestExportSheetsClaimsOnlyExportablePaths(t *testing.T) {
+	c := check.New(t)
+	dir := t.TempDir()
+	tmplPath := filepath.Join(dir, "template.txt")
+	c.NoError(os.WriteFile(tmplPath, []byte("GCS Text Template v1\n{{.Name}}"), 0o600))
+	e := NewEntity()
+	e.Profile.Name = "Alpha"
+	sheetPath := filepath.Join(dir, "alpha"+SheetExt)
+	c.NoError(e.Save(sheetPath))
+	otherPath := filepath.Join(dir, "alpha"+TemplatesExt)
+	c.NoError(os.WriteFile(otherPath, []byte("{}"), 0o600))
+	outDir := filepath.Join(dir, "out")
+	c.NoError(ExportSheets(tmplPath, []string{otherPath, sheetPath, sheetPath}, outDir, 2))
+	data, err := os.ReadFile(filepath.Join(outDir, "alpha.txt"))
+	c.NoError(err)
+	c.Equal("Alpha", string(data))
+}
+
+func TestCompileLegacyTemplate(t *testing.T) {
+	c := check.New(t)
+	for i, data := range []struct{ in, out string }{
+		{in: "a@NAME b", out: `"a" NAME " b"`},
+		{in: "cost @10", out: `"cost @10"`},
+		{in: "@NAME", out: `NAME`},
+		{in: "@ENCUMBRANCE_LOOP_START[@LEVEL]@ENCUMBRANCE_LOOP_END!", out: `ENCUMBRANCE_LOOP_START{"[" LEVEL "]"} "!"`},
+		{in: "@ENCUMBRANCE_LOOP_START[@LEVEL]@ENCUMBRANCE_LOOP_END9", out: `ENCUMBRANCE_LOOP_START{"[@LEVEL]@"} "9"`},
+		{in: "@ENHANCED_KEY_PARSING\n@NAME@x", out: `ENHANCED_KEY_PARSING "\n" NAME "x"`},
+		{
+			in:  "@HIERARCHICAL_MELEE_LOOP_START@ATTACK_MODES_LOOP_START<@USAGE>@ATTACK_MODES_LOOP_END @HIERARCHICAL_MELEE_LOOP_END",
+			out: `HIERARCHICAL_MELEE_LOOP_START{ATTACK_MODES_LOOP_START{"<" USAGE ">"} " "}`,
+		},
+		{
+			in:  "@MELEE_LOOP_START@ATTACK_MODES_LOOP_START<@USAGE>@ATTACK_MODES_LOOP_END @MELEE_LOOP_END",
+			out: `MELEE_LOOP_START{ATTACK_MODES_LOOP_START "<" USAGE ">" ATTACK_MODES_LOOP_END " "}`,
+		},
+	} {
+		c.Equal(data.out, describeLegacyOps(compileLegacyTemplate([]byte(data.in)).ops), "%d: %q", i, data.in)
+	}
+}
+
+func describeLegacyOps(ops []legacyOp) string {
+	parts := make([]string, 0, len(ops))
+	for _, op := range ops {
+		switch {
+		case !op.isKey:
+			parts = append(parts, strconv.Quote(op.text))
+		case op.body != nil:
+			parts = append(parts, op.key+"{"+describeLegacyOps(op.body)+"}")
+		default:
+			parts = append(parts, op.key)
+		}
+	}
+	return strings.Join(parts, " ")
+}
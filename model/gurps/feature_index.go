@@ -0,0 +1,115 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"fmt"
+	"strings"
+	"unicode/utf8"
+
+	"github.com/richardwilkes/gcs/v5/model/criteria"
+	"github.com/richardwilkes/gcs/v5/model/gurps/enums/stlimit"
+	"github.com/richardwilkes/gcs/v5/model/nameable"
+)
+
+type attributeBonusKey struct {
+	attribute  string
+	limitation stlimit.Option
+}
+
+// indexedBonus holds a bonus along with its criteria, compiled with the nameable replacements of its owner. This is
+// done once when the bonus is collected rather than on every query.
+type indexedBonus[T any] struct {
+	bonus          T
+	name           criteria.Matcher
+	specialization criteria.Matcher
+	usage          criteria.Matcher
+	tags           criteria.Matcher
+	seq            int
+}
+
+// bonusCriteria holds the criteria of a bonus that are to be compiled. Criteria a bonus type doesn't have may be left
+// as their zero value, which matches anything.
+type bonusCriteria struct {
+	name           criteria.Text
+	specialization criteria.Text
+	usage          criteria.Text
+	tags           criteria.Text
+}
+
+// bonusBuckets holds bonuses of a single type. Those whose name criteria requires an exact match are placed in a hash
+// bucket keyed by the case-folded name, while all others must be checked on every query.
+type bonusBuckets[T any] struct {
+	all      []*indexedBonus[T]
+	byName   map[string][]*indexedBonus[T]
+	wildcard []*indexedBonus[T]
+}
+
+func (b *bonusBuckets[T]) add(bonus T, owner fmt.Stringer, bucketable bool, crit bonusCriteria) {
+	var replacements map[string]string
+	if na, ok := owner.(nameable.Accesser); ok {
+		replacements = na.NameableReplacements()
+	}
+	entry := &indexedBonus[T]{
+		bonus:          bonus,
+		name:           crit.name.Compile(replacements),
+		specialization: crit.specialization.Compile(replacements),
+		usage:          crit.usage.Compile(replacements),
+		tags:           crit.tags.Compile(replacements),
+		seq:            len(b.all),
+	}
+	b.all = append(b.all, entry)
+	if bucketable && entry.name.Compare() == criteria.IsText {
+		if key, ok := asciiFoldKey(entry.name.Qualifier()); ok {
+			if b.byName == nil {
+				b.byName = make(map[string][]*indexedBonus[T])
+			}
+			b.byName[key] = append(b.byName[key], entry)
+			return
+		}
+	}
+	b.wildcard = append(b.wildcard, entry)
+}
+
+// candidates calls 'f' for each bonus that might match the given name, in the order the bonuses were added. The caller
+// is still responsible for checking the full criteria.
+func (b *bonusBuckets[T]) candidates(name string, f func(entry *indexedBonus[T])) {
+	key, ok := asciiFoldKey(name)
+	if !ok {
+		for _, entry := range b.all {
+			f(entry)
+		}
+		return
+	}
+	exact := b.byName[key]
+	i := 0
+	j := 0
+	for i < len(exact) || j < len(b.wildcard) {
+		if j >= len(b.wildcard) || (i < len(exact) && exact[i].seq < b.wildcard[j].seq) {
+			f(exact[i])
+			i++
+		} else {
+			f(b.wildcard[j])
+			j++
+		}
+	}
+}
+
+// asciiFoldKey returns the lowercase version of the string, along with true, if the string contains only ASCII
+// characters. For those strings, a lowercase comparison is the same as strings.EqualFold(). Strings that contain other
+// characters return false, as the two can differ for them.
+func asciiFoldKey(s string) (string, bool) {
+	for i := 0; i < len(s); i++ {
+		if s[i] >= utf8.RuneSelf {
+			return "", false
+		}
+	}
+	return strings.ToLower(s), true
+}
@@ -11,9 +11,15 @@ package gurps
 
 import (
 	"encoding/base64"
+	"encoding/json"
 	"fmt"
 	"hash"
+	"maps"
+	"math"
+	"slices"
+	"time"
 
+	"github.com/richardwilkes/gcs/v5/model/jio"
 	"github.com/richardwilkes/toolbox/v2/tid"
 	"github.com/richardwilkes/toolbox/v2/xhash"
 	"github.com/zeebo/xxh3"
@@ -24,6 +30,12 @@ type Hashable interface {
 	Hash(hash.Hash)
 }
 
+// contentHasher is an object that can write all of its persisted contents into a hasher, not just those that
+// participate in library synchronization.
+type contentHasher interface {
+	hashContents(h hash.Hash)
+}
+
 // HashAndData is a combination of a hash and some data.
 type HashAndData struct {
 	Hash uint64
@@ -39,7 +51,7 @@ func Hash64(in Hashable) uint64 {
 
 // NodesToHashesByID traverses the provided nodes and generates hashes.
 func NodesToHashesByID[T NodeTypes](result map[tid.TID]HashAndData, data ...T) {
-	Traverse(func(one T) bool {
+	for one := range TraverseSeq(false, false, data...) {
 		node := AsNode(one)
 		id := node.ID()
 		if _, exists := result[id]; !exists {
@@ -48,8 +60,7 @@ func NodesToHashesByID[T NodeTypes](result map[tid.TID]HashAndData, data ...T) {
 				Data: one,
 			}
 		}
-		return false
-	}, false, false, data...)
+	}
 }
 
 // TIDFromHashedString creates a TID from a string.
@@ -65,3 +76,100 @@ func TIDFromHashedString(kind byte, s string) tid.TID {
 	}
 	return tid.TID(fmt.Sprintf("%c%s", kind, base64.RawURLEncoding.EncodeToString(buffer)))
 }
+
+func hashContentsOf[T contentHasher](h hash.Hash, list []T) {
+	xhash.Num64(h, len(list))
+	for _, one := range list {
+		one.hashContents(h)
+	}
+}
+
+func (s *SourcedID) hashID(h hash.Hash) {
+	xhash.StringWithLen(h, string(s.TID))
+	xhash.StringWithLen(h, s.Source.Library)
+	xhash.StringWithLen(h, s.Source.Path)
+	xhash.StringWithLen(h, string(s.Source.TID))
+}
+
+func hashOptionalString(h hash.Hash, s *string) {
+	if s == nil {
+		xhash.Num8(h, uint8(255))
+	} else {
+		xhash.StringWithLen(h, *s)
+	}
+}
+
+func hashStringMap(h hash.Hash, m map[string]string) {
+	xhash.Num64(h, len(m))
+	for _, k := range slices.Sorted(maps.Keys(m)) {
+		xhash.StringWithLen(h, k)
+		xhash.StringWithLen(h, m[k])
+	}
+}
+
+// hashTime hashes the time at the resolution it is persisted with.
+func hashTime(h hash.Hash, t jio.Time) {
+	xhash.Num64(h, time.Time(t).Unix())
+}
+
+func hashStudies(h hash.Hash, list []*Study) {
+	xhash.Num64(h, len(list))
+	for _, one := range list {
+		xhash.Num8(h, one.Type)
+		xhash.Num64(h, one.Hours)
+		xhash.StringWithLen(h, one.Note)
+	}
+}
+
+// hashWeaponExtras hashes the weapon fields not covered by WeaponData.Hash().
+func hashWeaponExtras(h hash.Hash, list []*Weapon) {
+	xhash.Num64(h, len(list))
+	for _, one := range list {
+		xhash.StringWithLen(h, string(one.TID))
+		xhash.Num64(h, one.SubVersion)
+		xhash.Bool(h, one.Hide)
+	}
+}
+
+// hashThirdParty hashes third-party data, which holds values as decoded from JSON.
+func hashThirdParty(h hash.Hash, data map[string]any) {
+	xhash.Num64(h, len(data))
+	for _, k := range slices.Sorted(maps.Keys(data)) {
+		xhash.StringWithLen(h, k)
+		hashAny(h, data[k])
+	}
+}
+
+func hashAny(h hash.Hash, value any) {
+	switch v := value.(type) {
+	case nil:
+		xhash.Num8(h, uint8(0))
+	case bool:
+		xhash.Num8(h, uint8(1))
+		xhash.Bool(h, v)
+	case float64:
+		xhash.Num8(h, uint8(2))
+		xhash.Num64(h, math.Float64bits(v))
+	case string:
+		xhash.Num8(h, uint8(3))
+		xhash.StringWithLen(h, v)
+	case []any:
+		xhash.Num8(h, uint8(4))
+		xhash.Num64(h, len(v))
+		for _, one := range v {
+			hashAny(h, one)
+		}
+	case map[string]any:
+		xhash.Num8(h, uint8(5))
+		hashThirdParty(h, v)
+	default:
+		// Not something the JSON decoder produces, so fall back to its encoded form.
+		xhash.Num8(h, uint8(6))
+		if data, err := json.Marshal(v); err == nil {
+			xhash.Num64(h, len(data))
+			_, _ = h.Write(data)
+		} else {
+			xhash.StringWithLen(h, fmt.Sprint(v))
+		}
+	}
+}
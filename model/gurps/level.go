@@ -9,13 +9,28 @@
 
 package gurps
 
-import "github.com/richardwilkes/gcs/v5/model/fxp"
+import (
+	"fmt"
+	"slices"
 
-// Level provides a level & relative level pair, plus a tooltip.
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+	"github.com/richardwilkes/toolbox/v2/i18n"
+	"github.com/richardwilkes/toolbox/v2/xbytes"
+)
+
+// Level provides a level & relative level pair, plus the contributions that make up its tooltip.
 type Level struct {
 	Level         fxp.Int
 	RelativeLevel fxp.Int
-	Tooltip       string
+	tooltip       *levelTooltip
+}
+
+// levelTooltip records what contributed to a Level, so that the tooltip text only needs to be produced when it is
+// actually requested.
+type levelTooltip struct {
+	base        *levelTooltip
+	bonuses     []Bonus
+	encumbrance fxp.Int
 }
 
 // LevelAsString returns the level as a string.
@@ -29,3 +44,89 @@ func (l Level) LevelAsString(forContainer bool) string {
 	}
 	return level.String()
 }
+
+// Tooltip returns the tooltip text describing the modifiers that contributed to the level.
+func (l Level) Tooltip() string {
+	if l.tooltip == nil {
+		return ""
+	}
+	var buffer xbytes.InsertBuffer
+	l.tooltip.render(&buffer)
+	return buffer.String()
+}
+
+// Same returns true if both levels have the same values and contributions.
+func (l Level) Same(other Level) bool {
+	return l.Level == other.Level && l.RelativeLevel == other.RelativeLevel && l.tooltip.same(other.tooltip)
+}
+
+func (t *levelTooltip) render(buffer *xbytes.InsertBuffer) {
+	if t.base != nil {
+		t.base.render(buffer)
+	}
+	for _, bonus := range t.bonuses {
+		bonus.AddToTooltip(buffer)
+	}
+	if t.encumbrance != 0 {
+		fmt.Fprintf(buffer, i18n.Text("\nEncumbrance [%s]"), t.encumbrance.StringWithSign())
+	}
+}
+
+func (t *levelTooltip) same(other *levelTooltip) bool {
+	if t == nil || other == nil {
+		return t == other
+	}
+	return t.encumbrance == other.encumbrance && slices.EqualFunc(t.bonuses, other.bonuses, sameBonusContribution) &&
+		t.base.same(other.base)
+}
+
+// sameBonusContribution returns true if the bonuses make the same contribution. Some bonuses, such as the equipment
+// penalties created while processing prerequisites, are re-created on each pass, so bonuses that aren't identical are
+// compared by their type, owners and amount instead.
+func sameBonusContribution(a, b Bonus) bool {
+	if a == b {
+		return true
+	}
+	if a.Owner() != b.Owner() || a.SubOwner() != b.SubOwner() {
+		return false
+	}
+	switch one := a.(type) {
+	case *SkillBonus:
+		other, ok := b.(*SkillBonus)
+		return ok && one.LeveledAmount == other.LeveledAmount
+	case *SpellBonus:
+		other, ok := b.(*SpellBonus)
+		return ok && one.LeveledAmount == other.LeveledAmount
+	default:
+		return false
+	}
+}
+
+// skillBonusFor returns the total of the matching skill bonuses, recording each of them.
+func (t *levelTooltip) skillBonusFor(e *Entity, name, specialization string, tags []string) fxp.Int {
+	var total fxp.Int
+	e.eachSkillBonusFor(name, specialization, tags, func(bonus *SkillBonus) {
+		total += bonus.AdjustedAmount()
+		t.bonuses = append(t.bonuses, bonus)
+	})
+	return total
+}
+
+// spellBonusFor returns the total of the matching spell bonuses, recording each of them.
+func (t *levelTooltip) spellBonusFor(e *Entity, name, powerSource string, colleges, tags []string) fxp.Int {
+	var total fxp.Int
+	e.eachSpellBonusFor(name, powerSource, colleges, tags, func(bonus *SpellBonus) {
+		total += bonus.AdjustedAmount()
+		t.bonuses = append(t.bonuses, bonus)
+	})
+	return total
+}
+
+// finish returns the recorded contributions, or nil if there were none.
+func (t *levelTooltip) finish() *levelTooltip {
+	if t.base == nil && len(t.bonuses) == 0 && t.encumbrance == 0 {
+		return nil
+	}
+	result := *t
+	return &result
+}
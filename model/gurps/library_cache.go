@@ -0,0 +1,117 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"io/fs"
+	"os"
+	"path/filepath"
+	"reflect"
+	"strings"
+	"sync"
+	"time"
+)
+
+// libraryFileCache holds the data parsed from library files, so that a file used by more than one part of the program
+// is only parsed once for as long as it remains unmodified. Entries are keyed by the type of data as well as the path,
+// since a file may be loaded in more than one form. Entries for files on disk are also dropped when a library monitor
+// reports a change to them.
+var libraryFileCache = struct {
+	entries map[libraryFileCacheKey]*libraryFileCacheEntry
+	lock    sync.Mutex
+}{entries: make(map[libraryFileCacheKey]*libraryFileCacheEntry)}
+
+type libraryFileCacheKey struct {
+	kind     reflect.Type
+	path     string
+	embedded bool
+}
+
+type libraryFileCacheEntry struct {
+	modTime time.Time
+	data    any
+	err     error
+	ready   chan struct{} // Closed once the data has been loaded
+}
+
+// CachedLibraryFile returns the result of calling 'load' for the file at the given path on disk, reusing the result of
+// a previous call if the file hasn't been modified since. The returned data is shared with every other caller and must
+// not be modified; clone it first if changes are needed.
+func CachedLibraryFile[T any](p string, load func(fileSystem fs.FS, filePath string) (T, error)) (T, error) {
+	if absPath, err := filepath.Abs(p); err == nil {
+		p = absPath
+	}
+	dir := filepath.Dir(p)
+	file := filepath.Base(p)
+	fi, err := os.Stat(p)
+	if err != nil {
+		return load(os.DirFS(dir), file)
+	}
+	return cachedFile(libraryFileCacheKey{kind: reflect.TypeFor[T](), path: p}, fi.ModTime(), func() (T, error) {
+		return load(os.DirFS(dir), file)
+	})
+}
+
+// cachedNamedFile returns the result of calling 'load' for the referenced file, using the cache when the file is either
+// on disk within a library or is one of the built-in files. The returned data is shared and must not be modified.
+func cachedNamedFile[T any](ref *NamedFileRef, load func(fileSystem fs.FS, filePath string) (T, error)) (T, error) {
+	if ref.diskPath != "" {
+		return CachedLibraryFile(ref.diskPath, load)
+	}
+	if ref.FileSystem == fs.FS(embeddedFS) {
+		return cachedFile(libraryFileCacheKey{kind: reflect.TypeFor[T](), path: ref.FilePath, embedded: true}, time.Time{},
+			func() (T, error) { return load(embeddedFS, ref.FilePath) })
+	}
+	return load(ref.FileSystem, ref.FilePath)
+}
+
+func cachedFile[T any](key libraryFileCacheKey, modTime time.Time, load func() (T, error)) (T, error) {
+	libraryFileCache.lock.Lock()
+	entry, exists := libraryFileCache.entries[key]
+	if exists && entry.modTime.Equal(modTime) {
+		libraryFileCache.lock.Unlock()
+		<-entry.ready
+	} else {
+		entry = &libraryFileCacheEntry{
+			modTime: modTime,
+			ready:   make(chan struct{}),
+		}
+		libraryFileCache.entries[key] = entry
+		libraryFileCache.lock.Unlock()
+		func() {
+			defer close(entry.ready)
+			entry.data, entry.err = load()
+		}()
+	}
+	data, _ := entry.data.(T) //nolint:errcheck // Only a T is ever stored under a key for T
+	return data, entry.err
+}
+
+// invalidateLibraryFileCaches drops any cached data for the file at the given path, or for any file within it if it is
+// a directory.
+func invalidateLibraryFileCaches(fullPath string) {
+	fullPath = filepath.Clean(fullPath)
+	prefix := fullPath + string(filepath.Separator)
+	affected := func(p string) bool { return p == fullPath || strings.HasPrefix(p, prefix) }
+	libraryFileCache.lock.Lock()
+	for key := range libraryFileCache.entries {
+		if !key.embedded && affected(key.path) {
+			delete(libraryFileCache.entries, key)
+		}
+	}
+	libraryFileCache.lock.Unlock()
+	libSrcCache.lock.Lock()
+	for p := range libSrcCache.entries {
+		if affected(p) {
+			delete(libSrcCache.entries, p)
+		}
+	}
+	libSrcCache.lock.Unlock()
+}
@@ -0,0 +1,49 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"os"
+	"path/filepath"
+	"testing"
+	"time"
+
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestCachedLibraryFile(t *testing.T) {
+	c := check.New(t)
+	sk := NewSkill(NewEntity(), nil, false)
+	sk.Name = "Cached"
+	dir := t.TempDir()
+	p := filepath.Join(dir, "cached"+SkillsExt)
+	c.NoError(SaveSkills([]*Skill{sk}, p))
+
+	first, err := CachedLibraryFile(p, NewSkillsFromFile)
+	c.NoError(err)
+	c.Equal(1, len(first))
+	c.Equal("Cached", first[0].Name)
+	second, err := CachedLibraryFile(p, NewSkillsFromFile)
+	c.NoError(err)
+	c.True(first[0] == second[0], "data shared while unmodified")
+
+	stat, err := os.Stat(p)
+	c.NoError(err)
+	modTime := stat.ModTime().Add(time.Second)
+	c.NoError(os.Chtimes(p, modTime, modTime))
+	third, err := CachedLibraryFile(p, NewSkillsFromFile)
+	c.NoError(err)
+	c.True(third[0] != first[0], "reloaded once modified")
+
+	invalidateLibraryFileCaches(dir)
+	fourth, err := CachedLibraryFile(p, NewSkillsFromFile)
+	c.NoError(err)
+	c.True(fourth[0] != third[0], "reloaded once invalidated")
+}
@@ -106,6 +106,7 @@ func (m *monitor) listenForEvents() {
 }
 
 func (m *monitor) send(fullPath string, what notify.Event) {
+	invalidateLibraryFileCaches(fullPath)
 	m.queue.Submit(func() {
 		m.tokensLock.RLock()
 		tokens := make([]*MonitorToken, len(m.tokens))
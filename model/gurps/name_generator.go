@@ -115,11 +115,12 @@ func NewNameGeneratorFromFS(fileSystem fs.FS, filePath string) (*NameGenerator,
 	return &generator, nil
 }
 
-// Generator returns the NameGenerator, loading it if needed.
+// Generator returns the NameGenerator, loading it if needed. The returned NameGenerator is shared and must not be
+// modified.
 func (n *NameGeneratorRef) Generator() (*NameGenerator, error) {
 	if n.generator == nil {
 		var err error
-		if n.generator, err = NewNameGeneratorFromFS(n.FileRef.FileSystem, n.FileRef.FilePath); err != nil {
+		if n.generator, err = cachedNamedFile(n.FileRef, NewNameGeneratorFromFS); err != nil {
 			return nil, err
 		}
 	}
@@ -401,6 +401,16 @@ func (n *Note) Hash(h hash.Hash) {
 	n.hash(h)
 }
 
+func (n *Note) hashContents(h hash.Hash) {
+	n.SourcedID.hashID(h)
+	n.Hash(h)
+	hashStringMap(h, n.Replacements)
+	if n.Container() {
+		hashContentsOf(h, n.Children)
+	}
+	hashThirdParty(h, n.ThirdParty)
+}
+
 func (n *NoteSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, n.MarkDown)
 	xhash.StringWithLen(h, n.PageRef)
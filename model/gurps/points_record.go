@@ -10,8 +10,11 @@
 package gurps
 
 import (
+	"hash"
+
 	"github.com/richardwilkes/gcs/v5/model/fxp"
 	"github.com/richardwilkes/gcs/v5/model/jio"
+	"github.com/richardwilkes/toolbox/v2/xhash"
 )
 
 // PointsRecord holds information about when and why points were adjusted.
@@ -30,3 +33,9 @@ func ClonePointsRecordList(list []*PointsRecord) []*PointsRecord {
 	}
 	return clone
 }
+
+func (p *PointsRecord) hashContents(h hash.Hash) {
+	hashTime(h, p.When)
+	xhash.Num64(h, p.Points)
+	xhash.StringWithLen(h, p.Reason)
+}
@@ -0,0 +1,168 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"iter"
+	"slices"
+
+	"github.com/richardwilkes/gcs/v5/model/criteria"
+	"github.com/richardwilkes/gcs/v5/model/gurps/enums/spellcmp"
+)
+
+// prereqIndex provides lookup of the nodes that prerequisites are checked against. It is built at the start of
+// Entity.processPrereqs() and is only valid until it returns, as nothing the index relies upon changes in between.
+type prereqIndex struct {
+	skills          foldIndex[*Skill]
+	allSkills       []*Skill
+	spellsByName    foldIndex[*Spell]
+	spellsByCollege foldIndex[*Spell]
+	spellsByTag     foldIndex[*Spell]
+	allSpells       []*Spell // Only those with points
+	traits          foldIndex[*Trait]
+	allTraits       []*Trait
+	equipment       foldIndex[*Equipment]
+	allEquipment    []*Equipment
+}
+
+// foldIndex maps case-folded keys to values. Values with keys that contain non-ASCII characters are kept aside, since
+// a lowercase comparison of those can disagree with strings.EqualFold(), and are offered as candidates for every
+// lookup.
+type foldIndex[T any] struct {
+	byKey    map[string][]T
+	nonASCII []T
+}
+
+func newPrereqIndex(e *Entity) *prereqIndex {
+	idx := &prereqIndex{}
+	for sk := range TraverseSeq(false, true, e.Skills...) {
+		idx.allSkills = append(idx.allSkills, sk)
+		idx.skills.add(sk, sk.NameWithReplacements())
+	}
+	for sp := range TraverseSeq(false, true, e.Spells...) {
+		if sp.AdjustedPoints(nil) == 0 {
+			continue
+		}
+		idx.allSpells = append(idx.allSpells, sp)
+		idx.spellsByName.add(sp, sp.NameWithReplacements())
+		idx.spellsByCollege.add(sp, sp.CollegeWithReplacements()...)
+		idx.spellsByTag.add(sp, sp.Tags...)
+	}
+	for t := range TraverseSeq(true, false, e.Traits...) {
+		idx.allTraits = append(idx.allTraits, t)
+		idx.traits.add(t, t.NameWithReplacements())
+	}
+	for eqp := range TraverseSeq(false, false, e.CarriedEquipment...) {
+		if !eqp.Equipped || eqp.Quantity <= 0 {
+			continue
+		}
+		idx.allEquipment = append(idx.allEquipment, eqp)
+		idx.equipment.add(eqp, eqp.NameWithReplacements())
+	}
+	return idx
+}
+
+// add the value under each of the keys. A value is added at most once per distinct key.
+func (f *foldIndex[T]) add(value T, keys ...string) {
+	folded := make([]string, 0, len(keys))
+	for _, key := range keys {
+		k, ok := asciiFoldKey(key)
+		if !ok {
+			f.nonASCII = append(f.nonASCII, value)
+			return
+		}
+		if !slices.Contains(folded, k) {
+			folded = append(folded, k)
+		}
+	}
+	if f.byKey == nil {
+		f.byKey = make(map[string][]T)
+	}
+	for _, k := range folded {
+		f.byKey[k] = append(f.byKey[k], value)
+	}
+}
+
+// candidates returns the values that may satisfy the matcher. Each value is returned at most once. 'all' must contain
+// every value in the index and is used when the matcher can't be resolved with a direct lookup. The caller is still
+// responsible for checking the full criteria.
+func (f *foldIndex[T]) candidates(m *criteria.Matcher, all []T) iter.Seq[T] {
+	return func(yield func(T) bool) {
+		if m.Compare() == criteria.IsText {
+			if key, ok := asciiFoldKey(m.Qualifier()); ok {
+				for _, one := range f.byKey[key] {
+					if !yield(one) {
+						return
+					}
+				}
+				for _, one := range f.nonASCII {
+					if !yield(one) {
+						return
+					}
+				}
+				return
+			}
+		}
+		for _, one := range all {
+			if !yield(one) {
+				return
+			}
+		}
+	}
+}
+
+// prereqSkills returns the skills (but not skill containers) that may satisfy a prerequisite with the given name
+// criteria.
+func (e *Entity) prereqSkills(name *criteria.Matcher) iter.Seq[*Skill] {
+	if e.prereqIndex == nil {
+		return TraverseSeq(false, true, e.Skills...)
+	}
+	return e.prereqIndex.skills.candidates(name, e.prereqIndex.allSkills)
+}
+
+// prereqSpells returns the spells with points that may satisfy a spell prerequisite of the given type and qualifier.
+func (e *Entity) prereqSpells(subType spellcmp.Type, qualifier *criteria.Matcher) iter.Seq[*Spell] {
+	if e.prereqIndex == nil {
+		return func(yield func(*Spell) bool) {
+			for sp := range TraverseSeq(false, true, e.Spells...) {
+				if sp.AdjustedPoints(nil) != 0 && !yield(sp) {
+					return
+				}
+			}
+		}
+	}
+	idx := e.prereqIndex
+	switch subType {
+	case spellcmp.Name:
+		return idx.spellsByName.candidates(qualifier, idx.allSpells)
+	case spellcmp.Tag:
+		return idx.spellsByTag.candidates(qualifier, idx.allSpells)
+	case spellcmp.College:
+		return idx.spellsByCollege.candidates(qualifier, idx.allSpells)
+	default:
+		return slices.Values(idx.allSpells)
+	}
+}
+
+// prereqTraits returns the enabled traits that may satisfy a prerequisite with the given name criteria.
+func (e *Entity) prereqTraits(name *criteria.Matcher) iter.Seq[*Trait] {
+	if e.prereqIndex == nil {
+		return TraverseSeq(true, false, e.Traits...)
+	}
+	return e.prereqIndex.traits.candidates(name, e.prereqIndex.allTraits)
+}
+
+// prereqEquipment returns the carried equipment that may satisfy a prerequisite with the given name criteria.
+func (e *Entity) prereqEquipment(name *criteria.Matcher) iter.Seq[*Equipment] {
+	if e.prereqIndex == nil {
+		return TraverseSeq(false, false, e.CarriedEquipment...)
+	}
+	return e.prereqIndex.equipment.candidates(name, e.prereqIndex.allEquipment)
+}
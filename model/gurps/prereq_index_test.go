@@ -0,0 +1,64 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"fmt"
+	"testing"
+
+	"github.com/richardwilkes/gcs/v5/model/criteria"
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+	"github.com/richardwilkes/gcs/v5/model/gurps/enums/spellcmp"
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestSpellPrereqIndexMatchesScan(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	for _, def := range []struct {
+		name     string
+		colleges []string
+		tags     []string
+		points   fxp.Int
+	}{
+		{name: "Light", colleges: []string{"Light & Darkness"}, tags: []string{"Basic"}, points: fxp.One},
+		{name: "Continual Light", colleges: []string{"Light & Darkness"}, points: fxp.Two},
+		{name: "Darkness", colleges: []string{"Light & Darkness", "light & darkness"}, points: fxp.One},
+		{name: "Ignite Fire", colleges: []string{"Fire"}, tags: []string{"basic", "BASIC"}, points: fxp.One},
+		{name: "Create Fire", colleges: []string{"Fire"}},
+		{name: "Sense Foes", colleges: []string{"Communication & Empathy", "Feuer"}, points: fxp.One},
+		{name: "Lúz", colleges: []string{"Ñ"}, tags: []string{"Básico"}, points: fxp.One},
+	} {
+		sp := NewSpell(e, nil, false)
+		sp.Name = def.name
+		sp.College = def.colleges
+		sp.Tags = def.tags
+		sp.Points = def.points
+		e.Spells = append(e.Spells, sp)
+	}
+	for _, subType := range spellcmp.Types {
+		for _, compare := range []criteria.StringComparison{criteria.IsText, criteria.StartsWithText, criteria.IsNotText} {
+			for _, qualifier := range []string{"light", "LIGHT & DARKNESS", "fire", "Basic", "ñ", "básico", "lúz", "none"} {
+				for _, quantity := range []fxp.Int{fxp.One, fxp.Two, fxp.Three} {
+					p := NewSpellPrereq()
+					p.SubType = subType
+					p.QualifierCriteria.Compare = compare
+					p.QualifierCriteria.Qualifier = qualifier
+					p.QuantityCriteria.Qualifier = quantity
+					scanned := p.Satisfied(e, nil, nil, "", nil)
+					e.prereqIndex = newPrereqIndex(e)
+					indexed := p.Satisfied(e, nil, nil, "", nil)
+					e.prereqIndex = nil
+					c.Equal(scanned, indexed, fmt.Sprintf("%v %v %q %v", subType, compare, qualifier, quantity))
+				}
+			}
+		}
+	}
+}
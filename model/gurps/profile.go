@@ -10,6 +10,7 @@
 package gurps
 
 import (
+	"hash"
 	"net/http"
 	"os"
 	"strconv"
@@ -18,6 +19,7 @@ import (
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/stlimit"
 	"github.com/richardwilkes/toolbox/v2/errs"
 	"github.com/richardwilkes/toolbox/v2/geom"
+	"github.com/richardwilkes/toolbox/v2/xhash"
 	"github.com/richardwilkes/unison"
 )
 
@@ -135,3 +137,24 @@ func (p *Profile) ApplyRandomizers(entity *Entity) {
 	p.Name = a.RandomName(AvailableNameGenerators(globalSettings.Libraries()), p.Gender)
 	p.Birthday = generalSettings.CalendarRef(globalSettings.Libraries()).RandomBirthday(p.Birthday)
 }
+
+func (p *Profile) hashContents(h hash.Hash) {
+	xhash.StringWithLen(h, p.Name)
+	xhash.StringWithLen(h, p.Age)
+	xhash.StringWithLen(h, p.Birthday)
+	xhash.StringWithLen(h, p.Eyes)
+	xhash.StringWithLen(h, p.Hair)
+	xhash.StringWithLen(h, p.Skin)
+	xhash.StringWithLen(h, p.Handedness)
+	xhash.StringWithLen(h, p.Gender)
+	xhash.Num64(h, p.Height)
+	xhash.Num64(h, p.Weight)
+	xhash.StringWithLen(h, p.PlayerName)
+	xhash.StringWithLen(h, p.Title)
+	xhash.StringWithLen(h, p.Organization)
+	xhash.StringWithLen(h, p.Religion)
+	xhash.StringWithLen(h, p.TechLevel)
+	xhash.Num64(h, len(p.PortraitData))
+	_, _ = h.Write(p.PortraitData)
+	xhash.Num64(h, p.SizeModifier)
+}
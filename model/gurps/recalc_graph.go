@@ -0,0 +1,164 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+// recalcGraph holds the dependencies between the skills & spells of an Entity. It is built once at the start of
+// Entity.Recalculate() and allows the passes after the first to re-evaluate only those nodes that are downstream of a
+// change made by the prior pass.
+type recalcGraph struct {
+	index            *skillIndex
+	skills           []*Skill
+	spells           []*Spell
+	ritualSpells     []*Spell
+	dependents       map[*Skill][]*Skill
+	featureSkills    map[*Skill]bool
+	prereqsUseLevels bool
+}
+
+func newRecalcGraph(e *Entity) *recalcGraph {
+	g := &recalcGraph{
+		dependents:    make(map[*Skill][]*Skill),
+		featureSkills: make(map[*Skill]bool),
+	}
+	for s := range TraverseSeq(false, true, e.Skills...) {
+		g.skills = append(g.skills, s)
+		if len(s.Features) != 0 {
+			g.featureSkills[s] = true
+		}
+		g.checkPrereqs(s.Prereq)
+	}
+	g.index = newSkillIndex(g.skills)
+	for _, s := range g.skills {
+		if s.IsTechnique() {
+			g.addDependent(s, s.TechniqueDefault)
+		} else {
+			for _, def := range s.Defaults {
+				g.addDependent(s, def)
+			}
+		}
+	}
+	for s := range TraverseSeq(false, true, e.Spells...) {
+		g.spells = append(g.spells, s)
+		if s.IsRitualMagic() {
+			g.ritualSpells = append(g.ritualSpells, s)
+		}
+		g.checkPrereqs(s.Prereq)
+	}
+	for t := range TraverseSeq(true, false, e.Traits...) {
+		g.checkPrereqs(t.Prereq)
+	}
+	for _, list := range [][]*Equipment{e.CarriedEquipment, e.OtherEquipment} {
+		for eqp := range TraverseSeq(false, false, list...) {
+			g.checkPrereqs(eqp.Prereq)
+		}
+	}
+	return g
+}
+
+func (g *recalcGraph) addDependent(s *Skill, def *SkillDefault) {
+	if def == nil || !def.SkillBased() {
+		return
+	}
+	// Matching on the name alone is intentional: a default without a specialization matches all of them, and being
+	// over-inclusive here only costs an extra level calculation.
+	g.index.candidates(def.NameWithReplacements(s.Replacements), func(base *skillIndexEntry) {
+		if base.skill != s {
+			g.dependents[base.skill] = append(g.dependents[base.skill], s)
+		}
+	})
+}
+
+func (g *recalcGraph) checkPrereqs(list *PrereqList) {
+	if !g.prereqsUseLevels && prereqListUsesLevels(list) {
+		g.prereqsUseLevels = true
+	}
+}
+
+func prereqListUsesLevels(list *PrereqList) bool {
+	if list == nil {
+		return false
+	}
+	for _, one := range list.Prereqs {
+		switch p := one.(type) {
+		case *PrereqList:
+			if prereqListUsesLevels(p) {
+				return true
+			}
+		case *SkillPrereq, *SpellPrereq:
+			return true
+		}
+	}
+	return false
+}
+
+// updateAll updates the levels of all skills & spells, returning the skills whose level changed and whether any spell
+// level changed.
+func (g *recalcGraph) updateAll() (changedSkills []*Skill, spellsChanged bool) {
+	for _, s := range g.skills {
+		if s.UpdateLevel() {
+			changedSkills = append(changedSkills, s)
+		}
+	}
+	for _, s := range g.spells {
+		if s.UpdateLevel() {
+			spellsChanged = true
+		}
+	}
+	return changedSkills, spellsChanged
+}
+
+// updateDependents updates the levels of only those skills & spells that depend, directly or indirectly, upon the
+// provided skills, returning the skills whose level changed and whether any spell level changed.
+func (g *recalcGraph) updateDependents(changed []*Skill) (changedSkills []*Skill, spellsChanged bool) {
+	if len(changed) == 0 {
+		return nil, false
+	}
+	affected := make(map[*Skill]bool)
+	pending := append([]*Skill(nil), changed...)
+	for len(pending) != 0 {
+		s := pending[len(pending)-1]
+		pending = pending[:len(pending)-1]
+		for _, dep := range g.dependents[s] {
+			if !affected[dep] {
+				affected[dep] = true
+				pending = append(pending, dep)
+			}
+		}
+	}
+	// Walk the full list rather than the affected set so that the evaluation order matches that of updateAll().
+	for _, s := range g.skills {
+		if affected[s] && s.UpdateLevel() {
+			changedSkills = append(changedSkills, s)
+		}
+	}
+	for _, s := range g.ritualSpells {
+		if s.UpdateLevel() {
+			spellsChanged = true
+		}
+	}
+	return changedSkills, spellsChanged
+}
+
+// requiresFullPass returns true if the features & prerequisites may have been affected by the changes, which means
+// everything needs to be re-evaluated.
+func (g *recalcGraph) requiresFullPass(e *Entity, changedSkills []*Skill, spellsChanged bool) bool {
+	if e.scriptsReadSkillsOrSpells {
+		return true
+	}
+	if g.prereqsUseLevels && (len(changedSkills) != 0 || spellsChanged) {
+		return true
+	}
+	for _, s := range changedSkills {
+		if g.featureSkills[s] {
+			return true
+		}
+	}
+	return false
+}
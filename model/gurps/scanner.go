@@ -13,6 +13,7 @@ import (
 	"io/fs"
 	"os"
 	"path"
+	"path/filepath"
 	"slices"
 	"strings"
 
@@ -26,6 +27,7 @@ type NamedFileRef struct {
 	Name       string
 	FileSystem fs.FS
 	FilePath   string
+	diskPath   string
 }
 
 func (n *NamedFileRef) String() string {
@@ -43,7 +45,8 @@ func ScanForNamedFileSets(builtIn fs.FS, builtInDir string, omitDuplicateNames b
 	set := make(map[string]bool)
 	list := make([]*NamedFileSet, 0)
 	for _, lib := range libraries.List() {
-		if refs := scanForNamedFileSets(os.DirFS(lib.Path()), "Settings", extensions, omitDuplicateNames, set); len(refs) != 0 {
+		libPath := lib.Path()
+		if refs := scanForNamedFileSets(os.DirFS(libPath), libPath, "Settings", extensions, omitDuplicateNames, set); len(refs) != 0 {
 			list = append(list, &NamedFileSet{
 				Name: lib.Title,
 				List: refs,
@@ -51,7 +54,7 @@ func ScanForNamedFileSets(builtIn fs.FS, builtInDir string, omitDuplicateNames b
 		}
 	}
 	if builtIn != nil {
-		if refs := scanForNamedFileSets(builtIn, builtInDir, extensions, omitDuplicateNames, set); len(refs) != 0 {
+		if refs := scanForNamedFileSets(builtIn, "", builtInDir, extensions, omitDuplicateNames, set); len(refs) != 0 {
 			list = append(list, &NamedFileSet{
 				Name: i18n.Text("Built-in"),
 				List: refs,
@@ -61,7 +64,7 @@ func ScanForNamedFileSets(builtIn fs.FS, builtInDir string, omitDuplicateNames b
 	return list
 }
 
-func scanForNamedFileSets(fileSystem fs.FS, dirPath string, extensions []string, omitDuplicateNames bool, set map[string]bool) []*NamedFileRef {
+func scanForNamedFileSets(fileSystem fs.FS, root, dirPath string, extensions []string, omitDuplicateNames bool, set map[string]bool) []*NamedFileRef {
 	extMap := make(map[string]bool, len(extensions))
 	for _, ext := range extensions {
 		extMap[strings.ToLower(ext)] = true
@@ -82,11 +85,15 @@ func scanForNamedFileSets(fileSystem fs.FS, dirPath string, extensions []string,
 			shortName := xfilepath.TrimExtension(name)
 			if shortLowerName := strings.ToLower(shortName); !omitDuplicateNames || !set[shortLowerName] {
 				set[shortLowerName] = true
-				list = append(list, &NamedFileRef{
+				ref := &NamedFileRef{
 					Name:       shortName,
 					FileSystem: fileSystem,
 					FilePath:   p,
-				})
+				}
+				if root != "" {
+					ref.diskPath = filepath.Join(root, filepath.FromSlash(p))
+				}
+				list = append(list, ref)
 			}
 		}
 		return nil
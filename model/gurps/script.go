@@ -16,7 +16,6 @@ import (
 	"fmt"
 	"log/slog"
 	"math"
-	"regexp"
 	"strings"
 	"sync"
 	"time"
@@ -29,29 +28,25 @@ import (
 	"github.com/richardwilkes/toolbox/v2/tid"
 )
 
+// maxCachedScripts is the maximum number of compiled scripts to retain.
+const maxCachedScripts = 4096
+
 var (
-	scriptStart         = "<script>"
-	scriptEnd           = "</script>"
-	embeddedScriptRegex = regexp.MustCompile(`(?s)` + scriptStart + `.*?` + scriptEnd)
-	scriptCache         = make(map[string]*goja.Program)
-	globalResolveCache  = make(map[scriptResolveKey]string)
-	vmPool              = sync.Pool{New: func() any {
-		vm := goja.New()
-		vm.SetFieldNameMapper(scriptNameMapper{})
-		vm.SetParserOptions(parser.WithDisableSourceMaps)
-		mustSet(vm, "console", scriptConsole{})
-		mustSet(vm, "dice", scriptDice{})
-		mustSet(vm, "iff", scriptIff)
-		mustSet(vm, "measure", scriptMeasurement{})
-		mustSet(vm, "Math.exp2", math.Exp2)
-		mustSet(vm, "signedValue", scriptSigned)
-		mustSet(vm, "formatNum", scriptFormatNum)
-		return vm
-	}}
+	scriptStart        = "<script>"
+	scriptEnd          = "</script>"
+	scriptPrograms     = newScriptLRU[*goja.Program](maxCachedScripts)
+	globalResolveCache = &scriptResultCache{}
+	globalResolveGen   = uint64(1)
+	detachedResolving  = make(map[any]struct{})
+	vmPool             = sync.Pool{New: func() any { return newScriptRuntime() }}
 )
 
+// globalResolveLock guards the global resolve cache and the tracking of scripts being resolved without an entity.
+var globalResolveLock sync.Mutex
+
 // ScriptSelfProvider is a provider for the "self" variable in scripts.
 type ScriptSelfProvider struct {
+	owner    any
 	ID       tid.TID
 	Provider func() any
 }
@@ -64,6 +59,14 @@ func (s ScriptSelfProvider) ResolveID() tid.TID {
 	return s.ID
 }
 
+// detachedKey returns the key used to track resolution of the script when it has no entity.
+func (s ScriptSelfProvider) detachedKey() any {
+	if s.owner != nil {
+		return s.owner
+	}
+	return s.ID
+}
+
 type scriptResolveKey struct {
 	id   tid.TID
 	text string
@@ -75,11 +78,26 @@ type ScriptArg struct {
 	Value any
 }
 
-// DiscardGlobalResolveCache clears the global resolve cache.
+// DiscardGlobalResolveCache discards the results in the global resolve cache that may no longer be valid.
 func DiscardGlobalResolveCache() {
-	if len(globalResolveCache) != 0 {
-		globalResolveCache = make(map[scriptResolveKey]string)
-	}
+	globalResolveLock.Lock()
+	defer globalResolveLock.Unlock()
+	globalResolveGen++
+	globalResolveCache.discard()
+}
+
+func newScriptRuntime() *goja.Runtime {
+	vm := goja.New()
+	vm.SetFieldNameMapper(scriptNameMapper{})
+	vm.SetParserOptions(parser.WithDisableSourceMaps)
+	mustSet(vm, "console", scriptConsole{})
+	mustSet(vm, "dice", scriptDice{})
+	mustSet(vm, "iff", scriptIff)
+	mustSet(vm, "measure", scriptMeasurement{})
+	mustSet(vm, "Math.exp2", math.Exp2)
+	mustSet(vm, "signedValue", scriptSigned)
+	mustSet(vm, "formatNum", scriptFormatNum)
+	return vm
 }
 
 func mustSet(vm *goja.Runtime, name string, value any) {
@@ -115,9 +133,28 @@ func scriptFormatNum(value float64, withCommas, withSign bool) string {
 
 // ResolveText will process embedded scripts.
 func ResolveText(entity *Entity, selfProvider ScriptSelfProvider, text string) string {
-	return embeddedScriptRegex.ReplaceAllStringFunc(text, func(s string) string {
-		return resolveScript(entity, selfProvider, s[len(scriptStart):len(s)-len(scriptEnd)])
-	})
+	start := strings.Index(text, scriptStart)
+	if start == -1 {
+		return text
+	}
+	var buffer strings.Builder
+	remaining := text
+	for start != -1 {
+		end := strings.Index(remaining[start+len(scriptStart):], scriptEnd)
+		if end == -1 {
+			break
+		}
+		end += start + len(scriptStart)
+		buffer.WriteString(remaining[:start])
+		buffer.WriteString(resolveScript(entity, selfProvider, remaining[start+len(scriptStart):end]))
+		remaining = remaining[end+len(scriptEnd):]
+		start = strings.Index(remaining, scriptStart)
+	}
+	if buffer.Len() == 0 && len(remaining) == len(text) {
+		return text
+	}
+	buffer.WriteString(remaining)
+	return buffer.String()
 }
 
 // ResolveToNumber resolves the text to a fixed-point number. If the text is just a number, that value is returned,
@@ -160,62 +197,151 @@ func ResolveToWeight(entity *Entity, selfProvider ScriptSelfProvider, text strin
 	return w
 }
 
-var scriptIDsResolving = make(map[string]struct{})
-
 func resolveScript(entity *Entity, selfProvider ScriptSelfProvider, text string) string {
-	var resolveCache map[scriptResolveKey]string
-	if entity == nil {
-		resolveCache = globalResolveCache
-	} else {
-		resolveCache = entity.scriptCache
-	}
 	key := scriptResolveKey{id: selfProvider.ResolveID(), text: text}
-	if cached, exists := resolveCache[key]; exists {
+	if entity == nil {
+		globalResolveLock.Lock()
+		cached, exists := globalResolveCache.lookup(key, nil, globalResolveGen)
+		globalResolveLock.Unlock()
+		if exists {
+			recordScriptCacheHit(text)
+			return cached
+		}
+	} else if cached, exists := entity.scriptCache.lookup(key, entity, entity.cacheGeneration); exists {
+		recordScriptCacheHit(text)
 		return cached
 	}
 	if id := string(selfProvider.ID); id != "" {
-		if _, exists := scriptIDsResolving[id]; exists {
+		if !enterScriptResolution(entity, selfProvider) {
 			return "script contains circular reference to ID " + id
 		}
-		scriptIDsResolving[id] = struct{}{}
-		defer delete(scriptIDsResolving, id)
+		defer leaveScriptResolution(entity, selfProvider)
 	}
-	var result string
-	maxTime := GlobalSettings().General.PermittedPerScriptExecTime
-	args := []ScriptArg{{Name: "entity", Value: newScriptEntity(entity)}}
-	if selfProvider.Provider != nil {
-		args = append(args, ScriptArg{Name: "self", Value: selfProvider.Provider})
+	var inputs scriptInputs
+	if provider := selfProvider.Provider; provider != nil {
+		// The contents of "self" aren't tracked, so reading it limits the result to the current cache generation
+		selfProvider.Provider = func() any {
+			inputs.untracked = true
+			inputs.list = nil
+			return provider()
+		}
 	}
+	randomCalls := scriptRandomCalls.Load()
+	var priorInputs *scriptInputs
 	if entity != nil {
-		list := entity.Attributes.List()
-		for _, attr := range list {
-			if def := attr.AttributeDef(); def != nil {
-				if def.IsSeparator() {
-					continue
-				}
-				args = append(args, ScriptArg{
-					Name:  "$" + attr.AttrID,
-					Value: func() any { return newScriptAttribute(attr) },
-				})
-			}
+		priorInputs = entity.scriptInputs
+		entity.scriptInputs = &inputs
+	}
+	started := scriptStatsStart()
+	result, ok := resolveFastScript(entity, text)
+	if !ok {
+		var failed bool
+		if result, failed = runScriptForResult(entity, selfProvider, text, &inputs); failed {
+			inputs.untracked = true
+		}
+	}
+	recordScriptExecution(text, started, ok)
+	if entity != nil {
+		entity.scriptInputs = priorInputs
+	}
+	if scriptRandomCalls.Load() != randomCalls {
+		inputs.untracked = true
+	}
+	if entity == nil {
+		globalResolveLock.Lock()
+		globalResolveCache.store(key, globalResolveGen, result, &inputs)
+		globalResolveLock.Unlock()
+	} else {
+		entity.scriptCache.store(key, entity.cacheGeneration, result, &inputs)
+	}
+	return result
+}
+
+// enterScriptResolution marks the script owned by the self provider as being resolved. Returns false if it already is,
+// which means the script refers to itself. Scripts of an entity are tracked by the entity, so that entities may be
+// evaluated concurrently. Scripts without an entity are tracked by their owner instead.
+func enterScriptResolution(entity *Entity, selfProvider ScriptSelfProvider) bool {
+	if entity != nil {
+		if _, exists := entity.scriptIDsResolving[selfProvider.ID]; exists {
+			return false
+		}
+		if entity.scriptIDsResolving == nil {
+			entity.scriptIDsResolving = make(map[tid.TID]struct{})
 		}
+		entity.scriptIDsResolving[selfProvider.ID] = struct{}{}
+		return true
+	}
+	key := selfProvider.detachedKey()
+	globalResolveLock.Lock()
+	defer globalResolveLock.Unlock()
+	if _, exists := detachedResolving[key]; exists {
+		return false
 	}
-	if v, err := RunScript(fxp.SecondsToDuration(maxTime), text, args...); err != nil {
+	detachedResolving[key] = struct{}{}
+	return true
+}
+
+func leaveScriptResolution(entity *Entity, selfProvider ScriptSelfProvider) {
+	if entity != nil {
+		delete(entity.scriptIDsResolving, selfProvider.ID)
+		return
+	}
+	globalResolveLock.Lock()
+	delete(detachedResolving, selfProvider.detachedKey())
+	globalResolveLock.Unlock()
+}
+
+// runScriptForResult runs the script in the Javascript runtime and returns its result as a string, along with true if
+// the script failed, in which case the result describes the failure. The inputs, if not nil, are those being collected
+// for the script.
+func runScriptForResult(entity *Entity, selfProvider ScriptSelfProvider, text string, inputs *scriptInputs) (result string, failed bool) {
+	maxTime := GlobalSettings().General.PermittedPerScriptExecTime
+	timeout := fxp.SecondsToDuration(maxTime)
+	var v goja.Value
+	var err error
+	if entity != nil {
+		v, err = entity.scriptSession().run(timeout, text, selfProvider.Provider)
+	} else {
+		v, err = RunScript(timeout, text, scriptArgs(nil, selfProvider.Provider, inputs)...)
+	}
+	if err != nil {
 		var interruptedErr *goja.InterruptedError
 		if errors.As(err, &interruptedErr) {
-			result = fmt.Sprintf(i18n.Text("script execution timed out (limited to %v seconds)"), maxTime)
-		} else {
-			result = err.Error()
+			recordScriptTimeout(text)
+			return fmt.Sprintf(i18n.Text("script execution timed out (limited to %v seconds)"), maxTime), true
 		}
-	} else {
-		if attr, ok := v.Export().(*scriptAttribute); ok {
-			result = fmt.Sprintf("%v", attr.ValueOf())
-		} else {
-			result = v.String()
+		return err.Error(), true
+	}
+	if attr, ok := v.Export().(*scriptAttribute); ok {
+		return fmt.Sprintf("%v", attr.ValueOf()), false
+	}
+	return v.String(), false
+}
+
+// scriptArgs returns the arguments for a script run on behalf of the entity, which may be nil. Without an entity, the
+// script entity carries the global sheet settings, whose changes aren't tracked, so reading it marks the inputs, if not
+// nil, as untracked.
+func scriptArgs(entity *Entity, self func() any, inputs *scriptInputs) []ScriptArg {
+	if entity == nil {
+		args := []ScriptArg{{Name: "entity", Value: func() any {
+			if inputs != nil {
+				inputs.untracked = true
+				inputs.list = nil
+			}
+			return newScriptEntity(nil)
+		}}}
+		if self != nil {
+			args = append(args, ScriptArg{Name: "self", Value: self})
 		}
+		return args
 	}
-	resolveCache[key] = result
-	return result
+	attrArgs := entity.scriptAttributeArgs()
+	args := make([]ScriptArg, 0, len(attrArgs)+2)
+	args = append(args, ScriptArg{Name: "entity", Value: entity.scriptEntity()})
+	if self != nil {
+		args = append(args, ScriptArg{Name: "self", Value: self})
+	}
+	return append(args, attrArgs...)
 }
 
 // RunScript compiles and runs a script with the provided arguments. A timeout of 0 or less means no timeout.
@@ -223,17 +349,9 @@ func resolveScript(entity *Entity, selfProvider ScriptSelfProvider, text string)
 // polluting the global scope. The arguments will be set as global variables in the script's context. The return value
 // is the result of the script execution, or an error if it fails.
 func RunScript(timeout time.Duration, text string, args ...ScriptArg) (goja.Value, error) {
-	program, exists := scriptCache[text]
-	if !exists {
-		jsBytes, err := json.Marshal(text)
-		if err != nil {
-			return nil, fmt.Errorf("failed to marshal script text: %w", err)
-		}
-		program, err = goja.Compile("", "(function() { 'use strict'; return eval("+string(jsBytes)+"); })();", true)
-		if err != nil {
-			return nil, fmt.Errorf("failed to compile script: %w", err)
-		}
-		scriptCache[text] = program
+	program, err := compileScript(text)
+	if err != nil {
+		return nil, err
 	}
 	vm, ok := vmPool.Get().(*goja.Runtime)
 	if !ok {
@@ -242,8 +360,8 @@ func RunScript(timeout time.Duration, text string, args ...ScriptArg) (goja.Valu
 	globals := vm.GlobalObject()
 	defer func() {
 		for _, arg := range args {
-			if err := globals.Delete(arg.Name); err != nil {
-				errs.LogWithLevel(context.Background(), slog.LevelWarn, nil, err, "name", arg.Name)
+			if deleteErr := globals.Delete(arg.Name); deleteErr != nil {
+				errs.LogWithLevel(context.Background(), slog.LevelWarn, nil, deleteErr, "name", arg.Name)
 			}
 		}
 		vm.ClearInterrupt()
@@ -252,7 +370,7 @@ func RunScript(timeout time.Duration, text string, args ...ScriptArg) (goja.Valu
 	for _, arg := range args {
 		if valueProvider, ok2 := arg.Value.(func() any); ok2 {
 			var cachedResult goja.Value
-			if err := globals.DefineAccessorProperty(arg.Name, vm.ToValue(func(_ goja.FunctionCall) goja.Value {
+			if err = globals.DefineAccessorProperty(arg.Name, vm.ToValue(func(_ goja.FunctionCall) goja.Value {
 				if cachedResult == nil {
 					cachedResult = vm.ToValue(valueProvider())
 				}
@@ -262,12 +380,33 @@ func RunScript(timeout time.Duration, text string, args ...ScriptArg) (goja.Valu
 			}
 			continue
 		}
-		if err := vm.Set(arg.Name, arg.Value); err != nil {
+		if err = vm.Set(arg.Name, arg.Value); err != nil {
 			return nil, fmt.Errorf("failed to set argument %q: %w", arg.Name, err)
 		}
 	}
 	if timeout > 0 {
-		defer time.AfterFunc(timeout, func() { vm.Interrupt("timeout") }).Stop()
+		var watch scriptWatch
+		watch.start(vm, timeout)
+		defer watch.stop()
 	}
 	return vm.RunProgram(program)
 }
+
+// compileScript returns the compiled form of the script, compiling it if it hasn't been seen before.
+func compileScript(text string) (*goja.Program, error) {
+	program, exists := scriptPrograms.get(text)
+	if !exists {
+		started := scriptStatsStart()
+		jsBytes, err := json.Marshal(text)
+		if err != nil {
+			return nil, fmt.Errorf("failed to marshal script text: %w", err)
+		}
+		program, err = goja.Compile("", "(function() { 'use strict'; return eval("+string(jsBytes)+"); })();", true)
+		if err != nil {
+			return nil, fmt.Errorf("failed to compile script: %w", err)
+		}
+		scriptPrograms.put(text, program)
+		recordScriptCompile(text, started)
+	}
+	return program, nil
+}
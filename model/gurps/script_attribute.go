@@ -10,6 +10,7 @@
 package gurps
 
 import (
+	"fmt"
 	"log/slog"
 
 	"github.com/richardwilkes/gcs/v5/model/fxp"
@@ -50,25 +51,47 @@ func newScriptAttribute(attr *Attribute) *scriptAttribute {
 		a.Current = fxp.AsFloat[float64](v)
 	}
 	if def := attr.AttributeDef(); def != nil {
-		switch def.Kind() {
-		case PrimaryAttrKind:
-			a.Kind = "primary"
-		case SecondaryAttrKind:
-			a.Kind = "secondary"
-		case PoolAttrKind:
-			a.Kind = "pool"
-		}
-		if def.Name == "" {
-			a.Name = def.FullName
-		} else {
-			a.Name = def.Name
-		}
-		a.FullName = def.ResolveFullName()
-		a.IsDecimal = def.AllowsDecimal()
+		a.setDefinition(def)
 	}
 	return &a
 }
 
+func (a *scriptAttribute) setDefinition(def *AttributeDef) {
+	switch def.Kind() {
+	case PrimaryAttrKind:
+		a.Kind = "primary"
+	case SecondaryAttrKind:
+		a.Kind = "secondary"
+	case PoolAttrKind:
+		a.Kind = "pool"
+	}
+	if def.Name == "" {
+		a.Name = def.FullName
+	} else {
+		a.Name = def.Name
+	}
+	a.FullName = def.ResolveFullName()
+	a.IsDecimal = def.AllowsDecimal()
+}
+
+// scriptAttributeDefinition returns a description of the parts of the attribute's script object that come from its
+// definition, so that changes to them can be detected.
+func scriptAttributeDefinition(entity *Entity, attrID string) string {
+	attr, exists := entity.Attributes.Set[attrID]
+	if !exists {
+		return ""
+	}
+	a := scriptAttribute{
+		Kind:     unknown,
+		Name:     unknown,
+		FullName: unknown,
+	}
+	if def := attr.AttributeDef(); def != nil {
+		a.setDefinition(def)
+	}
+	return fmt.Sprintf("%s\x00%s\x00%s\x00%t", a.Kind, a.Name, a.FullName, a.IsDecimal)
+}
+
 func (a *scriptAttribute) ValueOf() float64 {
 	return a.Maximum
 }
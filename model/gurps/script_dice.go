@@ -104,5 +104,6 @@ func (d scriptDice) Multiplier(diceSpec string) int {
 }
 
 func (d scriptDice) Roll(diceSpec string, extraDiceFromModifiers bool) int {
+	scriptRandomCalls.Add(1)
 	return dice.Roll(diceSpec, extraDiceFromModifiers)
 }
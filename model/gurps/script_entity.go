@@ -10,6 +10,9 @@
 package gurps
 
 import (
+	"fmt"
+	"slices"
+	"strconv"
 	"strings"
 
 	"github.com/richardwilkes/gcs/v5/model/fxp"
@@ -38,6 +41,74 @@ type scriptEntity struct {
 	SizeModifier           int
 	ExtraDiceFromModifiers bool
 	Exists                 bool
+	skills                 []*scriptSkill
+	spells                 []*scriptSpell
+	traits                 []*scriptTrait
+	equipment              []*scriptEquipment
+}
+
+// scriptEntityData holds the script wrappers for an Entity, which are re-used until the Entity's caches are discarded.
+type scriptEntityData struct {
+	entity     *scriptEntity
+	fields     string
+	attrArgs   []ScriptArg
+	generation uint64
+	valid      bool
+}
+
+// scriptWrappers returns the script wrappers for the current cache generation.
+func (e *Entity) scriptWrappers() *scriptEntityData {
+	d := &e.scriptData
+	if !d.valid || d.generation != e.cacheGeneration || e.cacheGeneration == 0 {
+		*d = scriptEntityData{generation: e.cacheGeneration, valid: true}
+	}
+	return d
+}
+
+// scriptEntity returns the script wrapper for the Entity.
+func (e *Entity) scriptEntity() *scriptEntity {
+	d := e.scriptWrappers()
+	if d.entity == nil {
+		d.entity = newScriptEntity(e)
+	}
+	return d.entity
+}
+
+// scriptEntityFields returns a string representation of the fields of the Entity's script wrapper, for comparison
+// purposes.
+func (e *Entity) scriptEntityFields() string {
+	d := e.scriptWrappers()
+	if d.fields == "" {
+		fields := *e.scriptEntity()
+		fields.entity = nil
+		fields.skills = nil
+		fields.spells = nil
+		fields.traits = nil
+		fields.equipment = nil
+		d.fields = fmt.Sprintf("%v", fields)
+	}
+	return d.fields
+}
+
+// scriptAttributeArgs returns the script arguments for the Entity's attributes.
+func (e *Entity) scriptAttributeArgs() []ScriptArg {
+	d := e.scriptWrappers()
+	if d.attrArgs == nil {
+		list := e.Attributes.List()
+		d.attrArgs = make([]ScriptArg, 0, len(list))
+		for _, attr := range list {
+			if def := attr.AttributeDef(); def != nil {
+				if def.IsSeparator() {
+					continue
+				}
+				d.attrArgs = append(d.attrArgs, ScriptArg{
+					Name:  "$" + attr.AttrID,
+					Value: func() any { return newScriptAttribute(attr) },
+				})
+			}
+		}
+	}
+	return d.attrArgs
 }
 
 func newScriptEntity(entity *Entity) *scriptEntity {
@@ -74,6 +145,7 @@ func (e *scriptEntity) Attributes() []*scriptAttribute {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
 	list := e.entity.Attributes.List()
 	attrs := make([]*scriptAttribute, 0, len(list))
 	for _, attr := range list {
@@ -91,6 +163,7 @@ func (e *scriptEntity) Attribute(idOrName string) *scriptAttribute {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
 	if attr := e.entity.Attributes.Find(idOrName); attr != nil {
 		return newScriptAttribute(attr)
 	}
@@ -101,19 +174,23 @@ func (e *scriptEntity) Traits() []*scriptTrait {
 	if e.entity == nil {
 		return nil
 	}
-	traits := make([]*scriptTrait, 0, len(e.entity.Traits))
-	for _, trait := range e.entity.Traits {
-		if trait.Enabled() {
-			traits = append(traits, newScriptTrait(trait))
+	e.entity.recordUntrackedScriptInput()
+	if e.traits == nil {
+		e.traits = make([]*scriptTrait, 0, len(e.entity.Traits))
+		for _, trait := range e.entity.Traits {
+			if trait.Enabled() {
+				e.traits = append(e.traits, newScriptTrait(trait))
+			}
 		}
 	}
-	return traits
+	return slices.Clone(e.traits)
 }
 
 func (e *scriptEntity) FindTraits(name, tag string) []*scriptTrait {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
 	return findScriptTraits(name, tag, e.entity.Traits...)
 }
 
@@ -130,6 +207,7 @@ func (e *scriptEntity) HasTrait(name string) bool {
 		}
 		return false
 	}, true, false, e.entity.Traits...)
+	e.entity.recordScriptInput(scriptInput{kind: hasTraitScriptInput, name: name, value: strconv.FormatBool(found)})
 	return found
 }
 
@@ -151,26 +229,38 @@ func (e *scriptEntity) TraitLevel(name string) float64 {
 		}
 		return false
 	}, true, true, e.entity.Traits...)
-	return fxp.AsFloat[float64](level)
+	result := fxp.AsFloat[float64](level)
+	e.entity.recordScriptInput(scriptInput{
+		kind:  traitLevelScriptInput,
+		name:  name,
+		value: strconv.FormatFloat(result, 'g', -1, 64),
+	})
+	return result
 }
 
 func (e *scriptEntity) Skills() []*scriptSkill {
 	if e.entity == nil {
 		return nil
 	}
-	skills := make([]*scriptSkill, 0, len(e.entity.Skills))
-	for _, skill := range e.entity.Skills {
-		if skill.Enabled() {
-			skills = append(skills, newScriptSkill(e.entity, skill))
+	e.entity.recordUntrackedScriptInput()
+	e.entity.scriptsReadSkillsOrSpells = true
+	if e.skills == nil {
+		e.skills = make([]*scriptSkill, 0, len(e.entity.Skills))
+		for _, skill := range e.entity.Skills {
+			if skill.Enabled() {
+				e.skills = append(e.skills, newScriptSkill(e.entity, skill))
+			}
 		}
 	}
-	return skills
+	return slices.Clone(e.skills)
 }
 
 func (e *scriptEntity) FindSkills(name, specialization, tag string) []*scriptSkill {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
+	e.entity.scriptsReadSkillsOrSpells = true
 	return findScriptSkills(e.entity, name, specialization, tag, e.entity.Skills...)
 }
 
@@ -178,9 +268,11 @@ func (e *scriptEntity) SkillLevel(name, specialization string, relative bool) in
 	if e.entity == nil {
 		return 0
 	}
+	e.entity.scriptsReadSkillsOrSpells = true
 	name = strings.TrimSpace(name)
 	specialization = strings.TrimSpace(specialization)
 	if e.entity.isSkillLevelResolutionExcluded(name, specialization) {
+		e.entity.recordUntrackedScriptInput()
 		return 0
 	}
 	e.entity.registerSkillLevelResolutionExclusion(name, specialization)
@@ -199,6 +291,13 @@ func (e *scriptEntity) SkillLevel(name, specialization string, relative bool) in
 		}
 		return false
 	}, true, true, e.entity.Skills...)
+	e.entity.recordScriptInput(scriptInput{
+		kind:           skillLevelScriptInput,
+		name:           name,
+		specialization: specialization,
+		value:          strconv.Itoa(level),
+		flag:           relative,
+	})
 	return level
 }
 
@@ -206,19 +305,25 @@ func (e *scriptEntity) Spells() []*scriptSpell {
 	if e.entity == nil {
 		return nil
 	}
-	spells := make([]*scriptSpell, 0, len(e.entity.Spells))
-	for _, spell := range e.entity.Spells {
-		if spell.Enabled() {
-			spells = append(spells, newScriptSpell(e.entity, spell))
+	e.entity.recordUntrackedScriptInput()
+	e.entity.scriptsReadSkillsOrSpells = true
+	if e.spells == nil {
+		e.spells = make([]*scriptSpell, 0, len(e.entity.Spells))
+		for _, spell := range e.entity.Spells {
+			if spell.Enabled() {
+				e.spells = append(e.spells, newScriptSpell(e.entity, spell))
+			}
 		}
 	}
-	return spells
+	return slices.Clone(e.spells)
 }
 
 func (e *scriptEntity) FindSpells(name, tag string) []*scriptSpell {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
+	e.entity.scriptsReadSkillsOrSpells = true
 	return findScriptSpells(e.entity, name, tag, e.entity.Spells...)
 }
 
@@ -226,23 +331,28 @@ func (e *scriptEntity) Equipment() []*scriptEquipment {
 	if e.entity == nil {
 		return nil
 	}
-	items := make([]*scriptEquipment, 0, len(e.entity.CarriedEquipment))
-	for _, item := range e.entity.CarriedEquipment {
-		if item.Quantity > 0 {
-			items = append(items, newScriptEquipment(item))
+	e.entity.recordUntrackedScriptInput()
+	if e.equipment == nil {
+		e.equipment = make([]*scriptEquipment, 0, len(e.entity.CarriedEquipment))
+		for _, item := range e.entity.CarriedEquipment {
+			if item.Quantity > 0 {
+				e.equipment = append(e.equipment, newScriptEquipment(item))
+			}
 		}
 	}
-	return items
+	return slices.Clone(e.equipment)
 }
 
 func (e *scriptEntity) FindEquipment(name, tag string) []*scriptEquipment {
 	if e.entity == nil {
 		return nil
 	}
+	e.entity.recordUntrackedScriptInput()
 	return findScriptEquipment(name, tag, e.entity.CarriedEquipment...)
 }
 
 func (e *scriptEntity) Encumbrance() scriptEncumbrance {
+	e.entity.recordUntrackedScriptInput()
 	return newScriptEncumbrance(e.entity)
 }
 
@@ -251,6 +361,7 @@ func (e *scriptEntity) CurrentEncumbrance(forSkills, returnMoveFactor bool) floa
 		return 0
 	}
 	level := int(e.entity.EncumbranceLevel(forSkills))
+	e.entity.recordScriptInput(scriptInput{kind: encumbranceScriptInput, value: strconv.Itoa(level), flag: forSkills})
 	if returnMoveFactor {
 		return fxp.AsFloat[float64](fxp.One - fxp.FromInteger(level).Mul(fxp.Two).Div(fxp.Ten))
 	}
@@ -261,6 +372,8 @@ func (e *scriptEntity) WeaponDamage(name, usage string) string {
 	if e.entity == nil {
 		return ""
 	}
+	e.entity.recordUntrackedScriptInput()
+	e.entity.scriptsReadSkillsOrSpells = true
 	for _, w := range e.entity.Weapons(true, false) {
 		if strings.EqualFold(w.String(), name) && strings.EqualFold(w.UsageWithReplacements(), usage) {
 			return w.Damage.ResolvedDamage(nil)
@@ -276,6 +389,7 @@ func (e *scriptEntity) WeaponDamage(name, usage string) string {
 
 // RandomHeightInInches returns a height in inches based on the given strength using the chart from B18.
 func (e *scriptEntity) RandomHeightInInches(st int) int {
+	scriptRandomCalls.Add(1)
 	r := xrand.New()
 	return 68 + (st-10)*2 + (r.Intn(6) + 1) - (r.Intn(6) + 1)
 }
@@ -285,6 +399,7 @@ func (e *scriptEntity) RandomHeightInInches(st int) int {
 // towards a lighter value if negative and a heavier value if positive, similar to having one of the traits Skinny,
 // Overweight, Fat, and Very Fat applied, but is additive to them.
 func (e *scriptEntity) RandomWeightInPounds(st, shift int) int {
+	scriptRandomCalls.Add(1)
 	shift += 3 // Average
 	if e.entity != nil {
 		skinny := false
@@ -53,6 +53,7 @@ func DeferredNewScriptEquipment(equipment *Equipment) ScriptSelfProvider {
 		return ScriptSelfProvider{}
 	}
 	return ScriptSelfProvider{
+		owner:    equipment,
 		ID:       equipment.TID,
 		Provider: func() any { return newScriptEquipment(equipment) },
 	}
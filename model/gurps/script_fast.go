@@ -0,0 +1,957 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"fmt"
+	"math"
+	"strconv"
+	"strings"
+
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+)
+
+var fastScripts = newScriptLRU[fastScript](maxCachedScripts)
+
+// fastScript is a script compiled to native code. Only the subset of the script language that most embedded scripts
+// use is supported: arithmetic, comparison, logical & ternary operators over numbers, strings and booleans, attribute
+// references, the standard Math functions & constants, the iff(), formatNum() & signedValue() built-ins, and the
+// numeric properties of entity. Anything else is left to the Javascript runtime. Evaluation returns false when the
+// result would depend on behavior not replicated here, such as referencing an attribute that doesn't exist, in which
+// case the script should also be left to the Javascript runtime, so that it can produce its usual result.
+type fastScript func(entity *Entity) (fastValue, bool)
+
+type fastKind uint8
+
+const (
+	fastNumber fastKind = iota
+	fastString
+	fastBool
+	fastAttribute // A number that came directly from an attribute reference
+)
+
+type fastValue struct {
+	str  string
+	num  float64
+	kind fastKind
+}
+
+type fastTokenKind uint8
+
+const (
+	fastEOFToken fastTokenKind = iota
+	fastNumberToken
+	fastStringToken
+	fastIdentToken
+	fastPunctToken
+)
+
+type fastToken struct {
+	text string
+	num  float64
+	kind fastTokenKind
+}
+
+type fastScriptParser struct {
+	input string
+	tok   fastToken
+	pos   int
+}
+
+type fastMathFunc struct {
+	f     func(args []float64) float64
+	arity int // -1 for any number of arguments
+}
+
+var (
+	fastMathConstants = map[string]float64{
+		"E":  math.E,
+		"PI": math.Pi,
+	}
+	fastMathFuncs = map[string]fastMathFunc{
+		"abs":   {arity: 1, f: func(args []float64) float64 { return math.Abs(args[0]) }},
+		"cbrt":  {arity: 1, f: func(args []float64) float64 { return math.Cbrt(args[0]) }},
+		"ceil":  {arity: 1, f: func(args []float64) float64 { return math.Ceil(args[0]) }},
+		"exp":   {arity: 1, f: func(args []float64) float64 { return math.Exp(args[0]) }},
+		"floor": {arity: 1, f: func(args []float64) float64 { return math.Floor(args[0]) }},
+		"log":   {arity: 1, f: func(args []float64) float64 { return math.Log(args[0]) }},
+		"log10": {arity: 1, f: func(args []float64) float64 { return math.Log10(args[0]) }},
+		"log2":  {arity: 1, f: func(args []float64) float64 { return math.Log2(args[0]) }},
+		"max":   {arity: -1, f: fastMathMax},
+		"min":   {arity: -1, f: fastMathMin},
+		"pow":   {arity: 2, f: func(args []float64) float64 { return fastMathPow(args[0], args[1]) }},
+		"round": {arity: 1, f: func(args []float64) float64 { return fastMathRound(args[0]) }},
+		"sign":  {arity: 1, f: func(args []float64) float64 { return fastMathSign(args[0]) }},
+		"sqrt":  {arity: 1, f: func(args []float64) float64 { return math.Sqrt(args[0]) }},
+		"trunc": {arity: 1, f: func(args []float64) float64 { return math.Trunc(args[0]) }},
+	}
+)
+
+// compileFastScript returns the native form of the script, or nil if the script uses anything outside the supported
+// subset.
+func compileFastScript(text string) fastScript {
+	if script, exists := fastScripts.get(text); exists {
+		return script
+	}
+	started := scriptStatsStart()
+	p := fastScriptParser{input: text}
+	script := p.parse()
+	fastScripts.put(text, script)
+	recordScriptCompile(text, started)
+	return script
+}
+
+// resolveFastScript attempts to resolve the script natively. Returns false if the script must be run by the Javascript
+// runtime instead.
+func resolveFastScript(entity *Entity, text string) (string, bool) {
+	script := compileFastScript(text)
+	if script == nil {
+		return "", false
+	}
+	v, ok := script(entity)
+	if !ok {
+		return "", false
+	}
+	if v.kind == fastAttribute {
+		// Matches the handling of a script that returns an attribute object
+		return fmt.Sprintf("%v", v.num), true
+	}
+	return v.toString(), true
+}
+
+func (p *fastScriptParser) parse() fastScript {
+	if !p.next() {
+		return nil
+	}
+	script := p.ternary()
+	if script == nil {
+		return nil
+	}
+	if p.isPunct(";") && !p.next() {
+		return nil
+	}
+	if p.tok.kind != fastEOFToken {
+		return nil
+	}
+	return script
+}
+
+func (p *fastScriptParser) isPunct(text string) bool {
+	return p.tok.kind == fastPunctToken && p.tok.text == text
+}
+
+// expect consumes the given punctuation, returning false if it isn't next.
+func (p *fastScriptParser) expect(text string) bool {
+	return p.isPunct(text) && p.next()
+}
+
+// next advances to the next token, returning false if the input can't be tokenized.
+func (p *fastScriptParser) next() bool {
+	for p.pos < len(p.input) && strings.IndexByte(" \t\n\r\v\f", p.input[p.pos]) != -1 {
+		p.pos++
+	}
+	if p.pos >= len(p.input) {
+		p.tok = fastToken{kind: fastEOFToken}
+		return true
+	}
+	start := p.pos
+	c := p.input[p.pos]
+	switch {
+	case isFastDigit(c) || (c == '.' && p.pos+1 < len(p.input) && isFastDigit(p.input[p.pos+1])):
+		if c == '0' && p.pos+1 < len(p.input) && isFastDigit(p.input[p.pos+1]) {
+			return false // Legacy octal, which isn't permitted in strict mode
+		}
+		p.skipDigits()
+		if p.pos < len(p.input) && p.input[p.pos] == '.' {
+			p.pos++
+			p.skipDigits()
+		}
+		if p.pos < len(p.input) && (p.input[p.pos] == 'e' || p.input[p.pos] == 'E') {
+			p.pos++
+			if p.pos < len(p.input) && (p.input[p.pos] == '+' || p.input[p.pos] == '-') {
+				p.pos++
+			}
+			if p.pos >= len(p.input) || !isFastDigit(p.input[p.pos]) {
+				return false
+			}
+			p.skipDigits()
+		}
+		if p.pos < len(p.input) && isFastIdentPart(p.input[p.pos]) {
+			return false
+		}
+		v, err := strconv.ParseFloat(p.input[start:p.pos], 64)
+		if err != nil {
+			return false
+		}
+		p.tok = fastToken{kind: fastNumberToken, text: p.input[start:p.pos], num: v}
+	case c == '"' || c == '\'':
+		p.pos++
+		for p.pos < len(p.input) && p.input[p.pos] != c {
+			if ch := p.input[p.pos]; ch == '\\' || ch == '\n' || ch == '\r' {
+				return false
+			}
+			p.pos++
+		}
+		if p.pos >= len(p.input) {
+			return false
+		}
+		p.pos++
+		p.tok = fastToken{kind: fastStringToken, text: p.input[start+1 : p.pos-1]}
+	case isFastIdentStart(c):
+		for p.pos < len(p.input) && isFastIdentPart(p.input[p.pos]) {
+			p.pos++
+		}
+		p.tok = fastToken{kind: fastIdentToken, text: p.input[start:p.pos]}
+	default:
+		for _, punct := range []string{"===", "!==", "<=", ">=", "==", "!=", "&&", "||"} {
+			if strings.HasPrefix(p.input[p.pos:], punct) {
+				p.pos += len(punct)
+				p.tok = fastToken{kind: fastPunctToken, text: punct}
+				return true
+			}
+		}
+		if strings.IndexByte("()+-*/%!<>?:,.;", c) == -1 {
+			return false
+		}
+		if p.pos+1 < len(p.input) {
+			// Reject the operators that start with one of the accepted characters but aren't supported, such as
+			// exponentiation, increment, decrement, optional chaining, nullish coalescing and assignment.
+			switch p.input[p.pos : p.pos+2] {
+			case "**", "++", "--", "?.", "??", "+=", "-=", "*=", "/=", "%=", "<<", ">>", "/*", "//":
+				return false
+			}
+		}
+		p.pos++
+		p.tok = fastToken{kind: fastPunctToken, text: p.input[start:p.pos]}
+	}
+	return true
+}
+
+func (p *fastScriptParser) skipDigits() {
+	for p.pos < len(p.input) && isFastDigit(p.input[p.pos]) {
+		p.pos++
+	}
+}
+
+func isFastDigit(c byte) bool {
+	return c >= '0' && c <= '9'
+}
+
+func isFastIdentStart(c byte) bool {
+	return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$'
+}
+
+func isFastIdentPart(c byte) bool {
+	return isFastIdentStart(c) || isFastDigit(c)
+}
+
+func (p *fastScriptParser) ternary() fastScript {
+	cond := p.logical("||")
+	if cond == nil || !p.isPunct("?") {
+		return cond
+	}
+	if !p.next() {
+		return nil
+	}
+	whenTrue := p.ternary()
+	if whenTrue == nil || !p.expect(":") {
+		return nil
+	}
+	whenFalse := p.ternary()
+	if whenFalse == nil {
+		return nil
+	}
+	return func(entity *Entity) (fastValue, bool) {
+		c, ok := cond(entity)
+		if !ok {
+			return fastValue{}, false
+		}
+		if c.truthy() {
+			return whenTrue(entity)
+		}
+		return whenFalse(entity)
+	}
+}
+
+// logical handles both "||" and "&&", the latter having the higher precedence. As in Javascript, the result is the
+// value of the operand that decided the outcome rather than a boolean.
+func (p *fastScriptParser) logical(op string) fastScript {
+	var operand func() fastScript
+	if op == "||" {
+		operand = func() fastScript { return p.logical("&&") }
+	} else {
+		operand = p.equality
+	}
+	left := operand()
+	for left != nil && p.isPunct(op) {
+		if !p.next() {
+			return nil
+		}
+		right := operand()
+		if right == nil {
+			return nil
+		}
+		lhs := left
+		isOr := op == "||"
+		left = func(entity *Entity) (fastValue, bool) {
+			l, ok := lhs(entity)
+			if !ok {
+				return fastValue{}, false
+			}
+			if l.truthy() == isOr {
+				return l, true
+			}
+			return right(entity)
+		}
+	}
+	return left
+}
+
+func (p *fastScriptParser) equality() fastScript {
+	left := p.relational()
+	for left != nil && (p.isPunct("==") || p.isPunct("!=") || p.isPunct("===") || p.isPunct("!==")) {
+		op := p.tok.text
+		if !p.next() {
+			return nil
+		}
+		right := p.relational()
+		if right == nil {
+			return nil
+		}
+		strict := len(op) == 3
+		negate := op[0] == '!'
+		left = p.binary(left, right, func(l, r fastValue) (fastValue, bool) {
+			var eq, ok bool
+			if strict {
+				eq, ok = fastStrictEquals(l, r)
+			} else {
+				eq, ok = fastLooseEquals(l, r)
+			}
+			return fastBoolValue(eq != negate), ok
+		})
+	}
+	return left
+}
+
+func (p *fastScriptParser) relational() fastScript {
+	left := p.additive()
+	for left != nil && (p.isPunct("<") || p.isPunct(">") || p.isPunct("<=") || p.isPunct(">=")) {
+		op := p.tok.text
+		if !p.next() {
+			return nil
+		}
+		right := p.additive()
+		if right == nil {
+			return nil
+		}
+		left = p.binary(left, right, func(l, r fastValue) (fastValue, bool) {
+			if l.kind == fastString && r.kind == fastString {
+				return fastValue{}, false // Javascript compares UTF-16 code units, which isn't replicated here
+			}
+			a, ok := l.toNumber()
+			if !ok {
+				return fastValue{}, false
+			}
+			var b float64
+			if b, ok = r.toNumber(); !ok {
+				return fastValue{}, false
+			}
+			switch op {
+			case "<":
+				return fastBoolValue(a < b), true
+			case ">":
+				return fastBoolValue(a > b), true
+			case "<=":
+				return fastBoolValue(a <= b), true
+			default:
+				return fastBoolValue(a >= b), true
+			}
+		})
+	}
+	return left
+}
+
+func (p *fastScriptParser) additive() fastScript {
+	left := p.multiplicative()
+	for left != nil && (p.isPunct("+") || p.isPunct("-")) {
+		op := p.tok.text
+		if !p.next() {
+			return nil
+		}
+		right := p.multiplicative()
+		if right == nil {
+			return nil
+		}
+		if op == "+" {
+			left = p.binary(left, right, func(l, r fastValue) (fastValue, bool) {
+				if l.kind == fastString || r.kind == fastString {
+					return fastValue{kind: fastString, str: l.toString() + r.toString()}, true
+				}
+				return fastArithmetic(l, r, func(a, b float64) float64 { return a + b })
+			})
+		} else {
+			left = p.binary(left, right, func(l, r fastValue) (fastValue, bool) {
+				return fastArithmetic(l, r, func(a, b float64) float64 { return a - b })
+			})
+		}
+	}
+	return left
+}
+
+func (p *fastScriptParser) multiplicative() fastScript {
+	left := p.unary()
+	for left != nil && (p.isPunct("*") || p.isPunct("/") || p.isPunct("%")) {
+		op := p.tok.text
+		if !p.next() {
+			return nil
+		}
+		right := p.unary()
+		if right == nil {
+			return nil
+		}
+		var f func(a, b float64) float64
+		switch op {
+		case "*":
+			f = func(a, b float64) float64 { return a * b }
+		case "/":
+			f = func(a, b float64) float64 { return a / b }
+		default:
+			f = math.Mod
+		}
+		left = p.binary(left, right, func(l, r fastValue) (fastValue, bool) { return fastArithmetic(l, r, f) })
+	}
+	return left
+}
+
+func (p *fastScriptParser) binary(left, right fastScript, op func(l, r fastValue) (fastValue, bool)) fastScript {
+	return func(entity *Entity) (fastValue, bool) {
+		l, ok := left(entity)
+		if !ok {
+			return fastValue{}, false
+		}
+		var r fastValue
+		if r, ok = right(entity); !ok {
+			return fastValue{}, false
+		}
+		return op(l, r)
+	}
+}
+
+func (p *fastScriptParser) unary() fastScript {
+	if !p.isPunct("!") && !p.isPunct("-") && !p.isPunct("+") {
+		return p.primary()
+	}
+	op := p.tok.text
+	if !p.next() {
+		return nil
+	}
+	operand := p.unary()
+	if operand == nil {
+		return nil
+	}
+	return func(entity *Entity) (fastValue, bool) {
+		v, ok := operand(entity)
+		if !ok {
+			return fastValue{}, false
+		}
+		if op == "!" {
+			return fastBoolValue(!v.truthy()), true
+		}
+		var n float64
+		if n, ok = v.toNumber(); !ok {
+			return fastValue{}, false
+		}
+		if op == "-" {
+			n = -n
+		}
+		return fastNumberValue(n), true
+	}
+}
+
+func (p *fastScriptParser) primary() fastScript {
+	var script fastScript
+	tok := p.tok
+	if !p.next() {
+		return nil
+	}
+	switch tok.kind {
+	case fastNumberToken:
+		v := fastNumberValue(tok.num)
+		script = func(_ *Entity) (fastValue, bool) { return v, true }
+	case fastStringToken:
+		v := fastValue{kind: fastString, str: tok.text}
+		script = func(_ *Entity) (fastValue, bool) { return v, true }
+	case fastPunctToken:
+		if tok.text != "(" {
+			return nil
+		}
+		if script = p.ternary(); script == nil || !p.expect(")") {
+			return nil
+		}
+	case fastIdentToken:
+		switch {
+		case tok.text == "true" || tok.text == "false":
+			v := fastBoolValue(tok.text == "true")
+			script = func(_ *Entity) (fastValue, bool) { return v, true }
+		case tok.text[0] == '$' && len(tok.text) > 1:
+			script = p.attribute(tok.text[1:])
+		case tok.text == "Math":
+			script = p.mathMember()
+		case tok.text == "entity":
+			script = p.entityMember()
+		case tok.text == "iff" || tok.text == "formatNum" || tok.text == "signedValue":
+			script = p.builtin(tok.text)
+		default:
+			return nil
+		}
+	default:
+		return nil
+	}
+	if script == nil || p.isPunct(".") || p.isPunct("(") {
+		return nil
+	}
+	return script
+}
+
+func (p *fastScriptParser) memberName() string {
+	if !p.expect(".") || p.tok.kind != fastIdentToken {
+		return ""
+	}
+	name := p.tok.text
+	if !p.next() {
+		return ""
+	}
+	return name
+}
+
+func (p *fastScriptParser) arguments() ([]fastScript, bool) {
+	if !p.expect("(") {
+		return nil, false
+	}
+	var args []fastScript
+	if p.isPunct(")") {
+		return args, p.next()
+	}
+	for {
+		arg := p.ternary()
+		if arg == nil {
+			return nil, false
+		}
+		args = append(args, arg)
+		if p.isPunct(")") {
+			return args, p.next()
+		}
+		if !p.expect(",") {
+			return nil, false
+		}
+	}
+}
+
+func (p *fastScriptParser) attribute(attrID string) fastScript {
+	current := false
+	if p.isPunct(".") {
+		switch p.memberName() {
+		case "current":
+			current = true
+		case "maximum":
+		default:
+			return nil
+		}
+	}
+	return func(entity *Entity) (fastValue, bool) {
+		if entity == nil {
+			return fastValue{}, false
+		}
+		attr, exists := entity.Attributes.Set[attrID]
+		if !exists {
+			return fastValue{}, false
+		}
+		def := attr.AttributeDef()
+		if def == nil || def.IsSeparator() {
+			return fastValue{}, false
+		}
+		entity.recordScriptAttributeInput(attrID)
+		id := attrID
+		if current {
+			id += ".current"
+		}
+		v, err := fxp.FromString(entity.ResolveVariable(id))
+		if err != nil {
+			return fastValue{}, false // Let the runtime report the problem
+		}
+		if current {
+			return fastNumberValue(fxp.AsFloat[float64](v)), true
+		}
+		return fastValue{kind: fastAttribute, num: fxp.AsFloat[float64](v)}, true
+	}
+}
+
+func (p *fastScriptParser) mathMember() fastScript {
+	name := p.memberName()
+	if name == "" {
+		return nil
+	}
+	if c, exists := fastMathConstants[name]; exists {
+		v := fastNumberValue(c)
+		return func(_ *Entity) (fastValue, bool) { return v, true }
+	}
+	fn, exists := fastMathFuncs[name]
+	if !exists {
+		return nil
+	}
+	args, ok := p.arguments()
+	if !ok || (fn.arity >= 0 && len(args) != fn.arity) {
+		return nil
+	}
+	return func(entity *Entity) (fastValue, bool) {
+		var buffer [4]float64
+		values := buffer[:0]
+		for _, arg := range args {
+			v, valid := arg(entity)
+			if !valid {
+				return fastValue{}, false
+			}
+			var n float64
+			if n, valid = v.toNumber(); !valid {
+				return fastValue{}, false
+			}
+			values = append(values, n)
+		}
+		return fastNumberValue(fn.f(values)), true
+	}
+}
+
+func (p *fastScriptParser) entityMember() fastScript {
+	name := p.memberName()
+	switch name {
+	case "heightInInches":
+		return fastEntityProperty(func(entity *Entity) fastValue {
+			return fastNumberValue(fxp.AsFloat[float64](fxp.Int(entity.Profile.Height)))
+		})
+	case "weightInPounds":
+		return fastEntityProperty(func(entity *Entity) fastValue {
+			return fastNumberValue(fxp.AsFloat[float64](fxp.Int(entity.Profile.Weight)))
+		})
+	case "sizeModifier":
+		return fastEntityProperty(func(entity *Entity) fastValue {
+			return fastNumberValue(float64(entity.Profile.AdjustedSizeModifier()))
+		})
+	case "exists":
+		return fastEntityProperty(func(_ *Entity) fastValue { return fastBoolValue(true) })
+	case "extraDiceFromModifiers":
+		return fastEntityProperty(func(entity *Entity) fastValue {
+			return fastBoolValue(SheetSettingsFor(entity).UseModifyingDicePlusAdds)
+		})
+	case "hasTrait", "traitLevel", "skillLevel", "currentEncumbrance":
+	default:
+		return nil
+	}
+	args, ok := p.arguments()
+	if !ok {
+		return nil
+	}
+	switch name {
+	case "hasTrait", "traitLevel":
+		if len(args) != 1 {
+			return nil
+		}
+		return fastEntityCall(args, func(se *scriptEntity, values []fastValue) (fastValue, bool) {
+			if values[0].kind == fastAttribute {
+				return fastValue{}, false
+			}
+			if name == "hasTrait" {
+				return fastBoolValue(se.HasTrait(values[0].toString())), true
+			}
+			return fastNumberValue(se.TraitLevel(values[0].toString())), true
+		})
+	case "skillLevel":
+		if len(args) != 3 {
+			return nil
+		}
+		return fastEntityCall(args, func(se *scriptEntity, values []fastValue) (fastValue, bool) {
+			if values[0].kind == fastAttribute || values[1].kind == fastAttribute {
+				return fastValue{}, false
+			}
+			return fastNumberValue(float64(se.SkillLevel(values[0].toString(), values[1].toString(),
+				values[2].truthy()))), true
+		})
+	default:
+		if len(args) != 2 {
+			return nil
+		}
+		return fastEntityCall(args, func(se *scriptEntity, values []fastValue) (fastValue, bool) {
+			return fastNumberValue(se.CurrentEncumbrance(values[0].truthy(), values[1].truthy())), true
+		})
+	}
+}
+
+func fastEntityProperty(f func(entity *Entity) fastValue) fastScript {
+	return func(entity *Entity) (fastValue, bool) {
+		if entity == nil {
+			return fastValue{}, false
+		}
+		entity.recordScriptEntityFieldsInput()
+		return f(entity), true
+	}
+}
+
+func fastEntityCall(args []fastScript, f func(se *scriptEntity, values []fastValue) (fastValue, bool)) fastScript {
+	return func(entity *Entity) (fastValue, bool) {
+		if entity == nil {
+			return fastValue{}, false
+		}
+		values, ok := fastEvalArgs(entity, args)
+		if !ok {
+			return fastValue{}, false
+		}
+		return f(&scriptEntity{entity: entity}, values)
+	}
+}
+
+func (p *fastScriptParser) builtin(name string) fastScript {
+	args, ok := p.arguments()
+	if !ok {
+		return nil
+	}
+	switch name {
+	case "iff":
+		if len(args) != 3 {
+			return nil
+		}
+		cond, whenTrue, whenFalse := args[0], args[1], args[2]
+		return func(entity *Entity) (fastValue, bool) {
+			// Being a function, all arguments are evaluated
+			c, valid := cond(entity)
+			if !valid {
+				return fastValue{}, false
+			}
+			t, valid2 := whenTrue(entity)
+			f, valid3 := whenFalse(entity)
+			if !valid2 || !valid3 {
+				return fastValue{}, false
+			}
+			if c.truthy() {
+				return t, true
+			}
+			return f, true
+		}
+	case "signedValue":
+		if len(args) != 1 {
+			return nil
+		}
+	default:
+		if len(args) == 0 || len(args) > 3 {
+			return nil
+		}
+	}
+	return func(entity *Entity) (fastValue, bool) {
+		values, valid := fastEvalArgs(entity, args)
+		if !valid {
+			return fastValue{}, false
+		}
+		n, valid2 := values[0].toNumber()
+		if !valid2 {
+			return fastValue{}, false
+		}
+		if name == "signedValue" {
+			return fastValue{kind: fastString, str: scriptSigned(n)}, true
+		}
+		withCommas := len(values) > 1 && values[1].truthy()
+		withSign := len(values) > 2 && values[2].truthy()
+		return fastValue{kind: fastString, str: scriptFormatNum(n, withCommas, withSign)}, true
+	}
+}
+
+func fastEvalArgs(entity *Entity, args []fastScript) ([]fastValue, bool) {
+	values := make([]fastValue, len(args))
+	for i, arg := range args {
+		v, ok := arg(entity)
+		if !ok {
+			return nil, false
+		}
+		values[i] = v
+	}
+	return values, true
+}
+
+func fastNumberValue(n float64) fastValue {
+	return fastValue{kind: fastNumber, num: n}
+}
+
+func fastBoolValue(b bool) fastValue {
+	if b {
+		return fastValue{kind: fastBool, num: 1}
+	}
+	return fastValue{kind: fastBool}
+}
+
+func fastArithmetic(l, r fastValue, f func(a, b float64) float64) (fastValue, bool) {
+	a, ok := l.toNumber()
+	if !ok {
+		return fastValue{}, false
+	}
+	var b float64
+	if b, ok = r.toNumber(); !ok {
+		return fastValue{}, false
+	}
+	return fastNumberValue(f(a, b)), true
+}
+
+func fastStrictEquals(l, r fastValue) (equal, ok bool) {
+	if l.kind == fastAttribute && r.kind == fastAttribute {
+		return false, false // Object identity
+	}
+	if l.kind != r.kind {
+		return false, true
+	}
+	if l.kind == fastString {
+		return l.str == r.str, true
+	}
+	return l.num == r.num, true
+}
+
+func fastLooseEquals(l, r fastValue) (equal, ok bool) {
+	if l.kind == fastAttribute && r.kind == fastAttribute {
+		return false, false // Object identity
+	}
+	if l.kind == fastAttribute {
+		l.kind = fastNumber
+	}
+	if r.kind == fastAttribute {
+		r.kind = fastNumber
+	}
+	if l.kind == r.kind {
+		return fastStrictEquals(l, r)
+	}
+	a, valid := l.toNumber()
+	if !valid {
+		return false, false
+	}
+	var b float64
+	if b, valid = r.toNumber(); !valid {
+		return false, false
+	}
+	return a == b, true
+}
+
+// toNumber returns the numeric value, as Javascript would coerce it. Returns false for strings that aren't plain
+// decimal numbers, since the rules Javascript uses for those aren't replicated here.
+func (v fastValue) toNumber() (float64, bool) {
+	if v.kind != fastString {
+		return v.num, true
+	}
+	s := strings.Trim(v.str, " \t\n\r\v\f")
+	if s == "" {
+		return 0, true
+	}
+	i := 0
+	if s[0] == '-' || s[0] == '+' {
+		i++
+	}
+	for ; i < len(s); i++ {
+		if c := s[i]; !isFastDigit(c) && c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+' {
+			return 0, false
+		}
+	}
+	n, err := strconv.ParseFloat(s, 64)
+	if err != nil {
+		return 0, false
+	}
+	return n, true
+}
+
+func (v fastValue) truthy() bool {
+	switch v.kind {
+	case fastString:
+		return v.str != ""
+	case fastAttribute:
+		return true // An object
+	default:
+		return v.num != 0 && !math.IsNaN(v.num)
+	}
+}
+
+// toString returns the string form of the value, as Javascript would produce it.
+func (v fastValue) toString() string {
+	switch v.kind {
+	case fastString:
+		return v.str
+	case fastBool:
+		if v.num != 0 {
+			return "true"
+		}
+		return "false"
+	default:
+		return fastNumberString(v.num)
+	}
+}
+
+// fastNumberString formats the number as Javascript's Number.prototype.toString() does.
+func fastNumberString(n float64) string {
+	switch {
+	case math.IsNaN(n):
+		return "NaN"
+	case math.IsInf(n, 1):
+		return "Infinity"
+	case math.IsInf(n, -1):
+		return "-Infinity"
+	case n == 0:
+		return "0"
+	}
+	if abs := math.Abs(n); abs >= 1e-7 && abs < 1e21 {
+		return strconv.FormatFloat(n, 'f', -1, 64)
+	}
+	s := strconv.FormatFloat(n, 'e', -1, 64)
+	i := strings.IndexByte(s, 'e')
+	exp := strings.TrimLeft(s[i+2:], "0")
+	return s[:i+2] + exp
+}
+
+func fastMathMax(args []float64) float64 {
+	result := math.Inf(-1)
+	for _, one := range args {
+		result = math.Max(result, one)
+	}
+	return result
+}
+
+func fastMathMin(args []float64) float64 {
+	result := math.Inf(1)
+	for _, one := range args {
+		result = math.Min(result, one)
+	}
+	return result
+}
+
+func fastMathPow(x, y float64) float64 {
+	if math.IsNaN(y) || (math.Abs(x) == 1 && math.IsInf(y, 0)) {
+		return math.NaN()
+	}
+	return math.Pow(x, y)
+}
+
+func fastMathRound(x float64) float64 {
+	r := math.Floor(x)
+	if x-r >= 0.5 {
+		r++
+	}
+	return r
+}
+
+func fastMathSign(x float64) float64 {
+	switch {
+	case x > 0:
+		return 1
+	case x < 0:
+		return -1
+	default:
+		return x // NaN, 0 or -0
+	}
+}
@@ -0,0 +1,192 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"strconv"
+	"sync/atomic"
+)
+
+// scriptResultSweepInterval is the number of discards between sweeps of a script result cache for results that haven't
+// been used since the prior sweep.
+const scriptResultSweepInterval = 32
+
+// scriptRandomCalls is incremented each time a script asks for a random value, so that results which depend on one
+// aren't kept beyond the normal cache lifetime.
+var scriptRandomCalls atomic.Uint64
+
+type scriptInputKind uint8
+
+const (
+	attributeScriptInput scriptInputKind = iota
+	entityFieldsScriptInput
+	hasTraitScriptInput
+	traitLevelScriptInput
+	skillLevelScriptInput
+	encumbranceScriptInput
+	attributeDefScriptInput
+)
+
+// scriptInput is a value from an Entity that a script read, along with what it was at the time.
+type scriptInput struct {
+	name           string
+	specialization string
+	value          string
+	kind           scriptInputKind
+	flag           bool
+}
+
+// scriptInputs collects the inputs read by a script while it runs.
+type scriptInputs struct {
+	list      []scriptInput
+	untracked bool // true if the script read something that isn't tracked
+}
+
+// scriptResult is a cached script result.
+type scriptResult struct {
+	result     string
+	inputs     []scriptInput
+	generation uint64
+	tracked    bool
+	used       bool
+}
+
+// scriptResultCache holds the results of scripts. Results that only depend on tracked inputs survive a discard and are
+// re-used so long as those inputs still have the same values.
+type scriptResultCache struct {
+	results  map[scriptResolveKey]*scriptResult
+	discards int
+}
+
+func (in *scriptInput) read(entity *Entity) string {
+	se := scriptEntity{entity: entity}
+	switch in.kind {
+	case attributeScriptInput:
+		return entity.ResolveVariable(in.name)
+	case entityFieldsScriptInput:
+		return entity.scriptEntityFields()
+	case hasTraitScriptInput:
+		return strconv.FormatBool(se.HasTrait(in.name))
+	case traitLevelScriptInput:
+		return strconv.FormatFloat(se.TraitLevel(in.name), 'g', -1, 64)
+	case skillLevelScriptInput:
+		return strconv.Itoa(se.SkillLevel(in.name, in.specialization, in.flag))
+	case encumbranceScriptInput:
+		return strconv.Itoa(int(entity.EncumbranceLevel(in.flag)))
+	case attributeDefScriptInput:
+		return scriptAttributeDefinition(entity, in.name)
+	default:
+		return ""
+	}
+}
+
+// recordScriptInput records that the currently running script read the given input.
+func (e *Entity) recordScriptInput(in scriptInput) {
+	if e == nil || e.scriptInputs == nil || e.scriptInputs.untracked {
+		return
+	}
+	for _, one := range e.scriptInputs.list {
+		one.value = in.value
+		if one == in {
+			return
+		}
+	}
+	e.scriptInputs.list = append(e.scriptInputs.list, in)
+}
+
+// recordScriptAttributeInput records that the currently running script read the attribute. Since the script receives
+// an object that also exposes parts of the attribute's definition, those are recorded, too.
+func (e *Entity) recordScriptAttributeInput(attrID string) {
+	if e == nil || e.scriptInputs == nil || e.scriptInputs.untracked {
+		return
+	}
+	for _, id := range []string{attrID, attrID + ".current"} {
+		e.recordScriptInput(scriptInput{kind: attributeScriptInput, name: id, value: e.ResolveVariable(id)})
+	}
+	e.recordScriptInput(scriptInput{
+		kind:  attributeDefScriptInput,
+		name:  attrID,
+		value: scriptAttributeDefinition(e, attrID),
+	})
+}
+
+// recordScriptEntityFieldsInput records that the currently running script read the fields of the script entity.
+func (e *Entity) recordScriptEntityFieldsInput() {
+	if e == nil || e.scriptInputs == nil || e.scriptInputs.untracked {
+		return
+	}
+	e.recordScriptInput(scriptInput{kind: entityFieldsScriptInput, value: e.scriptEntityFields()})
+}
+
+// recordUntrackedScriptInput records that the currently running script read something whose changes aren't tracked.
+func (e *Entity) recordUntrackedScriptInput() {
+	if e != nil && e.scriptInputs != nil {
+		e.scriptInputs.untracked = true
+		e.scriptInputs.list = nil
+	}
+}
+
+// lookup returns the cached result for the key, if it is still current.
+func (c *scriptResultCache) lookup(key scriptResolveKey, entity *Entity, generation uint64) (string, bool) {
+	r, exists := c.results[key]
+	if !exists {
+		return "", false
+	}
+	if r.generation != generation || generation == 0 {
+		if !r.tracked {
+			return "", false
+		}
+		if entity != nil {
+			inputs := entity.scriptInputs
+			entity.scriptInputs = nil
+			defer func() { entity.scriptInputs = inputs }()
+			for i := range r.inputs {
+				if r.inputs[i].read(entity) != r.inputs[i].value {
+					return "", false
+				}
+			}
+		}
+		r.generation = generation
+	}
+	r.used = true
+	return r.result, true
+}
+
+func (c *scriptResultCache) store(key scriptResolveKey, generation uint64, result string, inputs *scriptInputs) {
+	if c.results == nil {
+		c.results = make(map[scriptResolveKey]*scriptResult)
+	}
+	c.results[key] = &scriptResult{
+		result:     result,
+		inputs:     inputs.list,
+		generation: generation,
+		tracked:    !inputs.untracked,
+		used:       true,
+	}
+}
+
+// discard the results that can't be re-used. Results that are still valid for their inputs are kept, unless they
+// haven't been used for a while.
+func (c *scriptResultCache) discard() {
+	c.discards++
+	sweep := c.discards%scriptResultSweepInterval == 0
+	for key, r := range c.results {
+		switch {
+		case !r.tracked:
+			delete(c.results, key)
+		case sweep:
+			if r.used {
+				r.used = false
+			} else {
+				delete(c.results, key)
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"hash/maphash"
+	"sync"
+)
+
+const scriptLRUShardCount = 16
+
+// scriptLRU is a cache of values keyed by script text that is safe for concurrent use. It is split into shards, each
+// with its own lock, to reduce contention, and each shard discards its least recently used entry once it is full.
+type scriptLRU[V any] struct {
+	seed   maphash.Seed
+	shards [scriptLRUShardCount]scriptLRUShard[V]
+}
+
+type scriptLRUShard[V any] struct {
+	entries  map[string]*scriptLRUEntry[V]
+	head     scriptLRUEntry[V] // Sentinel; head.next is the most recently used entry and head.prev the least
+	capacity int
+	lock     sync.Mutex
+}
+
+type scriptLRUEntry[V any] struct {
+	prev  *scriptLRUEntry[V]
+	next  *scriptLRUEntry[V]
+	key   string
+	value V
+}
+
+// newScriptLRU creates a new cache that holds up to 'capacity' entries.
+func newScriptLRU[V any](capacity int) *scriptLRU[V] {
+	c := &scriptLRU[V]{seed: maphash.MakeSeed()}
+	perShard := max((capacity+scriptLRUShardCount-1)/scriptLRUShardCount, 1)
+	for i := range c.shards {
+		shard := &c.shards[i]
+		shard.entries = make(map[string]*scriptLRUEntry[V])
+		shard.head.prev = &shard.head
+		shard.head.next = &shard.head
+		shard.capacity = perShard
+	}
+	return c
+}
+
+func (c *scriptLRU[V]) shard(key string) *scriptLRUShard[V] {
+	return &c.shards[maphash.String(c.seed, key)%scriptLRUShardCount]
+}
+
+// get returns the value for the key, if present.
+func (c *scriptLRU[V]) get(key string) (value V, exists bool) {
+	shard := c.shard(key)
+	shard.lock.Lock()
+	defer shard.lock.Unlock()
+	entry, exists := shard.entries[key]
+	if !exists {
+		return value, false
+	}
+	shard.moveToFront(entry)
+	return entry.value, true
+}
+
+// put stores the value for the key, discarding the least recently used entry of its shard if the shard is full.
+func (c *scriptLRU[V]) put(key string, value V) {
+	shard := c.shard(key)
+	shard.lock.Lock()
+	defer shard.lock.Unlock()
+	if entry, exists := shard.entries[key]; exists {
+		entry.value = value
+		shard.moveToFront(entry)
+		return
+	}
+	if len(shard.entries) >= shard.capacity {
+		oldest := shard.head.prev
+		shard.unlink(oldest)
+		delete(shard.entries, oldest.key)
+	}
+	entry := &scriptLRUEntry[V]{key: key, value: value}
+	shard.entries[key] = entry
+	shard.linkAtFront(entry)
+}
+
+func (s *scriptLRUShard[V]) moveToFront(entry *scriptLRUEntry[V]) {
+	if s.head.next != entry {
+		s.unlink(entry)
+		s.linkAtFront(entry)
+	}
+}
+
+func (s *scriptLRUShard[V]) unlink(entry *scriptLRUEntry[V]) {
+	entry.prev.next = entry.next
+	entry.next.prev = entry.prev
+	entry.prev = nil
+	entry.next = nil
+}
+
+func (s *scriptLRUShard[V]) linkAtFront(entry *scriptLRUEntry[V]) {
+	entry.prev = &s.head
+	entry.next = s.head.next
+	s.head.next.prev = entry
+	s.head.next = entry
+}
@@ -0,0 +1,164 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"fmt"
+	"time"
+
+	"github.com/dop251/goja"
+)
+
+// scriptSession is a script runtime dedicated to a single Entity. The "entity" and attribute globals are defined once
+// and only re-bound when the entity's cache generation changes, while "self" is swapped on each call. This avoids the
+// cost of defining and then deleting every global around each script, which can exceed the cost of the script itself.
+type scriptSession struct {
+	vm          *goja.Runtime
+	entity      *Entity
+	watch       scriptWatch
+	generation  uint64
+	bound       bool
+	running     bool
+	attrNames   map[string]bool
+	attrValues  map[string]goja.Value
+	entityValue goja.Value
+	self        func() any
+	selfValue   goja.Value
+}
+
+// scriptSession returns the script session for this entity, creating it if needed.
+func (e *Entity) scriptSession() *scriptSession {
+	if e.scripts == nil || e.scripts.entity != e {
+		e.scripts = newScriptSession(e)
+	}
+	return e.scripts
+}
+
+func newScriptSession(entity *Entity) *scriptSession {
+	s := &scriptSession{
+		vm:         newScriptRuntime(),
+		entity:     entity,
+		attrNames:  make(map[string]bool),
+		attrValues: make(map[string]goja.Value),
+	}
+	globals := s.vm.GlobalObject()
+	s.mustDefineAccessor(globals, "entity", func() goja.Value {
+		if s.entityValue == nil {
+			s.entityValue = s.vm.ToValue(s.entity.scriptEntity())
+		}
+		s.entity.recordScriptEntityFieldsInput()
+		return s.entityValue
+	})
+	s.mustDefineAccessor(globals, "self", func() goja.Value {
+		if s.self == nil {
+			return goja.Undefined()
+		}
+		if s.selfValue == nil {
+			s.selfValue = s.vm.ToValue(s.self())
+		}
+		return s.selfValue
+	})
+	return s
+}
+
+func (s *scriptSession) mustDefineAccessor(globals *goja.Object, name string, getter func() goja.Value) {
+	if err := s.defineAccessor(globals, name, getter); err != nil {
+		panic(err)
+	}
+}
+
+func (s *scriptSession) defineAccessor(globals *goja.Object, name string, getter func() goja.Value) error {
+	if err := globals.DefineAccessorProperty(name, s.vm.ToValue(func(_ goja.FunctionCall) goja.Value {
+		return getter()
+	}), nil, goja.FLAG_TRUE, goja.FLAG_TRUE); err != nil {
+		return fmt.Errorf("failed to define accessor for %q: %w", name, err)
+	}
+	return nil
+}
+
+// run the script with the given provider for "self". A timeout of 0 or less means no timeout.
+func (s *scriptSession) run(timeout time.Duration, text string, self func() any) (goja.Value, error) {
+	if s.running {
+		// A script is resolving another script, so the runtime is in use. Fall back to a pooled runtime, whose bindings
+		// don't track what the script reads.
+		s.entity.recordUntrackedScriptInput()
+		return RunScript(timeout, text, scriptArgs(s.entity, self, nil)...)
+	}
+	program, err := compileScript(text)
+	if err != nil {
+		return nil, err
+	}
+	if err = s.bind(); err != nil {
+		return nil, err
+	}
+	s.running = true
+	s.self = self
+	s.selfValue = nil
+	defer func() {
+		s.self = nil
+		s.selfValue = nil
+		s.running = false
+	}()
+	if timeout > 0 {
+		s.watch.start(s.vm, timeout)
+		defer s.watch.stop()
+	}
+	return s.vm.RunProgram(program)
+}
+
+// bind the attribute globals if the entity's cache generation has changed since they were last bound. Bound values
+// are discarded along with the entity's other caches.
+func (s *scriptSession) bind() error {
+	generation := s.entity.cacheGeneration
+	if s.bound && generation == s.generation && generation != 0 {
+		return nil
+	}
+	s.generation = generation
+	s.bound = true
+	s.entityValue = nil
+	clear(s.attrValues)
+	globals := s.vm.GlobalObject()
+	current := make(map[string]bool, len(s.entity.Attributes.Set))
+	for _, attr := range s.entity.Attributes.List() {
+		def := attr.AttributeDef()
+		if def == nil || def.IsSeparator() {
+			continue
+		}
+		attrID := attr.AttrID
+		current[attrID] = true
+		if s.attrNames[attrID] {
+			continue
+		}
+		if err := s.defineAccessor(globals, "$"+attrID, func() goja.Value {
+			s.entity.recordScriptAttributeInput(attrID)
+			if v, exists := s.attrValues[attrID]; exists {
+				return v
+			}
+			one, exists := s.entity.Attributes.Set[attrID]
+			if !exists {
+				return goja.Undefined()
+			}
+			v := s.vm.ToValue(newScriptAttribute(one))
+			s.attrValues[attrID] = v
+			return v
+		}); err != nil {
+			return err
+		}
+	}
+	for attrID := range s.attrNames {
+		if !current[attrID] {
+			if err := globals.Delete("$" + attrID); err != nil {
+				return fmt.Errorf("failed to remove accessor for %q: %w", "$"+attrID, err)
+			}
+		}
+	}
+	s.attrNames = current
+	return nil
+}
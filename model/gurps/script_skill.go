@@ -47,6 +47,7 @@ func DeferredNewScriptSkill(entity *Entity, skill *Skill) ScriptSelfProvider {
 		return ScriptSelfProvider{}
 	}
 	return ScriptSelfProvider{
+		owner:    skill,
 		ID:       skill.TID,
 		Provider: func() any { return newScriptSkill(entity, skill) },
 	}
@@ -57,6 +57,7 @@ func DeferredNewScriptSpell(entity *Entity, spell *Spell) ScriptSelfProvider {
 		return ScriptSelfProvider{}
 	}
 	return ScriptSelfProvider{
+		owner:    spell,
 		ID:       spell.TID,
 		Provider: func() any { return newScriptSpell(entity, spell) },
 	}
@@ -0,0 +1,189 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"cmp"
+	"fmt"
+	"io"
+	"slices"
+	"strings"
+	"sync"
+	"sync/atomic"
+	"text/tabwriter"
+	"time"
+
+	"github.com/richardwilkes/toolbox/v2/i18n"
+	"github.com/zeebo/xxh3"
+)
+
+// ScriptStats holds the execution statistics for a single script.
+type ScriptStats struct {
+	Text        string
+	Hash        uint64
+	CacheHits   int
+	CacheMisses int
+	Native      int // Executions handled by the native evaluator rather than the Javascript runtime
+	Timeouts    int
+	CompileTime time.Duration
+	TotalTime   time.Duration
+	MaxTime     time.Duration
+}
+
+var scriptStats struct {
+	byHash  map[uint64]*ScriptStats
+	lock    sync.Mutex
+	enabled atomic.Bool
+}
+
+// Calls returns the number of times the script's result was requested.
+func (s *ScriptStats) Calls() int {
+	return s.CacheHits + s.CacheMisses
+}
+
+// AverageTime returns the average execution time of the script.
+func (s *ScriptStats) AverageTime() time.Duration {
+	if s.CacheMisses == 0 {
+		return 0
+	}
+	return s.TotalTime / time.Duration(s.CacheMisses)
+}
+
+// EnableScriptStats turns the collection of script statistics on or off. Collection is off by default.
+func EnableScriptStats(enabled bool) {
+	scriptStats.enabled.Store(enabled)
+}
+
+// ScriptStatsEnabled returns true if script statistics are being collected.
+func ScriptStatsEnabled() bool {
+	return scriptStats.enabled.Load()
+}
+
+// ResetScriptStats discards the script statistics collected so far.
+func ResetScriptStats() {
+	scriptStats.lock.Lock()
+	scriptStats.byHash = nil
+	scriptStats.lock.Unlock()
+}
+
+// ScriptStatistics returns a copy of the script statistics collected so far, with the scripts that consumed the most
+// execution time first.
+func ScriptStatistics() []ScriptStats {
+	scriptStats.lock.Lock()
+	list := make([]ScriptStats, 0, len(scriptStats.byHash))
+	for _, one := range scriptStats.byHash {
+		list = append(list, *one)
+	}
+	scriptStats.lock.Unlock()
+	slices.SortFunc(list, func(a, b ScriptStats) int {
+		if result := cmp.Compare(b.TotalTime+b.CompileTime, a.TotalTime+a.CompileTime); result != 0 {
+			return result
+		}
+		if result := cmp.Compare(b.Calls(), a.Calls()); result != 0 {
+			return result
+		}
+		return strings.Compare(a.Text, b.Text)
+	})
+	return list
+}
+
+// WriteScriptStats writes a report of the script statistics collected so far.
+func WriteScriptStats(w io.Writer) error {
+	tw := tabwriter.NewWriter(w, 0, 0, 2, ' ', tabwriter.AlignRight)
+	if _, err := fmt.Fprintln(tw, strings.Join([]string{
+		i18n.Text("Calls"),
+		i18n.Text("Hits"),
+		i18n.Text("Misses"),
+		i18n.Text("Native"),
+		i18n.Text("Timeouts"),
+		i18n.Text("Compile"),
+		i18n.Text("Total"),
+		i18n.Text("Average"),
+		i18n.Text("Max"),
+		i18n.Text("Hash"),
+		i18n.Text("Script"),
+	}, "\t")); err != nil {
+		return err
+	}
+	for _, one := range ScriptStatistics() {
+		if _, err := fmt.Fprintf(tw, "%d\t%d\t%d\t%d\t%d\t%v\t%v\t%v\t%v\t%016x\t%s\n", one.Calls(), one.CacheHits,
+			one.CacheMisses, one.Native, one.Timeouts, one.CompileTime, one.TotalTime, one.AverageTime(), one.MaxTime,
+			one.Hash, ScriptSummary(one.Text, 60)); err != nil {
+			return err
+		}
+	}
+	return tw.Flush()
+}
+
+// ScriptSummary returns the script text collapsed onto a single line and truncated to at most 'limit' characters.
+func ScriptSummary(text string, limit int) string {
+	text = strings.Join(strings.Fields(text), " ")
+	if runes := []rune(text); len(runes) > limit {
+		text = string(runes[:limit-1]) + "…"
+	}
+	return text
+}
+
+func recordScriptStats(text string, f func(s *ScriptStats)) {
+	if !scriptStats.enabled.Load() {
+		return
+	}
+	hash := xxh3.HashString(text)
+	scriptStats.lock.Lock()
+	defer scriptStats.lock.Unlock()
+	s, exists := scriptStats.byHash[hash]
+	if !exists {
+		if scriptStats.byHash == nil {
+			scriptStats.byHash = make(map[uint64]*ScriptStats)
+		}
+		s = &ScriptStats{Text: text, Hash: hash}
+		scriptStats.byHash[hash] = s
+	}
+	f(s)
+}
+
+// scriptStatsStart returns the start time for a measurement, or the zero value if statistics aren't being collected.
+func scriptStatsStart() time.Time {
+	if !scriptStats.enabled.Load() {
+		return time.Time{}
+	}
+	return time.Now()
+}
+
+func recordScriptCacheHit(text string) {
+	recordScriptStats(text, func(s *ScriptStats) { s.CacheHits++ })
+}
+
+func recordScriptExecution(text string, started time.Time, native bool) {
+	if started.IsZero() {
+		return
+	}
+	elapsed := time.Since(started)
+	recordScriptStats(text, func(s *ScriptStats) {
+		s.CacheMisses++
+		if native {
+			s.Native++
+		}
+		s.TotalTime += elapsed
+		s.MaxTime = max(s.MaxTime, elapsed)
+	})
+}
+
+func recordScriptCompile(text string, started time.Time) {
+	if started.IsZero() {
+		return
+	}
+	elapsed := time.Since(started)
+	recordScriptStats(text, func(s *ScriptStats) { s.CompileTime += elapsed })
+}
+
+func recordScriptTimeout(text string) {
+	recordScriptStats(text, func(s *ScriptStats) { s.Timeouts++ })
+}
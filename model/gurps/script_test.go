@@ -0,0 +1,289 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"regexp"
+	"strconv"
+	"strings"
+	"sync"
+	"testing"
+
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestScriptSession(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	c.Equal(fxp.Twenty, ResolveToNumber(e, ScriptSelfProvider{}, "$st * 2"))
+	e.Attributes.Set[StrengthID].Adjustment = fxp.Two
+	c.Equal(fxp.Twenty, ResolveToNumber(e, ScriptSelfProvider{}, "$st * 2"), "cached until the caches are discarded")
+	e.Recalculate()
+	c.Equal(fxp.TwentyFour, ResolveToNumber(e, ScriptSelfProvider{}, "$st * 2"))
+	self := ScriptSelfProvider{ID: "x", Provider: func() any { return map[string]any{"value": 3} }}
+	c.Equal(fxp.Three, ResolveToNumber(e, self, "self.value"))
+	c.Equal("undefined", resolveScript(e, ScriptSelfProvider{}, "typeof self"))
+}
+
+func TestFastScriptMatchesRuntime(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	e.Attributes.Set[StrengthID].Adjustment = fxp.Two
+	e.Recalculate()
+	for _, text := range []string{
+		"$st",
+		"$st * 2",
+		"$st.current - $dx / 4",
+		"($st + $iq) % 7",
+		"-$ht + +'3'",
+		"$st > 10 ? $st : 10",
+		"$st == 12",
+		"$st === 12",
+		"$st.current === 12",
+		"$st && 'yes'",
+		"0 || ''",
+		"!$st",
+		"'a' + 1 + 2",
+		"1 + 2 + 'a'",
+		"'10' < 9",
+		"'abc' * 2",
+		"1 / 0",
+		"-1 / 0",
+		"0 / 0",
+		"-0",
+		"0.1 + 0.2",
+		"1e21",
+		"123456789 * 1e15",
+		"1 / 3e8",
+		".5e1;",
+		"Math.PI * 2",
+		"Math.round(-2.5) + Math.round(2.5) + Math.round(0.49999999999999994)",
+		"Math.max()",
+		"Math.min(3, $st, 1 / 0)",
+		"Math.pow(1, 1 / 0)",
+		"Math.sign(-0)",
+		"Math.sqrt(2) * Math.cbrt(27) + Math.log2(8) + Math.log10(1000) + Math.exp(1) - Math.log(2)",
+		"Math.floor(-1.5) + Math.ceil(-1.5) + Math.trunc(-1.5) + Math.abs(-1.5)",
+		"iff($st > 11, $st, 0)",
+		"iff(0, 'a', 'b')",
+		"formatNum(1234.5)",
+		"formatNum(1234.5, true)",
+		"formatNum(1234.5, true, true)",
+		"signedValue($st - 20)",
+		"entity.exists",
+		"entity.sizeModifier + entity.heightInInches + entity.weightInPounds",
+		"entity.extraDiceFromModifiers",
+		"entity.hasTrait('Missing')",
+		"entity.traitLevel('Missing')",
+		"entity.skillLevel('Missing', '', false)",
+		"entity.currentEncumbrance(false, true)",
+		"true == 1",
+		"'1' == 1",
+		"'1' === 1",
+		"false != ''",
+	} {
+		fast, ok := resolveFastScript(e, text)
+		c.True(ok, text)
+		result, failed := runScriptForResult(e, ScriptSelfProvider{}, text, nil)
+		c.True(!failed, text)
+		c.Equal(result, fast, text)
+	}
+	for _, text := range []string{
+		"$unknown + 1",
+		"self.value",
+		"Math.exp2(3)",
+		"$st.name",
+		"2 ** 3",
+		"'a' < 'b'",
+		"$st == $st",
+		"entity.attributes",
+		"Math.max.apply(null, [1, 2])",
+		"x = 1",
+		"'1' + '\\n'",
+		"010",
+		"1 // comment",
+	} {
+		_, ok := resolveFastScript(e, text)
+		c.True(!ok, text)
+	}
+}
+
+func TestScriptResultCacheTracksInputs(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	for _, text := range []string{"$st * 2", "Math.max($st, 0) + 0 * $dx.current", "entity.hasTrait('Fit') ? 1 : $st"} {
+		key := scriptResolveKey{text: text}
+		resolveScript(e, ScriptSelfProvider{}, text)
+		result := e.scriptCache.results[key]
+		c.True(result != nil && result.tracked, text)
+		result.result = "cached"
+		e.DiscardCaches()
+		c.Equal("cached", resolveScript(e, ScriptSelfProvider{}, text), "inputs unchanged: "+text)
+		e.Attributes.Set[StrengthID].Adjustment += fxp.One
+		e.DiscardCaches()
+		c.True(resolveScript(e, ScriptSelfProvider{}, text) != "cached", "inputs changed: "+text)
+	}
+	text := "$st.name + ''"
+	resolveScript(e, ScriptSelfProvider{}, text)
+	result := e.scriptCache.results[scriptResolveKey{text: text}]
+	c.True(result != nil && result.tracked, text)
+	result.result = "cached"
+	e.SheetSettings.Attributes.Set[StrengthID].Name = "Might"
+	e.DiscardCaches()
+	c.Equal("Might", resolveScript(e, ScriptSelfProvider{}, text), "attribute definition changed")
+	text = "$st + self.value"
+	self := ScriptSelfProvider{ID: "x", Provider: func() any { return map[string]any{"value": 3} }}
+	resolveScript(e, self, text)
+	result = e.scriptCache.results[scriptResolveKey{id: "x", text: text}]
+	c.True(result != nil && !result.tracked, "self is not tracked")
+	resolveScript(e, ScriptSelfProvider{}, "dice.roll('1d', false)")
+	result = e.scriptCache.results[scriptResolveKey{text: "dice.roll('1d', false)"}]
+	c.True(result != nil && !result.tracked, "random values are not tracked")
+	e.DiscardCaches()
+	_, exists := e.scriptCache.results[scriptResolveKey{text: "dice.roll('1d', false)"}]
+	c.True(!exists, "untracked results are dropped on discard")
+}
+
+func TestGlobalResolveCacheTracksSheetSettings(t *testing.T) {
+	c := check.New(t)
+	settings := GlobalSettings().SheetSettings()
+	units := settings.DefaultWeightUnits
+	defer func() {
+		settings.DefaultWeightUnits = units
+		DiscardGlobalResolveCache()
+	}()
+	text := "entity.displayWeightUnits + ''"
+	settings.DefaultWeightUnits = fxp.Pound
+	DiscardGlobalResolveCache()
+	c.Equal(fxp.Pound.Key(), resolveScript(nil, ScriptSelfProvider{}, text))
+	settings.DefaultWeightUnits = fxp.Kilogram
+	DiscardGlobalResolveCache()
+	c.Equal(fxp.Kilogram.Key(), resolveScript(nil, ScriptSelfProvider{}, text), "global default units changed")
+}
+
+func TestScriptWrappersReusedWithinGeneration(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	e.DiscardCaches()
+	se := e.scriptEntity()
+	args := e.scriptAttributeArgs()
+	c.True(se == e.scriptEntity(), "entity wrapper re-used")
+	c.True(len(args) != 0 && &args[0] == &e.scriptAttributeArgs()[0], "attribute args re-used")
+	skills := se.Skills()
+	skills = append(skills, nil)
+	c.Equal(len(skills)-1, len(se.Skills()), "memoized skills unaffected by changes to a returned slice")
+	e.DiscardCaches()
+	c.True(se != e.scriptEntity(), "entity wrapper renewed after discard")
+}
+
+func TestScriptLRU(t *testing.T) {
+	c := check.New(t)
+	cache := newScriptLRU[int](scriptLRUShardCount)
+	for i := range scriptLRUShardCount * 4 {
+		cache.put(strconv.Itoa(i), i)
+	}
+	count := 0
+	for i := range scriptLRUShardCount * 4 {
+		if v, exists := cache.get(strconv.Itoa(i)); exists {
+			c.Equal(i, v)
+			count++
+		}
+	}
+	c.True(count <= scriptLRUShardCount, "at most one entry retained per shard")
+	last := scriptLRUShardCount*4 - 1
+	v, exists := cache.get(strconv.Itoa(last))
+	c.True(exists, "most recent entry retained")
+	c.Equal(last, v)
+	cache.put("a", 1)
+	cache.put("a", 2)
+	v, exists = cache.get("a")
+	c.True(exists)
+	c.Equal(2, v)
+}
+
+// TestScriptsConcurrentRecalculate is most useful when run with -race.
+func TestScriptsConcurrentRecalculate(t *testing.T) {
+	c := check.New(t)
+	const count = 32
+	results := make([]fxp.Int, count)
+	texts := make([]string, count)
+	var wg sync.WaitGroup
+	for i := range count {
+		wg.Go(func() {
+			e := NewEntity()
+			e.Attributes.Set[StrengthID].Adjustment = fxp.FromInteger(i % 5)
+			for range 10 {
+				e.Recalculate()
+				ResolveToNumber(e, ScriptSelfProvider{}, "$st * 2")
+				ResolveToNumber(e, ScriptSelfProvider{}, "[$st, $dx].length")
+				ResolveToNumber(nil, ScriptSelfProvider{}, "[3, 4].length")
+			}
+			results[i] = ResolveToNumber(e, ScriptSelfProvider{}, "$st * 2")
+			texts[i] = ResolveText(e, ScriptSelfProvider{}, "ST <script>$st</script>, DX <script>[$dx][0]</script>")
+		})
+	}
+	wg.Wait()
+	for i := range count {
+		c.Equal(fxp.FromInteger((10+i%5)*2), results[i])
+		c.Equal("ST "+strconv.Itoa(10+i%5)+", DX 10", texts[i])
+	}
+}
+
+func TestScriptStats(t *testing.T) {
+	c := check.New(t)
+	EnableScriptStats(true)
+	defer func() {
+		EnableScriptStats(false)
+		ResetScriptStats()
+	}()
+	e := NewEntity()
+	text := "$st + $dx + 1"
+	for range 3 {
+		ResolveToNumber(e, ScriptSelfProvider{}, text)
+	}
+	var found bool
+	for _, one := range ScriptStatistics() {
+		if one.Text == text {
+			found = true
+			c.Equal(3, one.Calls())
+			c.Equal(1, one.CacheMisses)
+			c.Equal(1, one.Native)
+		}
+	}
+	c.True(found, "statistics recorded")
+	var buffer strings.Builder
+	c.NoError(WriteScriptStats(&buffer))
+	c.True(strings.Contains(buffer.String(), text), "report includes the script")
+}
+
+func TestResolveTextMatchesRegex(t *testing.T) {
+	c := check.New(t)
+	re := regexp.MustCompile(`(?s)<script>.*?</script>`)
+	for _, text := range []string{
+		"",
+		"plain text",
+		"<script>1 + 1</script>",
+		"a <script>1 + 1</script> b <script>'x' + 2</script> c",
+		"<script>1</script><script>2</script>",
+		"open <script>1 + 1",
+		"<script>1</script> then <script>2",
+		"</script> <script>3\n+ 4</script>",
+		"<script><script>5</script></script>",
+		"<SCRIPT>6</SCRIPT>",
+	} {
+		expected := re.ReplaceAllStringFunc(text, func(s string) string {
+			return resolveScript(nil, ScriptSelfProvider{}, s[len(scriptStart):len(s)-len(scriptEnd)])
+		})
+		c.Equal(expected, ResolveText(nil, ScriptSelfProvider{}, text), text)
+	}
+	text := "no scripts here"
+	c.Equal(0.0, testing.AllocsPerRun(100, func() { _ = ResolveText(nil, ScriptSelfProvider{}, text) }))
+}
@@ -39,6 +39,7 @@ func DeferredNewScriptTrait(trait *Trait) ScriptSelfProvider {
 		return ScriptSelfProvider{}
 	}
 	return ScriptSelfProvider{
+		owner:    trait,
 		ID:       trait.TID,
 		Provider: func() any { return newScriptTrait(trait) },
 	}
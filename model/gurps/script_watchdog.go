@@ -0,0 +1,91 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"sync"
+	"time"
+
+	"github.com/dop251/goja"
+)
+
+// scriptWatchdog interrupts scripts that run past their deadline. A single goroutine serves all running scripts,
+// rather than arming a new timer for each one.
+var scriptWatchdog struct {
+	lock    sync.Mutex
+	once    sync.Once
+	wake    chan struct{}
+	watches map[*scriptWatch]struct{}
+}
+
+// scriptWatch tracks the deadline of a running script. The zero value is ready to use and may be reused once stopped.
+type scriptWatch struct {
+	vm       *goja.Runtime
+	deadline time.Time
+}
+
+// start watching the runtime, interrupting it if it is still running once the timeout elapses.
+func (w *scriptWatch) start(vm *goja.Runtime, timeout time.Duration) {
+	scriptWatchdog.once.Do(func() {
+		scriptWatchdog.wake = make(chan struct{}, 1)
+		scriptWatchdog.watches = make(map[*scriptWatch]struct{})
+		go runScriptWatchdog()
+	})
+	w.vm = vm
+	w.deadline = time.Now().Add(timeout)
+	scriptWatchdog.lock.Lock()
+	scriptWatchdog.watches[w] = struct{}{}
+	scriptWatchdog.lock.Unlock()
+	select {
+	case scriptWatchdog.wake <- struct{}{}:
+	default:
+	}
+}
+
+// stop watching the runtime. Any interrupt that was delivered after the script finished is cleared, so the runtime can
+// be reused.
+func (w *scriptWatch) stop() {
+	scriptWatchdog.lock.Lock()
+	delete(scriptWatchdog.watches, w)
+	scriptWatchdog.lock.Unlock()
+	w.vm.ClearInterrupt()
+	w.vm = nil
+}
+
+func runScriptWatchdog() {
+	timer := time.NewTimer(time.Hour)
+	timer.Stop()
+	for {
+		var next time.Time
+		now := time.Now()
+		scriptWatchdog.lock.Lock()
+		for w := range scriptWatchdog.watches {
+			if now.Before(w.deadline) {
+				if next.IsZero() || w.deadline.Before(next) {
+					next = w.deadline
+				}
+			} else {
+				w.vm.Interrupt("timeout")
+				delete(scriptWatchdog.watches, w)
+			}
+		}
+		scriptWatchdog.lock.Unlock()
+		if next.IsZero() {
+			<-scriptWatchdog.wake
+			continue
+		}
+		timer.Reset(next.Sub(now))
+		select {
+		case <-timer.C:
+		case <-scriptWatchdog.wake:
+			timer.Stop()
+		}
+	}
+}
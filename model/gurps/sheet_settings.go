@@ -11,12 +11,16 @@ package gurps
 
 import (
 	"encoding/json"
+	"hash"
 	"io/fs"
+	"math"
 
 	"github.com/richardwilkes/gcs/v5/model/fxp"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/display"
 	"github.com/richardwilkes/gcs/v5/model/gurps/enums/progression"
 	"github.com/richardwilkes/gcs/v5/model/jio"
+	"github.com/richardwilkes/gcs/v5/model/paper"
+	"github.com/richardwilkes/toolbox/v2/xhash"
 )
 
 // SheetSettingsResponder defines the method required to be notified of updates to the SheetSettings.
@@ -183,3 +187,55 @@ func (s *SheetSettings) SetOwningEntity(entity *Entity) {
 func (s *SheetSettings) Save(filePath string) error {
 	return jio.SaveToFile(filePath, s)
 }
+
+func (s *SheetSettings) hashContents(h hash.Hash) {
+	if s.Page != nil {
+		xhash.StringWithLen(h, s.Page.Size)
+		xhash.Num8(h, s.Page.Orientation)
+		for _, one := range []paper.Length{s.Page.TopMargin, s.Page.LeftMargin, s.Page.BottomMargin, s.Page.RightMargin} {
+			xhash.Num64(h, math.Float64bits(one.Length))
+			xhash.Num8(h, one.Units)
+		}
+	} else {
+		xhash.Num8(h, uint8(255))
+	}
+	if s.BlockLayout != nil {
+		xhash.Num64(h, len(s.BlockLayout.Layout))
+		for _, one := range s.BlockLayout.Layout {
+			xhash.StringWithLen(h, one)
+		}
+	} else {
+		xhash.Num8(h, uint8(255))
+	}
+	if s.Attributes != nil {
+		s.Attributes.Hash(h)
+	} else {
+		xhash.Num8(h, uint8(255))
+	}
+	if s.BodyType != nil {
+		s.BodyType.Hash(h)
+	} else {
+		xhash.Num8(h, uint8(255))
+	}
+	xhash.Num8(h, s.DamageProgression)
+	xhash.Num8(h, s.DefaultLengthUnits)
+	xhash.Num8(h, s.DefaultWeightUnits)
+	xhash.Num8(h, s.UserDescriptionDisplay)
+	xhash.Num8(h, s.ModifiersDisplay)
+	xhash.Num8(h, s.NotesDisplay)
+	xhash.Num8(h, s.SkillLevelAdjDisplay)
+	xhash.Bool(h, s.UseMultiplicativeModifiers)
+	xhash.Bool(h, s.UseModifyingDicePlusAdds)
+	xhash.Bool(h, s.UseHalfStatDefaults)
+	xhash.Bool(h, s.ShowTraitModifierAdj)
+	xhash.Bool(h, s.ShowEquipmentModifierAdj)
+	xhash.Bool(h, s.ShowSpellAdj)
+	xhash.Bool(h, s.HideSourceMismatch)
+	xhash.Bool(h, s.HideTLColumn)
+	xhash.Bool(h, s.HideLCColumn)
+	xhash.Bool(h, s.UseTitleInFooter)
+	xhash.Bool(h, s.ExcludeUnspentPointsFromTotal)
+	xhash.Bool(h, s.ShowLiftingSTDamage)
+	xhash.Bool(h, s.ShowIQBasedDamage)
+	xhash.Bool(h, s.UseSkillTrees)
+}
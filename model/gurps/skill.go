@@ -11,7 +11,6 @@ package gurps
 
 import (
 	"encoding/json"
-	"fmt"
 	"hash"
 	"io/fs"
 	"maps"
@@ -59,9 +58,13 @@ const (
 // Skill holds the data for a skill.
 type Skill struct {
 	SkillData
-	owner             DataOwner
-	LevelData         Level
-	UnsatisfiedReason string
+	owner                  DataOwner
+	LevelData              Level
+	UnsatisfiedReason      string
+	nameTemplate           nameable.Template
+	specializationTemplate nameable.Template
+	localNotesTemplate     nameable.Template
+	levelMemo              skillLevelMemo
 }
 
 // SkillData holds the Skill data that is written to disk.
@@ -426,8 +429,8 @@ func (s *Skill) CellData(columnID int, data *CellData) {
 			data.Type = cell.Text
 			level := s.CalculateLevel(nil)
 			data.Primary = level.LevelAsString(s.Container())
-			if level.Tooltip != "" {
-				data.Tooltip = IncludesModifiersFrom() + ":" + level.Tooltip
+			if tooltip := level.Tooltip(); tooltip != "" {
+				data.Tooltip = IncludesModifiersFrom() + ":" + tooltip
 			}
 			data.Alignment = align.End
 		}
@@ -436,7 +439,7 @@ func (s *Skill) CellData(columnID int, data *CellData) {
 			data.Type = cell.Text
 			data.Primary = FormatRelativeSkill(EntityFromNode(s), s.IsTechnique(), s.Difficulty,
 				s.AdjustedRelativeLevel())
-			if tooltip := s.CalculateLevel(nil).Tooltip; tooltip != "" {
+			if tooltip := s.CalculateLevel(nil).Tooltip(); tooltip != "" {
 				data.Tooltip = IncludesModifiersFrom() + ":" + tooltip
 			}
 		}
@@ -584,16 +587,15 @@ func (s *Skill) SecondaryText(optionChecker func(display.Option) bool) string {
 
 func addTooltipForSkillLevelAdj(optionChecker func(display.Option) bool, prefs *SheetSettings, level Level, to LineBuilder) {
 	if optionChecker(prefs.SkillLevelAdjDisplay) {
-		if level.Tooltip != "" && level.Tooltip != NoAdditionalModifiers() {
-			levelTooltip := level.Tooltip
+		if text := level.Tooltip(); text != "" && text != NoAdditionalModifiers() {
 			msg := IncludesModifiersFrom()
-			if !strings.HasPrefix(levelTooltip, msg) {
-				levelTooltip = msg + ":" + levelTooltip
+			if !strings.HasPrefix(text, msg) {
+				text = msg + ":" + text
 			}
 			if optionChecker(display.Inline) {
-				levelTooltip = strings.ReplaceAll(strings.ReplaceAll(levelTooltip, ":\n", ": "), "\n", ", ")
+				text = strings.ReplaceAll(strings.ReplaceAll(text, ":\n", ": "), "\n", ", ")
 			}
-			AppendStringOntoNewLine(to, levelTooltip)
+			AppendStringOntoNewLine(to, text)
 		}
 	}
 }
@@ -742,13 +744,29 @@ func (s *Skill) CalculateLevel(excludes map[string]bool) Level {
 			s.SpecializationWithReplacements(), s.Tags, s.TechniqueDefault, s.Difficulty.Difficulty, points, requirePoints,
 			s.TechniqueLimitModifier, excludes)
 	}
-	return CalculateSkillLevel(EntityFromNode(s), s.NameWithReplacements(), s.SpecializationWithReplacements(), s.Tags,
+	// While recalculating, a skill's level can only change within a cache generation if its points or default change,
+	// so the many skills that default to it can share the result.
+	e := EntityFromNode(s)
+	memoize := e != nil && e.skillIndex != nil && e.cacheGeneration != 0
+	if memoize && s.levelMemo.matches(e.cacheGeneration, points, s.DefaultedFrom) {
+		return s.levelMemo.level
+	}
+	level := CalculateSkillLevel(e, s.NameWithReplacements(), s.SpecializationWithReplacements(), s.Tags,
 		s.DefaultedFrom, s.Difficulty, points, s.EncumbrancePenaltyMultiplier)
+	if memoize {
+		s.levelMemo = skillLevelMemo{
+			level:         level,
+			defaultedFrom: s.DefaultedFrom,
+			points:        points,
+			generation:    e.cacheGeneration,
+		}
+	}
+	return level
 }
 
 // CalculateSkillLevel returns the calculated level for a skill.
 func CalculateSkillLevel(e *Entity, name, specialization string, tags []string, def *SkillDefault, attrDiff AttributeDifficulty, points, encumbrancePenaltyMultiplier fxp.Int) Level {
-	var tooltip xbytes.InsertBuffer
+	var tooltip levelTooltip
 	relativeLevel := attrDiff.Difficulty.BaseRelativeLevel()
 	level := e.ResolveAttributeCurrent(attrDiff.Attribute)
 	if level != fxp.Min {
@@ -780,27 +798,25 @@ func CalculateSkillLevel(e *Entity, name, specialization string, tags []string,
 				level = def.AdjLevel
 			}
 			if e != nil {
-				bonus := e.SkillBonusFor(name, specialization, tags, &tooltip)
+				bonus := tooltip.skillBonusFor(e, name, specialization, tags)
 				level += bonus
 				relativeLevel += bonus
 				bonus = e.EncumbranceLevel(true).Penalty().Mul(encumbrancePenaltyMultiplier)
 				level += bonus
-				if bonus != 0 {
-					fmt.Fprintf(&tooltip, i18n.Text("\nEncumbrance [%s]"), bonus.StringWithSign())
-				}
+				tooltip.encumbrance = bonus
 			}
 		}
 	}
 	return Level{
 		Level:         level,
 		RelativeLevel: relativeLevel,
-		Tooltip:       tooltip.String(),
+		tooltip:       tooltip.finish(),
 	}
 }
 
 // CalculateTechniqueLevel returns the calculated level for a technique.
 func CalculateTechniqueLevel(e *Entity, replacements map[string]string, name, specialization string, tags []string, def *SkillDefault, diffLevel difficulty.Level, points fxp.Int, requirePoints bool, limitModifier *fxp.Int, excludes map[string]bool) Level {
-	var tooltip xbytes.InsertBuffer
+	var tooltip levelTooltip
 	var relativeLevel fxp.Int
 	level := fxp.Min
 	if e != nil {
@@ -848,7 +864,7 @@ func CalculateTechniqueLevel(e *Entity, replacements map[string]string, name, sp
 				relativeLevel = points
 			}
 			if level != fxp.Min {
-				relativeLevel += e.SkillBonusFor(name, specialization, tags, &tooltip)
+				relativeLevel += tooltip.skillBonusFor(e, name, specialization, tags)
 				level += relativeLevel
 			}
 			if limitModifier != nil {
@@ -862,7 +878,7 @@ func CalculateTechniqueLevel(e *Entity, replacements map[string]string, name, sp
 	return Level{
 		Level:         level,
 		RelativeLevel: relativeLevel,
-		Tooltip:       tooltip.String(),
+		tooltip:       tooltip.finish(),
 	}
 }
 
@@ -871,7 +887,7 @@ func (s *Skill) UpdateLevel() bool {
 	saved := s.LevelData
 	s.DefaultedFrom = s.bestDefaultWithPoints(nil)
 	s.LevelData = s.CalculateLevel(nil)
-	return saved != s.LevelData
+	return !saved.Same(s.LevelData)
 }
 
 func (s *Skill) bestDefaultWithPoints(excluded *SkillDefault) *SkillDefault {
@@ -904,15 +920,25 @@ func (s *Skill) bestDefault(excluded *SkillDefault) *SkillDefault {
 		return nil
 	}
 	requirePoints := !e.SheetSettings.UseSkillTrees
-	excludes := make(map[string]bool)
-	excludes[s.String()] = true
+	excludes := map[string]bool{s.String(): true}
+	var lookedAt map[*Skill]bool
 	var bestDef *SkillDefault
 	best := fxp.Min
 	for _, def := range s.resolveToSpecificDefaults() {
 		// For skill-based defaults, prune out any that already use a default that we are involved with
-		if def.Equivalent(s.Replacements, excluded) || (s.inDefaultChain(def, make(map[*Skill]bool)) && requirePoints) {
+		if def.Equivalent(s.Replacements, excluded) {
 			continue
 		}
+		if requirePoints {
+			if lookedAt == nil {
+				lookedAt = make(map[*Skill]bool)
+			} else {
+				clear(lookedAt)
+			}
+			if s.inDefaultChain(def, lookedAt) {
+				continue
+			}
+		}
 		if level := s.calcSkillDefaultLevel(def, excludes); best < level {
 			best = level
 			bestDef = def.CloneWithoutLevelOrPoints()
@@ -963,14 +989,17 @@ func (s *Skill) inDefaultChain(def *SkillDefault, lookedAt map[*Skill]bool) bool
 func (s *Skill) resolveToSpecificDefaults() []*SkillDefault {
 	e := EntityFromNode(s)
 	result := make([]*SkillDefault, 0, len(s.Defaults))
+	var excludes map[string]bool
 	for _, def := range s.Defaults {
 		if e == nil || def == nil || !def.SkillBased() {
 			result = append(result, def)
 		} else {
+			if excludes == nil {
+				excludes = map[string]bool{s.String(): true}
+			}
 			requirePoints := !e.SheetSettings.UseSkillTrees
 			for _, one := range e.SkillNamed(def.NameWithReplacements(s.Replacements),
-				def.SpecializationWithReplacements(s.Replacements), requirePoints,
-				map[string]bool{s.String(): true}) {
+				def.SpecializationWithReplacements(s.Replacements), requirePoints, excludes) {
 				local := *def
 				local.Name = one.NameWithReplacements()
 				local.Specialization = one.SpecializationWithReplacements()
@@ -1032,17 +1061,17 @@ func (s *Skill) Enabled() bool {
 
 // NameWithReplacements returns the name with any replacements applied.
 func (s *Skill) NameWithReplacements() string {
-	return nameable.Apply(s.Name, s.Replacements)
+	return s.nameTemplate.Apply(s.Name, s.Replacements)
 }
 
 // SpecializationWithReplacements returns the specialization with any replacements applied.
 func (s *Skill) SpecializationWithReplacements() string {
-	return nameable.Apply(s.Specialization, s.Replacements)
+	return s.specializationTemplate.Apply(s.Specialization, s.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
 func (s *Skill) LocalNotesWithReplacements() string {
-	return nameable.Apply(s.LocalNotes, s.Replacements)
+	return s.localNotesTemplate.Apply(s.LocalNotes, s.Replacements)
 }
 
 // Notes implements WeaponOwner.
@@ -1246,6 +1275,28 @@ func (s *Skill) Hash(h hash.Hash) {
 	}
 }
 
+func (s *Skill) hashContents(h hash.Hash) {
+	s.SourcedID.hashID(h)
+	s.Hash(h)
+	xhash.StringWithLen(h, s.VTTNotes)
+	hashStringMap(h, s.Replacements)
+	if s.Container() {
+		hashContentsOf(h, s.Children)
+	} else {
+		hashWeaponExtras(h, s.Weapons)
+		hashOptionalString(h, s.TechLevel)
+		xhash.Num64(h, s.Points)
+		if s.DefaultedFrom != nil {
+			s.DefaultedFrom.Hash(h)
+		} else {
+			xhash.Num8(h, uint8(255))
+		}
+		hashStudies(h, s.Study)
+		xhash.Num8(h, s.StudyHoursNeeded)
+	}
+	hashThirdParty(h, s.ThirdParty)
+}
+
 func (s *SkillSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, s.Name)
 	xhash.StringWithLen(h, s.PageRef)
@@ -0,0 +1,171 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"slices"
+	"strings"
+
+	"github.com/richardwilkes/gcs/v5/model/fxp"
+)
+
+// skillIndex provides lookup of skills & techniques by their case-folded name. It is only valid for the duration of a
+// single call to Entity.Recalculate(), as that is the only time the names are known to be stable.
+type skillIndex struct {
+	byName   map[string][]*skillIndexEntry
+	wildcard []*skillIndexEntry // Entries whose names can't be reduced to an ASCII key; checked for every lookup
+	named    map[skillNamedKey]skillNamedResult
+	entries  []*skillIndexEntry
+}
+
+// skillNamedKey identifies a lookup. When folded is true, the name and specialization have been reduced with
+// asciiFoldKey(); otherwise, they are exactly as requested.
+type skillNamedKey struct {
+	name           string
+	specialization string
+	requirePoints  bool
+	folded         bool
+}
+
+// skillNamedResult holds the result of a lookup prior to the removal of any excluded skills.
+type skillNamedResult struct {
+	entries []*skillIndexEntry
+	skills  []*Skill
+}
+
+// skillLevelMemo holds the level last calculated for a skill during Entity.Recalculate(), along with the inputs that
+// can vary within a single cache generation.
+type skillLevelMemo struct {
+	level         Level
+	defaultedFrom *SkillDefault
+	points        fxp.Int
+	generation    uint64
+}
+
+type skillIndexEntry struct {
+	skill          *Skill
+	name           string
+	specialization string
+	str            string
+	seq            int
+	technique      bool
+	pointsKnown    bool
+	hasPoints      bool
+}
+
+func newSkillIndex(skills []*Skill) *skillIndex {
+	index := &skillIndex{
+		byName:  make(map[string][]*skillIndexEntry),
+		named:   make(map[skillNamedKey]skillNamedResult),
+		entries: make([]*skillIndexEntry, 0, len(skills)),
+	}
+	for _, sk := range skills {
+		entry := &skillIndexEntry{
+			skill:          sk,
+			name:           sk.NameWithReplacements(),
+			specialization: sk.SpecializationWithReplacements(),
+			str:            sk.String(),
+			seq:            len(index.entries),
+			technique:      sk.IsTechnique(),
+		}
+		index.entries = append(index.entries, entry)
+		if key, ok := asciiFoldKey(entry.name); ok {
+			index.byName[key] = append(index.byName[key], entry)
+		} else {
+			index.wildcard = append(index.wildcard, entry)
+		}
+	}
+	return index
+}
+
+// invalidatePoints marks the cached point state of each entry as stale. Must be called whenever the skill point bonuses
+// may have changed.
+func (index *skillIndex) invalidatePoints() {
+	for _, entry := range index.entries {
+		entry.pointsKnown = false
+	}
+	clear(index.named)
+}
+
+// candidates calls 'f' for each entry that might have the given name, in the order the skills were added. The caller is
+// still responsible for checking the name.
+func (index *skillIndex) candidates(name string, f func(entry *skillIndexEntry)) {
+	key, ok := asciiFoldKey(name)
+	if !ok {
+		for _, entry := range index.entries {
+			f(entry)
+		}
+		return
+	}
+	exact := index.byName[key]
+	i := 0
+	j := 0
+	for i < len(exact) || j < len(index.wildcard) {
+		if j >= len(index.wildcard) || (i < len(exact) && exact[i].seq < index.wildcard[j].seq) {
+			f(exact[i])
+			i++
+		} else {
+			f(index.wildcard[j])
+			j++
+		}
+	}
+}
+
+// lookup returns the skills that match. When there are no exclusions, the returned slice is shared with other callers
+// and must not be modified.
+func (index *skillIndex) lookup(name, specialization string, requirePoints bool, excludes map[string]bool) []*Skill {
+	key := skillNamedKey{
+		name:           name,
+		specialization: specialization,
+		requirePoints:  requirePoints,
+	}
+	if foldedName, nameOK := asciiFoldKey(name); nameOK {
+		if foldedSpecialization, specializationOK := asciiFoldKey(specialization); specializationOK {
+			key.name = foldedName
+			key.specialization = foldedSpecialization
+			key.folded = true
+		}
+	}
+	result, exists := index.named[key]
+	if !exists {
+		index.candidates(name, func(entry *skillIndexEntry) {
+			if (!requirePoints || entry.technique || entry.withPoints()) &&
+				strings.EqualFold(entry.name, name) &&
+				(specialization == "" || strings.EqualFold(entry.specialization, specialization)) {
+				result.entries = append(result.entries, entry)
+				result.skills = append(result.skills, entry.skill)
+			}
+		})
+		result.skills = slices.Clip(result.skills)
+		index.named[key] = result
+	}
+	if len(excludes) == 0 {
+		return result.skills
+	}
+	var list []*Skill
+	for _, entry := range result.entries {
+		if !excludes[entry.str] {
+			list = append(list, entry.skill)
+		}
+	}
+	return list
+}
+
+func (entry *skillIndexEntry) withPoints() bool {
+	if !entry.pointsKnown {
+		entry.hasPoints = entry.skill.AdjustedPoints(nil) > 0
+		entry.pointsKnown = true
+	}
+	return entry.hasPoints
+}
+
+func (m *skillLevelMemo) matches(generation uint64, points fxp.Int, defaultedFrom *SkillDefault) bool {
+	return m.generation == generation && m.points == points && m.defaultedFrom == defaultedFrom
+}
@@ -77,17 +77,21 @@ func (p *SkillPrereq) Satisfied(entity *Entity, exclude any, tooltip *xbytes.Ins
 	if sk, ok := exclude.(*Skill); ok {
 		techLevel = sk.TechLevel
 	}
-	Traverse(func(sk *Skill) bool {
-		if exclude == sk || !p.NameCriteria.Matches(replacements, sk.NameWithReplacements()) ||
-			!p.SpecializationCriteria.Matches(replacements, sk.SpecializationWithReplacements()) {
-			return false
+	nameMatcher := p.NameCriteria.Compile(replacements)
+	specializationMatcher := p.SpecializationCriteria.Compile(replacements)
+	for sk := range entity.prereqSkills(&nameMatcher) {
+		if exclude == sk || !nameMatcher.Matches(sk.NameWithReplacements()) ||
+			!specializationMatcher.Matches(sk.SpecializationWithReplacements()) {
+			continue
 		}
 		satisfied = p.LevelCriteria.Matches(sk.LevelData.Level)
 		if satisfied && techLevel != nil {
 			satisfied = sk.TechLevel == nil || *techLevel == *sk.TechLevel
 		}
-		return satisfied
-	}, false, true, entity.Skills...)
+		if satisfied {
+			break
+		}
+	}
 	if !p.Has {
 		satisfied = !satisfied
 	}
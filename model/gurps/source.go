@@ -77,42 +77,29 @@ func (l LibraryFile) String() string {
 // PrepareHashes for the given ListProvider.
 func (sm *SrcMatcher) PrepareHashes(provider ListProvider) {
 	neededLibs := make(map[LibraryFile]struct{})
-	Traverse(func(t *Trait) bool {
+	for t := range TraverseSeq(false, false, provider.TraitList()...) {
 		t.Source.collectInto(neededLibs)
-		Traverse(func(mod *TraitModifier) bool {
+		for mod := range TraverseSeq(false, false, t.Modifiers...) {
 			mod.Source.collectInto(neededLibs)
-			return false
-		}, false, false, t.Modifiers...)
-		return false
-	}, false, false, provider.TraitList()...)
-	Traverse(func(s *Skill) bool {
+		}
+	}
+	for s := range TraverseSeq(false, false, provider.SkillList()...) {
 		s.Source.collectInto(neededLibs)
-		return false
-	}, false, false, provider.SkillList()...)
-	Traverse(func(s *Spell) bool {
+	}
+	for s := range TraverseSeq(false, false, provider.SpellList()...) {
 		s.Source.collectInto(neededLibs)
-		return false
-	}, false, false, provider.SpellList()...)
-	Traverse(func(e *Equipment) bool {
-		e.Source.collectInto(neededLibs)
-		Traverse(func(mod *EquipmentModifier) bool {
-			mod.Source.collectInto(neededLibs)
-			return false
-		}, false, false, e.Modifiers...)
-		return false
-	}, false, false, provider.CarriedEquipmentList()...)
-	Traverse(func(e *Equipment) bool {
-		e.Source.collectInto(neededLibs)
-		Traverse(func(mod *EquipmentModifier) bool {
-			mod.Source.collectInto(neededLibs)
-			return false
-		}, false, false, e.Modifiers...)
-		return false
-	}, false, false, provider.OtherEquipmentList()...)
-	Traverse(func(n *Note) bool {
+	}
+	for _, list := range [][]*Equipment{provider.CarriedEquipmentList(), provider.OtherEquipmentList()} {
+		for e := range TraverseSeq(false, false, list...) {
+			e.Source.collectInto(neededLibs)
+			for mod := range TraverseSeq(false, false, e.Modifiers...) {
+				mod.Source.collectInto(neededLibs)
+			}
+		}
+	}
+	for n := range TraverseSeq(false, false, provider.NoteList()...) {
 		n.Source.collectInto(neededLibs)
-		return false
-	}, false, false, provider.NoteList()...)
+	}
 	libs := GlobalSettings().Libraries()
 	if sm.libHashes == nil {
 		sm.libHashes = make(map[LibraryFile]libSrcData)
@@ -135,61 +122,9 @@ func (sm *SrcMatcher) PrepareHashes(provider ListProvider) {
 			}
 			delete(sm.libHashes, libFile)
 		}
-		var srcData libSrcData
-		srcData.timestamp = modTime
-		srcData.dataHashes = make(map[tid.TID]HashAndData)
-		dir := os.DirFS(filepath.Dir(p))
-		file := filepath.Base(p)
-		fi := FileInfoFor(p)
-		if fi == nil || len(fi.Extensions) == 0 {
-			continue
-		}
-		switch fi.Extensions[0] {
-		case TraitsExt:
-			var data []*Trait
-			if data, err = NewTraitsFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-				Traverse(func(t *Trait) bool {
-					NodesToHashesByID(srcData.dataHashes, t.Modifiers...)
-					return false
-				}, false, false, data...)
-			}
-		case TraitModifiersExt:
-			var data []*TraitModifier
-			if data, err = NewTraitModifiersFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-			}
-		case SkillsExt:
-			var data []*Skill
-			if data, err = NewSkillsFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-			}
-		case SpellsExt:
-			var data []*Spell
-			if data, err = NewSpellsFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-			}
-		case EquipmentExt:
-			var data []*Equipment
-			if data, err = NewEquipmentFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-				Traverse(func(e *Equipment) bool {
-					NodesToHashesByID(srcData.dataHashes, e.Modifiers...)
-					return false
-				}, false, false, data...)
-			}
-		case EquipmentModifiersExt:
-			var data []*EquipmentModifier
-			if data, err = NewEquipmentModifiersFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-			}
-		case NotesExt:
-			var data []*Note
-			if data, err = NewNotesFromFile(dir, file); err == nil {
-				NodesToHashesByID(srcData.dataHashes, data...)
-			}
+		if srcData, loaded := sharedLibSrcData(p, modTime); loaded {
+			sm.libHashes[libFile] = srcData
 		}
-		sm.libHashes[libFile] = srcData
 	}
 }
 
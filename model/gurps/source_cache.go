@@ -0,0 +1,97 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"sync"
+	"time"
+
+	"github.com/richardwilkes/toolbox/v2/tid"
+)
+
+// libSrcCache holds the source data loaded from library files. It is shared by all SrcMatcher instances, so that a
+// library file is only read and hashed once no matter how many sheets and templates refer to it. The data is never
+// modified once loaded, so it can be handed out to any number of matchers at once.
+var libSrcCache = struct {
+	entries map[string]*libSrcCacheEntry
+	lock    sync.Mutex
+}{entries: make(map[string]*libSrcCacheEntry)}
+
+type libSrcCacheEntry struct {
+	ready  chan struct{} // Closed once the data has been loaded
+	data   libSrcData
+	loaded bool
+}
+
+// sharedLibSrcData returns the source data for the library file at the given path, loading it if it hasn't been
+// loaded since it was last modified. Returns false if the file isn't a type that can be a source.
+func sharedLibSrcData(p string, modTime time.Time) (libSrcData, bool) {
+	libSrcCache.lock.Lock()
+	entry, exists := libSrcCache.entries[p]
+	if exists && entry.data.timestamp.Equal(modTime) {
+		libSrcCache.lock.Unlock()
+		<-entry.ready
+		return entry.data, entry.loaded
+	}
+	entry = &libSrcCacheEntry{
+		ready: make(chan struct{}),
+		data:  libSrcData{timestamp: modTime},
+	}
+	libSrcCache.entries[p] = entry
+	libSrcCache.lock.Unlock()
+	entry.data.dataHashes, entry.loaded = loadLibSrcHashes(p)
+	close(entry.ready)
+	return entry.data, entry.loaded
+}
+
+func loadLibSrcHashes(p string) (map[tid.TID]HashAndData, bool) {
+	fi := FileInfoFor(p)
+	if fi == nil || len(fi.Extensions) == 0 {
+		return nil, false
+	}
+	hashes := make(map[tid.TID]HashAndData)
+	switch fi.Extensions[0] {
+	case TraitsExt:
+		if data, err := CachedLibraryFile(p, NewTraitsFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+			for t := range TraverseSeq(false, false, data...) {
+				NodesToHashesByID(hashes, t.Modifiers...)
+			}
+		}
+	case TraitModifiersExt:
+		if data, err := CachedLibraryFile(p, NewTraitModifiersFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+		}
+	case SkillsExt:
+		if data, err := CachedLibraryFile(p, NewSkillsFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+		}
+	case SpellsExt:
+		if data, err := CachedLibraryFile(p, NewSpellsFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+		}
+	case EquipmentExt:
+		if data, err := CachedLibraryFile(p, NewEquipmentFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+			for e := range TraverseSeq(false, false, data...) {
+				NodesToHashesByID(hashes, e.Modifiers...)
+			}
+		}
+	case EquipmentModifiersExt:
+		if data, err := CachedLibraryFile(p, NewEquipmentModifiersFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+		}
+	case NotesExt:
+		if data, err := CachedLibraryFile(p, NewNotesFromFile); err == nil {
+			NodesToHashesByID(hashes, data...)
+		}
+	}
+	return hashes, true
+}
@@ -0,0 +1,51 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"os"
+	"path/filepath"
+	"sync"
+	"testing"
+	"time"
+
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestSharedLibSrcData(t *testing.T) {
+	c := check.New(t)
+	e := NewEntity()
+	sk := NewSkill(e, nil, false)
+	sk.Name = "Shared"
+	p := filepath.Join(t.TempDir(), "shared"+SkillsExt)
+	c.NoError(SaveSkills([]*Skill{sk}, p))
+	stat, err := os.Stat(p)
+	c.NoError(err)
+
+	results := make([]libSrcData, 8)
+	var wg sync.WaitGroup
+	for i := range results {
+		wg.Go(func() {
+			var loaded bool
+			results[i], loaded = sharedLibSrcData(p, stat.ModTime())
+			c.True(loaded, "loaded")
+		})
+	}
+	wg.Wait()
+	c.Equal(1, len(results[0].dataHashes))
+	for _, one := range results[1:] {
+		c.True(one.dataHashes[sk.TID].Data == results[0].dataHashes[sk.TID].Data, "data shared between callers")
+	}
+
+	modTime := stat.ModTime().Add(time.Second)
+	c.NoError(os.Chtimes(p, modTime, modTime))
+	later, _ := sharedLibSrcData(p, modTime)
+	c.True(later.dataHashes[sk.TID].Data != results[0].dataHashes[sk.TID].Data, "reloaded once modified")
+}
@@ -69,9 +69,12 @@ const (
 // Spell holds the data for a spell.
 type Spell struct {
 	SpellData
-	owner             DataOwner
-	LevelData         Level
-	UnsatisfiedReason string
+	owner               DataOwner
+	LevelData           Level
+	UnsatisfiedReason   string
+	nameTemplate        nameable.Template
+	localNotesTemplate  nameable.Template
+	powerSourceTemplate nameable.Template
 }
 
 // SpellData holds the Spell data that is written to disk.
@@ -500,8 +503,8 @@ func (s *Spell) CellData(columnID int, data *CellData) {
 			data.Type = cell.Text
 			level := s.CalculateLevel()
 			data.Primary = level.LevelAsString(s.Container())
-			if level.Tooltip != "" {
-				data.Tooltip = IncludesModifiersFrom() + ":" + level.Tooltip
+			if tooltip := level.Tooltip(); tooltip != "" {
+				data.Tooltip = IncludesModifiersFrom() + ":" + tooltip
 			}
 			data.Alignment = align.End
 		}
@@ -517,7 +520,7 @@ func (s *Spell) CellData(columnID int, data *CellData) {
 					data.Primary += rsl.StringWithSign()
 				}
 			}
-			if tooltip := s.CalculateLevel().Tooltip; tooltip != "" {
+			if tooltip := s.CalculateLevel().Tooltip(); tooltip != "" {
 				data.Tooltip = IncludesModifiersFrom() + ":" + tooltip
 			}
 		}
@@ -636,7 +639,7 @@ func (s *Spell) UpdateLevel() bool {
 		s.LevelData = CalculateSpellLevel(EntityFromNode(s), s.NameWithReplacements(), s.PowerSourceWithReplacements(),
 			colleges, s.Tags, s.Difficulty, s.AdjustedPoints(nil))
 	}
-	return saved != s.LevelData
+	return !saved.Same(s.LevelData)
 }
 
 // CalculateLevel returns the computed level without updating it.
@@ -703,7 +706,7 @@ func (s *Spell) DecrementSkillLevel() {
 
 // CalculateSpellLevel returns the calculated spell level.
 func CalculateSpellLevel(e *Entity, name, powerSource string, colleges, tags []string, attrDiff AttributeDifficulty, pts fxp.Int) Level {
-	var tooltip xbytes.InsertBuffer
+	var tooltip levelTooltip
 	relativeLevel := attrDiff.Difficulty.BaseRelativeLevel()
 	level := fxp.Min
 	if e != nil {
@@ -724,7 +727,7 @@ func CalculateSpellLevel(e *Entity, name, powerSource string, colleges, tags []s
 			relativeLevel += fxp.One + pts.Div(fxp.Four).Floor()
 		}
 		if level != fxp.Min {
-			relativeLevel += e.SpellBonusFor(name, powerSource, colleges, tags, &tooltip)
+			relativeLevel += tooltip.spellBonusFor(e, name, powerSource, colleges, tags)
 			relativeLevel = relativeLevel.Floor()
 			level += relativeLevel
 		}
@@ -732,7 +735,7 @@ func CalculateSpellLevel(e *Entity, name, powerSource string, colleges, tags []s
 	return Level{
 		Level:         level,
 		RelativeLevel: relativeLevel,
-		Tooltip:       tooltip.String(),
+		tooltip:       tooltip.finish(),
 	}
 }
 
@@ -752,12 +755,11 @@ func CalculateRitualMagicSpellLevel(e *Entity, name, powerSource, ritualSkillNam
 		}
 	}
 	if e != nil {
-		tooltip := &xbytes.InsertBuffer{}
-		tooltip.WriteString(skillLevel.Tooltip)
-		levels := e.SpellBonusFor(name, powerSource, colleges, tags, tooltip).Floor()
+		tooltip := levelTooltip{base: skillLevel.tooltip}
+		levels := tooltip.spellBonusFor(e, name, powerSource, colleges, tags).Floor()
 		skillLevel.Level += levels
 		skillLevel.RelativeLevel += levels
-		skillLevel.Tooltip = tooltip.String()
+		skillLevel.tooltip = tooltip.finish()
 	}
 	return skillLevel
 }
@@ -1008,17 +1010,17 @@ func (s *Spell) NameableReplacements() map[string]string {
 
 // NameWithReplacements returns the name with any replacements applied.
 func (s *Spell) NameWithReplacements() string {
-	return nameable.Apply(s.Name, s.Replacements)
+	return s.nameTemplate.Apply(s.Name, s.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
 func (s *Spell) LocalNotesWithReplacements() string {
-	return nameable.Apply(s.LocalNotes, s.Replacements)
+	return s.localNotesTemplate.Apply(s.LocalNotes, s.Replacements)
 }
 
 // PowerSourceWithReplacements returns the power source with any replacements applied.
 func (s *Spell) PowerSourceWithReplacements() string {
-	return nameable.Apply(s.PowerSource, s.Replacements)
+	return s.powerSourceTemplate.Apply(s.PowerSource, s.Replacements)
 }
 
 // ClassWithReplacements returns the class with any replacements applied.
@@ -1168,6 +1170,23 @@ func (s *Spell) Hash(h hash.Hash) {
 	}
 }
 
+func (s *Spell) hashContents(h hash.Hash) {
+	s.SourcedID.hashID(h)
+	s.Hash(h)
+	xhash.StringWithLen(h, s.VTTNotes)
+	hashStringMap(h, s.Replacements)
+	if s.Container() {
+		hashContentsOf(h, s.Children)
+	} else {
+		hashWeaponExtras(h, s.Weapons)
+		hashOptionalString(h, s.TechLevel)
+		xhash.Num64(h, s.Points)
+		hashStudies(h, s.Study)
+		xhash.Num8(h, s.StudyHoursNeeded)
+	}
+	hashThirdParty(h, s.ThirdParty)
+}
+
 func (s *SpellSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, s.Name)
 	xhash.StringWithLen(h, s.PageRef)
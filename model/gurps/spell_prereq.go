@@ -82,28 +82,29 @@ func (p *SpellPrereq) Satisfied(entity *Entity, exclude any, tooltip *xbytes.Ins
 	}
 	count := 0
 	colleges := make(map[string]bool)
-	Traverse(func(sp *Spell) bool {
-		if exclude == sp || sp.AdjustedPoints(nil) == 0 {
-			return false
+	qualifier := p.QualifierCriteria.Compile(replacements)
+	for sp := range entity.prereqSpells(p.SubType, &qualifier) {
+		if exclude == sp {
+			continue
 		}
 		if techLevel != nil && sp.TechLevel != nil && *techLevel != *sp.TechLevel {
-			return false
+			continue
 		}
 		switch p.SubType {
 		case spellcmp.Name:
-			if p.QualifierCriteria.Matches(replacements, sp.NameWithReplacements()) {
+			if qualifier.Matches(sp.NameWithReplacements()) {
 				count++
 			}
 		case spellcmp.Tag:
 			for _, one := range sp.Tags {
-				if p.QualifierCriteria.Matches(replacements, one) {
+				if qualifier.Matches(one) {
 					count++
 					break
 				}
 			}
 		case spellcmp.College:
 			for _, one := range sp.CollegeWithReplacements() {
-				if p.QualifierCriteria.Matches(replacements, one) {
+				if qualifier.Matches(one) {
 					count++
 					break
 				}
@@ -115,8 +116,7 @@ func (p *SpellPrereq) Satisfied(entity *Entity, exclude any, tooltip *xbytes.Ins
 		case spellcmp.Any:
 			count++
 		}
-		return false
-	}, false, true, entity.Spells...)
+	}
 	if p.SubType == spellcmp.CollegeCount {
 		count = len(colleges)
 	}
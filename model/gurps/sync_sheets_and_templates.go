@@ -10,21 +10,21 @@
 package gurps
 
 import (
-	"fmt"
 	"maps"
 	"os"
 	"path/filepath"
 	"slices"
 	"strings"
 
-	"github.com/richardwilkes/toolbox/v2/i18n"
 	"github.com/richardwilkes/toolbox/v2/xfilepath"
 	"github.com/richardwilkes/toolbox/v2/xslices"
 	"github.com/richardwilkes/toolbox/v2/xstrings"
 )
 
-// SyncSheetsAndTemplates syncs GCS sheet and template files found in the given paths with their source libraries.
-func SyncSheetsAndTemplates(paths ...string) error {
+// SyncSheetsAndTemplates syncs GCS sheet and template files found in the given paths with their source libraries, with
+// up to 'jobs' files being synced at once. A value of 0 or less for 'jobs' means one per CPU. Each library file is only
+// read once, no matter how many of the files refer to it.
+func SyncSheetsAndTemplates(jobs int, paths ...string) error {
 	var err error
 	paths, err = xfilepath.UniquePaths(paths...)
 	if err != nil {
@@ -36,35 +36,29 @@ func SyncSheetsAndTemplates(paths ...string) error {
 		_ = filepath.WalkDir(p, f) //nolint:errcheck // We want to continue on even if there was an error
 	}
 	list := slices.SortedFunc(maps.Keys(pathSet), func(a, b string) int { return xstrings.NaturalCmp(a, b, true) })
-	for _, p := range list {
-		fmt.Printf(i18n.Text("Processing %s\n"), p)
-		switch strings.ToLower(filepath.Ext(p)) {
-		case TemplatesExt:
-			var tmpl *Template
-			if tmpl, err = NewTemplateFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			tmpl.SyncWithLibrarySources()
-			tmpl.EnsureAttachments()
-			if err = tmpl.Save(p); err != nil {
-				return err
-			}
-		case SheetExt:
-			var entity *Entity
-			if entity, err = NewEntityFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p)); err != nil {
-				return err
-			}
-			entity.SyncWithLibrarySources()
-			entity.Recalculate()
-			if err = entity.Save(p); err != nil {
-				return err
-			}
+	return processBatch(os.Stdout, jobs, list, syncFile)
+}
+
+// syncFile syncs a single GCS sheet or template file with its source libraries.
+func syncFile(p string) error {
+	switch strings.ToLower(filepath.Ext(p)) {
+	case TemplatesExt:
+		tmpl, err := NewTemplateFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p))
+		if err != nil {
+			return err
 		}
+		tmpl.SyncWithLibrarySources()
+		tmpl.EnsureAttachments()
+		return tmpl.Save(p)
+	case SheetExt:
+		entity, err := NewEntityFromFile(os.DirFS(filepath.Dir(p)), filepath.Base(p))
+		if err != nil {
+			return err
+		}
+		entity.SyncWithLibrarySources()
+		entity.Recalculate()
+		return entity.Save(p)
+	default:
+		return nil
 	}
-	if len(list) == 1 {
-		fmt.Println(i18n.Text("Processed 1 file"))
-	} else {
-		fmt.Printf(i18n.Text("Processed %d files\n"), len(list))
-	}
-	return nil
 }
@@ -57,8 +57,10 @@ const (
 // Trait holds an advantage, disadvantage, quirk, or perk.
 type Trait struct {
 	TraitData
-	owner             DataOwner
-	UnsatisfiedReason string
+	owner              DataOwner
+	UnsatisfiedReason  string
+	nameTemplate       nameable.Template
+	localNotesTemplate nameable.Template
 }
 
 // TraitData holds the Trait data that is written to disk.
@@ -523,12 +525,12 @@ func (t *Trait) Enabled() bool {
 
 // NameWithReplacements returns the name with any replacements applied.
 func (t *Trait) NameWithReplacements() string {
-	return nameable.Apply(t.Name, t.Replacements)
+	return t.nameTemplate.Apply(t.Name, t.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
 func (t *Trait) LocalNotesWithReplacements() string {
-	return nameable.Apply(t.LocalNotes, t.Replacements)
+	return t.localNotesTemplate.Apply(t.LocalNotes, t.Replacements)
 }
 
 // UserDescWithReplacements returns the user description with any replacements applied.
@@ -846,6 +848,26 @@ func (t *Trait) Hash(h hash.Hash) {
 	}
 }
 
+func (t *Trait) hashContents(h hash.Hash) {
+	t.SourcedID.hashID(h)
+	t.Hash(h)
+	xhash.StringWithLen(h, t.VTTNotes)
+	xhash.StringWithLen(h, t.UserDesc)
+	hashStringMap(h, t.Replacements)
+	hashContentsOf(h, t.Modifiers)
+	xhash.Num8(h, t.CR)
+	xhash.Bool(h, t.Disabled)
+	if t.Container() {
+		hashContentsOf(h, t.Children)
+	} else {
+		hashWeaponExtras(h, t.Weapons)
+		xhash.Num64(h, t.Levels)
+		hashStudies(h, t.Study)
+		xhash.Num8(h, t.StudyHoursNeeded)
+	}
+	hashThirdParty(h, t.ThirdParty)
+}
+
 func (t *TraitSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, t.Name)
 	xhash.StringWithLen(h, t.PageRef)
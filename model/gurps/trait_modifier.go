@@ -63,8 +63,10 @@ type GeneralModifier interface {
 // TraitModifier holds a modifier to an Trait.
 type TraitModifier struct {
 	TraitModifierData
-	owner DataOwner
-	trait *Trait
+	owner              DataOwner
+	trait              *Trait
+	nameTemplate       nameable.Template
+	localNotesTemplate nameable.Template
 }
 
 // TraitModifierData holds the TraitModifier data that is written to disk.
@@ -525,7 +527,7 @@ func (t *TraitModifier) NameWithReplacements() string {
 	if t.trait == nil {
 		return t.Name
 	}
-	return nameable.Apply(t.Name, t.trait.Replacements)
+	return t.nameTemplate.Apply(t.Name, t.trait.Replacements)
 }
 
 // LocalNotesWithReplacements returns the local notes with any replacements applied.
@@ -533,7 +535,7 @@ func (t *TraitModifier) LocalNotesWithReplacements() string {
 	if t.trait == nil {
 		return t.LocalNotes
 	}
-	return nameable.Apply(t.LocalNotes, t.trait.Replacements)
+	return t.localNotesTemplate.Apply(t.LocalNotes, t.trait.Replacements)
 }
 
 // NameableReplacements returns the replacements to be used with Nameables.
@@ -631,6 +633,20 @@ func (t *TraitModifier) Hash(h hash.Hash) {
 	}
 }
 
+func (t *TraitModifier) hashContents(h hash.Hash) {
+	t.SourcedID.hashID(h)
+	t.Hash(h)
+	xhash.StringWithLen(h, t.VTTNotes)
+	hashStringMap(h, t.Replacements)
+	if t.Container() {
+		hashContentsOf(h, t.Children)
+	} else {
+		xhash.Num64(h, t.Levels)
+		xhash.Bool(h, t.Disabled)
+	}
+	hashThirdParty(h, t.ThirdParty)
+}
+
 func (t *TraitModifierSyncData) hash(h hash.Hash) {
 	xhash.StringWithLen(h, t.Name)
 	xhash.StringWithLen(h, t.PageRef)
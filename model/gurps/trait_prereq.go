@@ -74,24 +74,27 @@ func (p *TraitPrereq) Satisfied(entity *Entity, exclude any, tooltip *xbytes.Ins
 		replacements = na.NameableReplacements()
 	}
 	satisfied := false
-	Traverse(func(t *Trait) bool {
-		if exclude == t || !p.NameCriteria.Matches(replacements, t.NameWithReplacements()) {
-			return false
+	nameMatcher := p.NameCriteria.Compile(replacements)
+	notesMatcher := p.NotesCriteria.Compile(replacements)
+	for t := range entity.prereqTraits(&nameMatcher) {
+		if exclude == t || !nameMatcher.Matches(t.NameWithReplacements()) {
+			continue
 		}
 		notes := t.Notes()
 		if modNotes := t.ModifierNotes(); modNotes != "" {
 			notes += "\n" + modNotes
 		}
-		if !p.NotesCriteria.Matches(replacements, notes) {
-			return false
+		if !notesMatcher.Matches(notes) {
+			continue
 		}
 		var levels fxp.Int
 		if t.IsLeveled() {
 			levels = t.Levels.Max(0)
 		}
-		satisfied = p.LevelCriteria.Matches(levels)
-		return satisfied
-	}, true, false, entity.Traits...)
+		if satisfied = p.LevelCriteria.Matches(levels); satisfied {
+			break
+		}
+	}
 	if !p.Has {
 		satisfied = !satisfied
 	}
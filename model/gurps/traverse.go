@@ -9,7 +9,11 @@
 
 package gurps
 
-import "slices"
+import (
+	"iter"
+	"slices"
+	"sync"
+)
 
 type traversalData[T NodeTypes] struct {
 	list  []T
@@ -45,3 +49,59 @@ func Traverse[T NodeTypes](f func(T) bool, onlyEnabled, excludeContainers bool,
 		}
 	}
 }
+
+// traversalFrame tracks the position within the children of a node. A nil parent refers to the input list.
+type traversalFrame struct {
+	parent any
+	index  int
+}
+
+var traversalStackPool = sync.Pool{
+	New: func() any {
+		stack := make([]traversalFrame, 0, 16)
+		return &stack
+	},
+}
+
+// TraverseSeq returns an iterator over each node and its children in the input list, recursively, visiting them in the
+// same order as Traverse(). If excludeContainers is true, then nodes that are containers will not be yielded, although
+// their children will still be processed as usual. Unlike Traverse(), the children of a node are not copied before they
+// are visited, so the tree must not be restructured while iterating.
+func TraverseSeq[T NodeTypes](onlyEnabled, excludeContainers bool, in ...T) iter.Seq[T] {
+	return func(yield func(T) bool) {
+		stack, ok := traversalStackPool.Get().(*[]traversalFrame)
+		if !ok {
+			stack = &[]traversalFrame{}
+		}
+		*stack = traverse(append((*stack)[:0], traversalFrame{}), yield, onlyEnabled, excludeContainers, in)
+		traversalStackPool.Put(stack)
+	}
+}
+
+func traverse[T NodeTypes](stack []traversalFrame, yield func(T) bool, onlyEnabled, excludeContainers bool, in []T) []traversalFrame {
+	for len(stack) != 0 {
+		current := &stack[len(stack)-1]
+		list := in
+		if current.parent != nil {
+			list = AsNode(current.parent.(T)).NodeChildren()
+		}
+		if current.index >= len(list) {
+			stack[len(stack)-1] = traversalFrame{}
+			stack = stack[:len(stack)-1]
+			continue
+		}
+		one := list[current.index]
+		node := AsNode(one)
+		current.index++
+		if !onlyEnabled || node.Enabled() {
+			if (!excludeContainers || !node.Container()) && !yield(one) {
+				clear(stack)
+				return stack[:0]
+			}
+			if node.HasChildren() {
+				stack = append(stack, traversalFrame{parent: one})
+			}
+		}
+	}
+	return stack
+}
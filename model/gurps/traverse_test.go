@@ -0,0 +1,101 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package gurps
+
+import (
+	"strconv"
+	"testing"
+
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestTraverseSeqMatchesTraverse(t *testing.T) {
+	c := check.New(t)
+	e, _ := newEntityWithSkillTree(4, 5)
+	for _, excludeContainers := range []bool{false, true} {
+		var expected, actual []*Skill
+		Traverse(func(sk *Skill) bool {
+			expected = append(expected, sk)
+			return false
+		}, false, excludeContainers, e.Skills...)
+		for sk := range TraverseSeq(false, excludeContainers, e.Skills...) {
+			actual = append(actual, sk)
+		}
+		c.Equal(expected, actual)
+	}
+	var expected, actual []*Skill
+	Traverse(func(sk *Skill) bool {
+		expected = append(expected, sk)
+		return len(expected) == 17
+	}, false, false, e.Skills...)
+	for sk := range TraverseSeq(false, false, e.Skills...) {
+		actual = append(actual, sk)
+		if len(actual) == 17 {
+			break
+		}
+	}
+	c.Equal(expected, actual)
+}
+
+func TestTraverseSeqAllocations(t *testing.T) {
+	c := check.New(t)
+	e, count := newEntityWithSkillTree(4, 5)
+	allocs := testing.AllocsPerRun(100, func() {
+		for sk := range TraverseSeq(false, false, e.Skills...) {
+			_ = sk
+		}
+	})
+	c.True(allocs < float64(count)/100, "allocations per traversal: "+strconv.FormatFloat(allocs, 'f', -1, 64))
+}
+
+func BenchmarkTraverse(b *testing.B) {
+	e, count := newEntityWithSkillTree(4, 5)
+	b.Run("callback", func(b *testing.B) {
+		b.ReportAllocs()
+		b.ReportMetric(float64(count), "nodes/op")
+		for b.Loop() {
+			Traverse(func(_ *Skill) bool { return false }, false, false, e.Skills...)
+		}
+	})
+	b.Run("seq", func(b *testing.B) {
+		b.ReportAllocs()
+		b.ReportMetric(float64(count), "nodes/op")
+		for b.Loop() {
+			for sk := range TraverseSeq(false, false, e.Skills...) {
+				_ = sk
+			}
+		}
+	})
+}
+
+// newEntityWithSkillTree creates an entity whose skills are nested 'depth' containers deep, with each container holding
+// 'width' skills and, above the last level, 'width' further containers. Returns the entity and the number of nodes.
+func newEntityWithSkillTree(depth, width int) (e *Entity, count int) {
+	e = NewEntity()
+	var fill func(parent *Skill, level int) []*Skill
+	fill = func(parent *Skill, level int) []*Skill {
+		list := make([]*Skill, 0, width*2)
+		for i := range width {
+			sk := NewSkill(e, parent, false)
+			sk.Name = "Skill " + strconv.Itoa(level) + "." + strconv.Itoa(i)
+			list = append(list, sk)
+			count++
+			if level < depth {
+				container := NewSkill(e, parent, true)
+				container.Children = fill(container, level+1)
+				list = append(list, container)
+				count++
+			}
+		}
+		return list
+	}
+	e.Skills = fill(nil, 1)
+	return e, count
+}
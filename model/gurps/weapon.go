@@ -99,7 +99,9 @@ type WeaponData struct {
 // Weapon holds the stats for a weapon.
 type Weapon struct {
 	WeaponData
-	Owner WeaponOwner
+	Owner              WeaponOwner
+	usageTemplate      nameable.Template
+	usageNotesTemplate nameable.Template
 }
 
 // ExtractWeaponsOfType filters the input list down to only those weapons of the given type.
@@ -709,12 +711,12 @@ func (w *Weapon) extractWeaponBonus(f Feature, set map[*WeaponBonus]bool, allowe
 
 // UsageWithReplacements returns the usage of the weapon with any nameable keys replaced.
 func (w *Weapon) UsageWithReplacements() string {
-	return nameable.Apply(w.Usage, w.NameableReplacements())
+	return w.usageTemplate.Apply(w.Usage, w.NameableReplacements())
 }
 
 // UsageNotesWithReplacements returns the usage notes of the weapon with any nameable keys replaced.
 func (w *Weapon) UsageNotesWithReplacements() string {
-	return nameable.Apply(w.UsageNotes, w.NameableReplacements())
+	return w.usageNotesTemplate.Apply(w.UsageNotes, w.NameableReplacements())
 }
 
 // NameableReplacements returns the replacements to be used with this weapon.
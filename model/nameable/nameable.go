@@ -50,12 +50,59 @@ func Extract(str string, m, existing map[string]string) {
 
 // Apply replaces the matching nameable sections with the values from the set.
 func Apply(str string, m map[string]string) string {
-	if strings.Count(str, "@") > 1 {
-		for k, v := range m {
-			str = strings.ReplaceAll(str, "@"+k+"@", v)
+	if len(m) == 0 {
+		return str
+	}
+	var buffer [16]int
+	at := buffer[:0]
+	for i := 0; i < len(str); i++ {
+		if str[i] == '@' {
+			at = append(at, i)
 		}
 	}
-	return str
+	if len(at) < 2 {
+		return str
+	}
+	return render(str, at, m)
+}
+
+// render replaces the matching nameable sections of the string in a single pass. 'at' must contain the positions of
+// each '@' within the string.
+func render(str string, at []int, m map[string]string) string {
+	size, replaced := scan(str, at, m, nil)
+	if !replaced {
+		return str
+	}
+	var buffer strings.Builder
+	buffer.Grow(size)
+	scan(str, at, m, &buffer)
+	return buffer.String()
+}
+
+// scan walks the string, replacing each "@key@" section whose key is present in the map. The leftmost possible key is
+// always tried first, so "@a@b@" will replace "@b@" when "a" has no value, but not when it does. Returns the size of
+// the result and whether any replacement was made. If the buffer is not nil, the result is written into it.
+func scan(str string, at []int, m map[string]string, buffer *strings.Builder) (size int, replaced bool) {
+	start := 0
+	for i := 0; i+1 < len(at); {
+		if v, ok := m[str[at[i]+1:at[i+1]]]; ok {
+			size += at[i] - start + len(v)
+			if buffer != nil {
+				buffer.WriteString(str[start:at[i]])
+				buffer.WriteString(v)
+			}
+			start = at[i+1] + 1
+			replaced = true
+			i += 2
+		} else {
+			i++
+		}
+	}
+	size += len(str) - start
+	if buffer != nil {
+		buffer.WriteString(str[start:])
+	}
+	return size, replaced
 }
 
 // ApplyToList replaces the matching nameable sections with the values from the set.
@@ -0,0 +1,47 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package nameable_test
+
+import (
+	"testing"
+
+	"github.com/richardwilkes/gcs/v5/model/nameable"
+	"github.com/richardwilkes/toolbox/v2/check"
+)
+
+func TestApply(t *testing.T) {
+	c := check.New(t)
+	m := map[string]string{"a": "X", "b": "Y", "": "empty"}
+	c.Equal("plain", nameable.Apply("plain", m))
+	c.Equal("one @ only", nameable.Apply("one @ only", m))
+	c.Equal("X", nameable.Apply("@a@", m))
+	c.Equal("X and Y", nameable.Apply("@a@ and @b@", m))
+	c.Equal("Xb@", nameable.Apply("@a@b@", m))
+	c.Equal("@cY", nameable.Apply("@c@b@", m))
+	c.Equal("@c@ stays", nameable.Apply("@c@ stays", m))
+	c.Equal("[empty]", nameable.Apply("[@@]", m))
+	c.Equal("@a@", nameable.Apply("@a@", nil))
+}
+
+func TestTemplate(t *testing.T) {
+	c := check.New(t)
+	var tmpl nameable.Template
+	m := map[string]string{"a": "X"}
+	c.Equal("plain", tmpl.Apply("plain", m))
+	c.Equal("X-@b@", tmpl.Apply("@a@-@b@", m))
+	m["a"] = "Z"
+	c.Equal("Z-@b@", tmpl.Apply("@a@-@b@", m))
+	m["b"] = "Y"
+	c.Equal("Z-Y", tmpl.Apply("@a@-@b@", m))
+	delete(m, "a")
+	c.Equal("@a@-Y", tmpl.Apply("@a@-@b@", m))
+	c.Equal("Y", tmpl.Apply("@b@", m))
+	c.Equal("Y", tmpl.Apply("@b@", map[string]string{"b": "Y"}))
+}
@@ -0,0 +1,75 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package nameable
+
+// Template holds a string that has been split at its nameable key boundaries, along with the result of the last time it
+// was rendered. The result is reused until either the string or the value of one of the keys it references changes.
+// The zero value is ready for use. A Template is not safe for concurrent use.
+type Template struct {
+	source   string
+	at       []int
+	values   []lookup
+	result   string
+	compiled bool
+}
+
+type lookup struct {
+	value string
+	ok    bool
+}
+
+// Apply replaces the matching nameable sections of the string with the values from the set, returning the cached
+// result when possible.
+func (t *Template) Apply(str string, m map[string]string) string {
+	if !t.compiled || t.source != str {
+		t.compile(str)
+	}
+	if len(t.at) < 2 {
+		return str
+	}
+	if t.values != nil && t.unchanged(m) {
+		return t.result
+	}
+	// A new slice is used rather than updating the existing one in place, since a shallow copy of the owning object may
+	// be sharing it.
+	values := make([]lookup, len(t.at)-1)
+	for i := range values {
+		values[i].value, values[i].ok = m[str[t.at[i]+1:t.at[i+1]]]
+	}
+	t.values = values
+	t.result = render(str, t.at, m)
+	return t.result
+}
+
+func (t *Template) compile(str string) {
+	t.source = str
+	t.at = nil
+	t.values = nil
+	t.result = ""
+	t.compiled = true
+	for i := 0; i < len(str); i++ {
+		if str[i] == '@' {
+			t.at = append(t.at, i)
+		}
+	}
+	if len(t.at) < 2 {
+		t.at = nil
+	}
+}
+
+// unchanged returns true if every key that the string could reference has the same value it had when last rendered.
+func (t *Template) unchanged(m map[string]string) bool {
+	for i, one := range t.values {
+		if v, ok := m[t.source[t.at[i]+1:t.at[i+1]]]; ok != one.ok || v != one.value {
+			return false
+		}
+	}
+	return true
+}
@@ -136,6 +136,7 @@ var (
 	mailingListAction        *unison.Action
 	makeDonationAction       *unison.Action
 	releaseNotesAction       *unison.Action
+	scriptStatisticsAction   *unison.Action
 	sponsorDevelopmentAction *unison.Action
 	updateAppStatusAction    *unison.Action
 	webSiteAction            *unison.Action
@@ -933,6 +934,11 @@ func registerActions() {
 			showWebPage("https://github.com/richardwilkes/gcs/releases")
 		},
 	}
+	scriptStatisticsAction = &unison.Action{
+		ID:              ScriptStatisticsItemID,
+		Title:           i18n.Text("Script Statistics"),
+		ExecuteCallback: func(_ *unison.Action, _ any) { ShowScriptStatistics() },
+	}
 	sponsorDevelopmentAction = &unison.Action{
 		ID:    SponsorGCSDevelopmentItemID,
 		Title: fmt.Sprintf(i18n.Text("Sponsor %s Development"), xos.AppName),
@@ -330,15 +330,15 @@ func (d *attributeSettingsDockable) apply() {
 	entity := d.owner.Entity()
 	entity.SheetSettings.Attributes = d.defs.Clone()
 	for attrID, def := range entity.SheetSettings.Attributes.Set {
-		if attr, exists := entity.Attributes.Set[attrID]; exists {
-			attr.Order = def.Order
+		if _, exists := entity.Attributes.Set[attrID]; exists {
+			entity.Attributes.SetOrder(attrID, def.Order)
 		} else {
-			entity.Attributes.Set[attrID] = gurps.NewAttribute(entity, attrID, def.Order)
+			entity.Attributes.Add(gurps.NewAttribute(entity, attrID, def.Order))
 		}
 	}
 	for attrID := range entity.Attributes.Set {
 		if _, exists := d.defs.Set[attrID]; !exists {
-			delete(entity.Attributes.Set, attrID)
+			entity.Attributes.Remove(attrID)
 		}
 	}
 	for _, one := range AllDockables() {
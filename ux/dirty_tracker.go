@@ -0,0 +1,58 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package ux
+
+import "github.com/richardwilkes/gcs/v5/model/gurps"
+
+// dirtyTracker determines whether a document differs from its saved state. Every edit bumps a version counter, so that
+// checking for modifications is just a comparison until something changes. The content hash is only computed when the
+// version has moved on since the last check, which still allows edits that have been reverted to be recognized as such.
+type dirtyTracker struct {
+	target         gurps.Hashable
+	savedHash      uint64
+	version        uint64
+	checkedVersion uint64
+	modified       bool
+}
+
+func newDirtyTracker(target gurps.Hashable) dirtyTracker {
+	return dirtyTracker{
+		target:    target,
+		savedHash: gurps.Hash64(target),
+	}
+}
+
+// edited records that the document may have changed.
+func (d *dirtyTracker) edited() {
+	d.version++
+}
+
+// Modified returns true if the document differs from its saved state.
+func (d *dirtyTracker) Modified() bool {
+	if d.version != d.checkedVersion {
+		d.modified = gurps.Hash64(d.target) != d.savedHash
+		d.checkedVersion = d.version
+	}
+	return d.modified
+}
+
+// saved records the current state of the document as its saved state.
+func (d *dirtyTracker) saved() {
+	d.savedHash = gurps.Hash64(d.target)
+	d.checkedVersion = d.version
+	d.modified = false
+}
+
+// unsaved forces the document to be considered modified until it is next saved.
+func (d *dirtyTracker) unsaved() {
+	d.savedHash = 0
+	d.checkedVersion = d.version
+	d.modified = true
+}
@@ -58,7 +58,7 @@ type LootSheet struct {
 	scroll            *unison.ScrollPanel
 	content           *unison.Panel
 	loot              *gurps.Loot
-	hash              uint64
+	dirty             dirtyTracker
 	Equipment         *PageList[*gurps.Equipment]
 	Notes             *PageList[*gurps.Note]
 	dragReroutePanel  *unison.Panel
@@ -99,7 +99,7 @@ func NewLootSheet(filePath string, loot *gurps.Loot) *LootSheet {
 		content:           unison.NewPanel(),
 		loot:              loot,
 		scale:             gurps.GlobalSettings().General.InitialSheetUIScale,
-		hash:              gurps.Hash64(loot),
+		dirty:             newDirtyTracker(loot),
 		needsSaveAsPrompt: true,
 	}
 	l.Self = l
@@ -360,11 +360,12 @@ func (l *LootSheet) SetBackingFilePath(p string) {
 
 // Modified implements ux.FileBackedDockable
 func (l *LootSheet) Modified() bool {
-	return l.hash != gurps.Hash64(l.loot)
+	return l.dirty.Modified()
 }
 
 // MarkModified implements widget.ModifiableRoot.
 func (l *LootSheet) MarkModified(_ unison.Paneler) {
+	l.dirty.edited()
 	if !l.awaitingUpdate {
 		l.awaitingUpdate = true
 		h, v := l.scroll.Position()
@@ -396,11 +397,11 @@ func (l *LootSheet) save(forceSaveAs bool) bool {
 	success := false
 	if forceSaveAs || l.needsSaveAsPrompt {
 		success = SaveDockableAs(l, gurps.LootExt, l.loot.Save, func(path string) {
-			l.hash = gurps.Hash64(l.loot)
+			l.dirty.saved()
 			l.path = path
 		})
 	} else {
-		success = SaveDockable(l, l.loot.Save, func() { l.hash = gurps.Hash64(l.loot) })
+		success = SaveDockable(l, l.loot.Save, func() { l.dirty.saved() })
 	}
 	if success {
 		l.needsSaveAsPrompt = false
@@ -450,6 +451,7 @@ func (l *LootSheet) syncWithAllSources() {
 
 // Rebuild implements widget.Rebuildable.
 func (l *LootSheet) Rebuild(full bool) {
+	l.dirty.edited()
 	gurps.DiscardGlobalResolveCache()
 	l.loot.EnsureAttachments()
 	l.loot.SourceMatcher().PrepareHashes(l.loot)
@@ -696,7 +698,7 @@ or under the maximum value of $%s with the available items.`),
 		}
 		loot.EnsureAttachments()
 		sheet := NewLootSheet("untitled"+gurps.LootExt, loot)
-		sheet.hash = 0 // Force it to be recognized as unsaved
+		sheet.dirty.unsaved()
 		DisplayNewDockable(sheet)
 	}
 }
@@ -106,6 +106,7 @@ const (
 	WebSiteItemID
 	MailingListItemID
 	UserGuideItemID
+	ScriptStatisticsItemID
 	ViewMenuID
 	ScaleDefaultItemID
 	ScaleUpItemID
@@ -370,6 +371,7 @@ func (s menuBarScope) setupHelpMenu(bar unison.Menu) {
 	m.InsertItem(-1, checkForAppUpdatesAction.NewMenuItem(f))
 	m.InsertItem(-1, releaseNotesAction.NewMenuItem(f))
 	m.InsertItem(-1, licenseAction.NewMenuItem(f))
+	m.InsertItem(-1, scriptStatisticsAction.NewMenuItem(f))
 	m.InsertSeparator(-1, false)
 	m.InsertItem(-1, webSiteAction.NewMenuItem(f))
 	m.InsertItem(-1, mailingListAction.NewMenuItem(f))
@@ -0,0 +1,58 @@
+// Copyright (c) 1998-2025 by Richard A. Wilkes. All rights reserved.
+//
+// This Source Code Form is subject to the terms of the Mozilla Public
+// License, version 2.0. If a copy of the MPL was not distributed with
+// this file, You can obtain one at http://mozilla.org/MPL/2.0/.
+//
+// This Source Code Form is "Incompatible With Secondary Licenses", as
+// defined by the Mozilla Public License, version 2.0.
+
+package ux
+
+import (
+	"strings"
+
+	"github.com/richardwilkes/gcs/v5/model/gurps"
+	"github.com/richardwilkes/toolbox/v2/errs"
+	"github.com/richardwilkes/toolbox/v2/i18n"
+)
+
+// ShowScriptStatistics shows the statistics collected for the scripts that have been run. Collection is started the
+// first time this is called, if it wasn't already enabled from the command line.
+func ShowScriptStatistics() {
+	title := i18n.Text("Script Statistics")
+	content := scriptStatisticsMarkdown()
+	if d, ok := LocateFileBackedDockable(markdownContentOnlyPrefix + title).(*MarkdownDockable); ok {
+		d.original = content
+		d.content = content
+		d.markdown.SetContent(content, 0)
+		d.MarkForLayoutAndRedraw()
+		ActivateDockable(d)
+		return
+	}
+	ShowReadOnlyMarkdown(title, content)
+}
+
+func scriptStatisticsMarkdown() string {
+	var buffer strings.Builder
+	buffer.WriteString("# ")
+	buffer.WriteString(i18n.Text("Script Statistics"))
+	buffer.WriteString("\n\n")
+	if !gurps.ScriptStatsEnabled() {
+		gurps.EnableScriptStats(true)
+		buffer.WriteString(i18n.Text("Collection of script statistics has now been enabled. Choose this menu item again to see the statistics collected since then."))
+		buffer.WriteByte('\n')
+		return buffer.String()
+	}
+	if len(gurps.ScriptStatistics()) == 0 {
+		buffer.WriteString(i18n.Text("No scripts have been run since collection was enabled."))
+		buffer.WriteByte('\n')
+		return buffer.String()
+	}
+	buffer.WriteString("```\n")
+	if err := gurps.WriteScriptStats(&buffer); err != nil {
+		errs.Log(err)
+	}
+	buffer.WriteString("```\n")
+	return buffer.String()
+}
@@ -70,7 +70,7 @@ type Sheet struct {
 	toolbar              *unison.Panel
 	scroll               *unison.ScrollPanel
 	entity               *gurps.Entity
-	hash                 uint64
+	dirty                dirtyTracker
 	content              *unison.Panel
 	modifiedFunc         func()
 	syncDisclosureFunc   func()
@@ -132,7 +132,7 @@ func NewSheet(filePath string, entity *gurps.Entity) *Sheet {
 		undoMgr:           unison.NewUndoManager(200, func(err error) { errs.Log(err) }),
 		scroll:            unison.NewScrollPanel(),
 		entity:            entity,
-		hash:              gurps.Hash64(entity),
+		dirty:             newDirtyTracker(entity),
 		scale:             gurps.GlobalSettings().General.InitialSheetUIScale,
 		content:           unison.NewPanel(),
 		needsSaveAsPrompt: true,
@@ -261,7 +261,7 @@ func (s *Sheet) cloneSheet() {
 	sheet := NewSheet(entity.Profile.Name+gurps.SheetExt, entity)
 	DisplayNewDockable(sheet)
 	sheet.undoMgr.Clear()
-	sheet.hash = 0
+	sheet.dirty.unsaved()
 }
 
 // DockKey implements KeyedDockable.
@@ -509,11 +509,12 @@ func (s *Sheet) SetBackingFilePath(p string) {
 
 // Modified implements ux.FileBackedDockable
 func (s *Sheet) Modified() bool {
-	return s.hash != gurps.Hash64(s.entity)
+	return s.dirty.Modified()
 }
 
 // MarkModified implements widget.ModifiableRoot.
 func (s *Sheet) MarkModified(src unison.Paneler) {
+	s.dirty.edited()
 	if !s.awaitingUpdate {
 		s.awaitingUpdate = true
 		h, v := s.scroll.Position()
@@ -556,11 +557,11 @@ func (s *Sheet) save(forceSaveAs bool) bool {
 	success := false
 	if forceSaveAs || s.needsSaveAsPrompt {
 		success = SaveDockableAs(s, gurps.SheetExt, s.entity.Save, func(path string) {
-			s.hash = gurps.Hash64(s.entity)
+			s.dirty.saved()
 			s.path = path
 		})
 	} else {
-		success = SaveDockable(s, s.entity.Save, func() { s.hash = gurps.Hash64(s.entity) })
+		success = SaveDockable(s, s.entity.Save, func() { s.dirty.saved() })
 	}
 	if success {
 		s.needsSaveAsPrompt = false
@@ -800,6 +801,7 @@ func (s *Sheet) syncWithAllSources() {
 
 // Rebuild implements widget.Rebuildable.
 func (s *Sheet) Rebuild(full bool) {
+	s.dirty.edited()
 	gurps.DiscardGlobalResolveCache()
 	h, v := s.scroll.Position()
 	focusRefKey := s.targetMgr.CurrentFocusRef()
@@ -54,7 +54,7 @@ type TableDockable[T gurps.NodeTypes] struct {
 	scroll            *unison.ScrollPanel
 	tableHeader       *unison.TableHeader[*Node[T]]
 	table             *unison.Table[*Node[T]]
-	hash              uint64
+	dirty             dirtyTracker
 	scale             int
 	needsSaveAsPrompt bool
 }
@@ -158,7 +158,7 @@ func NewTableDockable[T gurps.NodeTypes](filePath, extension string, provider Ta
 				func(_ any) { d.provider.CreateItem(d, d.table, variant) })
 		}
 	}
-	d.hash = gurps.Hash64(d)
+	d.dirty = newDirtyTracker(d)
 	return d
 }
 
@@ -273,11 +273,12 @@ func (d *TableDockable[T]) SetBackingFilePath(p string) {
 
 // Modified implements ux.FileBackedDockable
 func (d *TableDockable[T]) Modified() bool {
-	return d.hash != gurps.Hash64(d)
+	return d.dirty.Modified()
 }
 
 // MarkModified implements widget.ModifiableRoot.
 func (d *TableDockable[T]) MarkModified(_ unison.Paneler) {
+	d.dirty.edited()
 	UpdateTitleForDockable(d)
 }
 
@@ -299,11 +300,11 @@ func (d *TableDockable[T]) save(forceSaveAs bool) bool {
 	success := false
 	if forceSaveAs || d.needsSaveAsPrompt {
 		success = SaveDockableAs(d, d.extension, d.saver, func(path string) {
-			d.hash = gurps.Hash64(d)
+			d.dirty.saved()
 			d.path = path
 		})
 	} else {
-		success = SaveDockable(d, d.saver, func() { d.hash = gurps.Hash64(d) })
+		success = SaveDockable(d, d.saver, func() { d.dirty.saved() })
 	}
 	if success {
 		d.needsSaveAsPrompt = false
@@ -413,6 +414,7 @@ func (d *TableDockable[T]) sizeToFit() {
 
 // Rebuild implements widget.Rebuildable.
 func (d *TableDockable[T]) Rebuild(_ bool) {
+	d.dirty.edited()
 	gurps.DiscardGlobalResolveCache()
 	h, v := d.scroll.Position()
 	sel := d.table.CopySelectionMap()
@@ -53,7 +53,7 @@ type Template struct {
 	toolbar           *unison.Panel
 	scroll            *unison.ScrollPanel
 	template          *gurps.Template
-	hash              uint64
+	dirty             dirtyTracker
 	content           *templateContent
 	Traits            *PageList[*gurps.Trait]
 	Skills            *PageList[*gurps.Skill]
@@ -99,7 +99,7 @@ func NewTemplate(filePath string, template *gurps.Template) *Template {
 		template:          template,
 		lastBody:          template.BodyType,
 		scale:             gurps.GlobalSettings().General.InitialSheetUIScale,
-		hash:              gurps.Hash64(template),
+		dirty:             newDirtyTracker(template),
 		needsSaveAsPrompt: true,
 	}
 	if t.lastBody == nil {
@@ -314,7 +314,7 @@ func (t *Template) newSheetFromTemplate(_ any) {
 	DisplayNewDockable(sheet)
 	if t.applyTemplateToSheet(sheet, true) {
 		sheet.undoMgr.Clear()
-		sheet.hash = 0
+		sheet.dirty.unsaved()
 	}
 	sheet.SetBackingFilePath(e.Profile.Name + gurps.SheetExt)
 }
@@ -682,11 +682,12 @@ func (t *Template) SetBackingFilePath(p string) {
 
 // Modified implements ux.FileBackedDockable
 func (t *Template) Modified() bool {
-	return t.hash != gurps.Hash64(t.template)
+	return t.dirty.Modified()
 }
 
 // MarkModified implements widget.ModifiableRoot.
 func (t *Template) MarkModified(_ unison.Paneler) {
+	t.dirty.edited()
 	if !t.awaitingUpdate {
 		t.awaitingUpdate = true
 		h, v := t.scroll.Position()
@@ -723,11 +724,11 @@ func (t *Template) save(forceSaveAs bool) bool {
 	success := false
 	if forceSaveAs || t.needsSaveAsPrompt {
 		success = SaveDockableAs(t, gurps.TemplatesExt, t.template.Save, func(path string) {
-			t.hash = gurps.Hash64(t.template)
+			t.dirty.saved()
 			t.path = path
 		})
 	} else {
-		success = SaveDockable(t, t.template.Save, func() { t.hash = gurps.Hash64(t.template) })
+		success = SaveDockable(t, t.template.Save, func() { t.dirty.saved() })
 	}
 	if success {
 		t.needsSaveAsPrompt = false
@@ -878,6 +879,7 @@ func (t *Template) SheetSettingsUpdated(e *gurps.Entity, blockLayout bool) {
 
 // Rebuild implements widget.Rebuildable.
 func (t *Template) Rebuild(full bool) {
+	t.dirty.edited()
 	gurps.DiscardGlobalResolveCache()
 	t.template.EnsureAttachments()
 	t.template.SourceMatcher().PrepareHashes(t.template)